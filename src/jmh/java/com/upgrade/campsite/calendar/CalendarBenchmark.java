@@ -0,0 +1,115 @@
+package com.upgrade.campsite.calendar;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Single threaded cost of the Calendar operations, over calendars of horizon days and date ranges of length days.
+ * Every other day of the first half of the calendar is booked: reads and checks look at ranges starting tomorrow,
+ * within that half, while book/unbook and moves go back and forth within the free second half so that the state
+ * does not change from one call to the next.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="CalendarBenchmark -prof gc"
+ * or a subset of the parameters, e.g. -Djmh.args="CalendarBenchmark -p horizon=30 -p length=3 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarBenchmark {
+
+	@Param({ "30", "365", "3650" })
+	private int horizon;
+
+	@Param({ "1", "3", "14" })
+	private int length;
+
+	private Calendar calendar;
+
+	private LocalDate readStart;
+	private LocalDate readEnd;
+	private LocalDate writeStart;
+	private LocalDate writeEnd;
+	private LocalDate movedStart;
+	private LocalDate movedEnd;
+	private long firstDay;
+
+	@Setup
+	public void setUp() {
+		calendar = new Calendar(horizon);
+		for (int day = 2; day < horizon / 2; day += 2) {
+			calendar.book(LocalDate.now().plusDays(day), LocalDate.now().plusDays(day));
+		}
+		readStart = LocalDate.now().plusDays(1);
+		readEnd = readStart.plusDays(length - 1);
+		writeStart = LocalDate.now().plusDays(horizon / 2 + 1);
+		writeEnd = writeStart.plusDays(length - 1);
+		movedStart = writeStart.plusDays(1);
+		movedEnd = writeEnd.plusDays(1);
+		calendar.book(writeStart, writeEnd);
+		firstDay = Today.epochDay() - 1;
+	}
+
+	@Benchmark
+	public List<LocalDate> readAvailability() {
+		return calendar.readAvailability(readStart, readEnd);
+	}
+
+	@Benchmark
+	public int[] readAvailableEpochDays() {
+		return calendar.readAvailableEpochDays(readStart, readEnd);
+	}
+
+	@Benchmark
+	public boolean checkAvailability() {
+		return calendar.checkAvailability(readStart, readEnd);
+	}
+
+	@Benchmark
+	public boolean checkOverlappingAvailability() {
+		return calendar.checkOverlappingAvailability(writeStart, writeEnd, movedStart, movedEnd);
+	}
+
+	@Benchmark
+	public void unbookBook() {
+		calendar.unbook(writeStart, writeEnd);
+		calendar.book(writeStart, writeEnd);
+		firstDay = Today.epochDay() - 1;
+	}
+
+	@Benchmark
+	public void moveBookingBackAndForth() {
+		calendar.moveBooking(writeStart, writeEnd, movedStart, movedEnd);
+		calendar.moveBooking(movedStart, movedEnd, writeStart, writeEnd);
+	}
+
+	@Benchmark
+	public int[] findStayWindows() {
+		return calendar.findStayWindows(Math.min(length, 3), 5);
+	}
+
+	/*
+	 * Dropping a past day, as advanceCalendar does once a day. Bookings drift out of the calendar as it goes, the cost
+	 * does not depend on them.
+	 */
+	@Benchmark
+	public Calendar advanceCalendar() {
+		calendar.moveFirstDay(++firstDay);
+		return calendar;
+	}
+}
@@ -0,0 +1,43 @@
+package com.upgrade.campsite.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Cost of a latency recording on the hot paths, a clock read included, uncontended and from 4 threads recording into
+ * the same recorder. To be set against the cost of the operations recorded, see ReservationContentionBenchmark.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="LatencyRecorderBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyRecorderBenchmark {
+
+	private final LatencyRecorder recorder = new LatencyRecorder();
+
+	@Benchmark
+	@Threads(1)
+	public void record() {
+		recorder.record(System.nanoTime() & 0xFFFFF);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordShared() {
+		recorder.record(System.nanoTime() & 0xFFFFF);
+	}
+}
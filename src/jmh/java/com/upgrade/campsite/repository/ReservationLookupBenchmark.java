@@ -0,0 +1,92 @@
+package com.upgrade.campsite.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Compares reservation lookups by uuid served by the JPA backend (Spring Data over H2) against the in-memory backend.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ReservationLookupBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationLookupBenchmark {
+
+	@Param({ "jpa", "in-memory" })
+	private String backend;
+
+	@Param({ "1000" })
+	private int reservations;
+
+	private ConfigurableApplicationContext context;
+	private ReservationRepository reservationRepository;
+	private String[] uuids;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(CampsiteReservationsApplication.class)
+				.web(false)
+				.profiles("jpa".equals(backend) ? "default" : backend)
+				.run("--logging.level.root=WARN",
+						"--campsite.repository.in-memory.checkpoint-path=target/jmh/" + UUID.randomUUID() + ".checkpoint");
+		reservationRepository = context.getBean(ReservationRepository.class);
+
+		uuids = new String[reservations];
+		for (int i = 0; i < reservations; i++) {
+			uuids[i] = UUID.randomUUID().toString();
+			LocalDate arrivalDate = LocalDate.now().plusDays(1 + i % 30);
+			reservationRepository.save(new Reservation()
+					.uuid(uuids[i])
+					.email("someone@something.com")
+					.fullName("John Smith")
+					.arrivalDate(arrivalDate)
+					.departureDate(arrivalDate));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Reservation findByUuid() {
+		return reservationRepository.findByUuid(nextUuid());
+	}
+
+	@Benchmark
+	public ReservationDto findDtoByUuid() {
+		return reservationRepository.findDtoByUuid(nextUuid());
+	}
+
+	private String nextUuid() {
+		next = next + 1 == uuids.length ? 0 : next + 1;
+		return uuids[next];
+	}
+}
@@ -0,0 +1,104 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Encoding and decoding cost of the api bodies in Json, Smile and CBOR: a full month availability response, and a
+ * reservation both ways (request bodies are decoded, responses encoded). Payload sizes are printed on setup.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ContentEncodingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentEncodingBenchmark {
+
+	@Param({ "json", "smile", "cbor" })
+	private String format;
+
+	private ObjectWriter availabilityWriter;
+	private ObjectWriter reservationWriter;
+	private ObjectReader reservationReader;
+
+	private AvailabilityDto availabilityDto;
+	private ReservationDto reservationDto;
+	private byte[] reservationBytes;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = new ObjectMapper(factory())
+				.registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		availabilityWriter = objectMapper.writerFor(AvailabilityDto.class);
+		reservationWriter = objectMapper.writerFor(ReservationDto.class);
+		reservationReader = objectMapper.readerFor(ReservationDto.class);
+
+		long today = LocalDate.now().toEpochDay();
+		int[] availableEpochDays = new int[Calendar.TIME_SPAN];
+		for (int i = 1; i <= Calendar.TIME_SPAN; i++) {
+			availableEpochDays[i - 1] = (int) (today + i);
+		}
+		availabilityDto = new AvailabilityDto(LocalDate.now().plusDays(1), LocalDate.now().plusDays(Calendar.TIME_SPAN), availableEpochDays);
+		reservationDto = new ReservationDto("5f0c0b8e-7c4a-4c5b-9b8e-1f2d3c4b5a69", "someone@something.com", "John Smith",
+				LocalDate.now().plusDays(2), LocalDate.now().plusDays(4), 0L);
+		reservationBytes = reservationWriter.writeValueAsBytes(reservationDto);
+
+		System.out.println(format + ": availability " + availabilityWriter.writeValueAsBytes(availabilityDto).length
+				+ " bytes, reservation " + reservationBytes.length + " bytes");
+	}
+
+	private JsonFactory factory() {
+		switch (format) {
+			case "smile":
+				return new SmileFactory();
+			case "cbor":
+				return new CBORFactory();
+			default:
+				return new JsonFactory();
+		}
+	}
+
+	@Benchmark
+	public byte[] encodeAvailability() throws IOException {
+		return availabilityWriter.writeValueAsBytes(availabilityDto);
+	}
+
+	@Benchmark
+	public byte[] encodeReservation() throws IOException {
+		return reservationWriter.writeValueAsBytes(reservationDto);
+	}
+
+	@Benchmark
+	public ReservationDto decodeReservation() throws IOException {
+		return reservationReader.readValue(reservationBytes);
+	}
+}
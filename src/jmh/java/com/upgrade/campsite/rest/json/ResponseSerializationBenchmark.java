@@ -0,0 +1,136 @@
+package com.upgrade.campsite.rest.json;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Cost of writing the availability (a full month available) and reservation response bodies: the former default
+ * mapping (bean introspection, LocalDate through @JsonFormat, availability built as a list of LocalDate) against the
+ * hand-written serializers through a prepared ObjectWriter, availability built as epoch days.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ResponseSerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+	private static final String UUID = "5f0c0b8e-7c4a-4c5b-9b8e-1f2d3c4b5a69";
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private final ObjectWriter availabilityWriter = objectMapper.writerFor(AvailabilityDto.class);
+	private final ObjectWriter reservationWriter = objectMapper.writerFor(ReservationDto.class);
+
+	private LocalDate startDate;
+	private LocalDate endDate;
+	private LegacyReservationDto legacyReservationDto;
+	private ReservationDto reservationDto;
+
+	@Setup
+	public void setUp() {
+		startDate = LocalDate.now().plusDays(1);
+		endDate = LocalDate.now().plusDays(Calendar.TIME_SPAN);
+		legacyReservationDto = new LegacyReservationDto(UUID, "someone@something.com", "John Smith", startDate, startDate.plusDays(2), 0L);
+		reservationDto = new ReservationDto(UUID, "someone@something.com", "John Smith", startDate, startDate.plusDays(2), 0L);
+	}
+
+	@Benchmark
+	public byte[] availabilityLegacy() throws JsonProcessingException {
+		List<LocalDate> availableDates = new ArrayList<>();
+		for (int i = 1; i <= Calendar.TIME_SPAN; i++) {
+			availableDates.add(LocalDate.now().plusDays(i));
+		}
+		return objectMapper.writeValueAsBytes(new LegacyAvailabilityDto(startDate, endDate, availableDates));
+	}
+
+	@Benchmark
+	public byte[] availabilityEpochDays() throws JsonProcessingException {
+		long today = LocalDate.now().toEpochDay();
+		int[] availableEpochDays = new int[Calendar.TIME_SPAN];
+		for (int i = 1; i <= Calendar.TIME_SPAN; i++) {
+			availableEpochDays[i - 1] = (int) (today + i);
+		}
+		return availabilityWriter.writeValueAsBytes(new AvailabilityDto(startDate, endDate, availableEpochDays));
+	}
+
+	@Benchmark
+	public byte[] reservationLegacy() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(legacyReservationDto);
+	}
+
+	@Benchmark
+	public byte[] reservationSerializer() throws JsonProcessingException {
+		return reservationWriter.writeValueAsBytes(reservationDto);
+	}
+
+	/*
+	 * The dtos as they were mapped before
+	 */
+	public static class LegacyAvailabilityDto {
+
+		@JsonFormat(pattern = "yyyy-MM-dd")
+		public final LocalDate startDate;
+		@JsonFormat(pattern = "yyyy-MM-dd")
+		public final LocalDate endDate;
+		@JsonFormat(pattern = "yyyy-MM-dd")
+		public final List<LocalDate> availableDates;
+
+		LegacyAvailabilityDto(LocalDate startDate, LocalDate endDate, List<LocalDate> availableDates) {
+			this.startDate = startDate;
+			this.endDate = endDate;
+			this.availableDates = availableDates;
+		}
+	}
+
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class LegacyReservationDto {
+
+		public final String uuid;
+		public final String email;
+		public final String fullName;
+		@JsonFormat(pattern = "yyyy-MM-dd")
+		public final LocalDate arrivalDate;
+		@JsonFormat(pattern = "yyyy-MM-dd")
+		public final LocalDate departureDate;
+		public final Long version;
+
+		LegacyReservationDto(String uuid, String email, String fullName, LocalDate arrivalDate, LocalDate departureDate, Long version) {
+			this.uuid = uuid;
+			this.email = email;
+			this.fullName = fullName;
+			this.arrivalDate = arrivalDate;
+			this.departureDate = departureDate;
+			this.version = version;
+		}
+	}
+}
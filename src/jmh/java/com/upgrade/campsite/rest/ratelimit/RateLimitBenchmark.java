@@ -0,0 +1,72 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.upgrade.campsite.rest.ratelimit.RateLimitProperties.Limit;
+
+/*
+ * Cost of the per-ip rate limit check done on every GET /api/reservations, with all threads spread over a set of
+ * client addresses (shared) or all on the same one (contended bucket).
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="RateLimitBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+
+	@Param({ "10000" })
+	private int clients;
+
+	private RateLimits rateLimits;
+	private String[] addresses;
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		private int next;
+	}
+
+	@Setup
+	public void setUp() {
+		Limit limit = new Limit();
+		limit.setPermitsPerSecond(1_000_000_000);
+		limit.setBurst(1_000_000_000);
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.getIp().put("readAvailability", limit);
+		rateLimits = new RateLimits(properties);
+
+		addresses = new String[clients];
+		for (int i = 0; i < clients; i++) {
+			addresses[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+		}
+	}
+
+	@Benchmark
+	public void manyClients(Client client) {
+		client.next = client.next + 1 == addresses.length ? 0 : client.next + 1;
+		rateLimits.checkIp("readAvailability", addresses[client.next]);
+	}
+
+	@Benchmark
+	public void singleClient() {
+		rateLimits.checkIp("readAvailability", addresses[0]);
+	}
+}
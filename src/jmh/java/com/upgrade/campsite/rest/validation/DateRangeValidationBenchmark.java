@@ -0,0 +1,96 @@
+package com.upgrade.campsite.rest.validation;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanWrapperImpl;
+
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Per-request cost of the class level date range validation, for the POST body (ReservationDto) and the GET
+ * availability query (DateRangeDto): the former reflective validators (two BeanWrapperImpl per call, streamed rules,
+ * repeated LocalDate.now()) against the current ones reading DateRange against a cached epoch day.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="DateRangeValidationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateRangeValidationBenchmark {
+
+	private static final List<BiPredicate<LocalDate, LocalDate>> LEGACY_BOOKING_RULES = Arrays.asList(
+			(arrivalDate, departureDate) -> arrivalDate != null && departureDate != null,
+			(arrivalDate, departureDate) -> arrivalDate.isBefore(departureDate) || arrivalDate.isEqual(departureDate),
+			(arrivalDate, departureDate) -> arrivalDate.isAfter(LocalDate.now()) && departureDate.isBefore(LocalDate.now().plusDays(Calendar.TIME_SPAN + 2)),
+			(arrivalDate, departureDate) -> ChronoUnit.DAYS.between(arrivalDate, departureDate) < 3);
+
+	private static final List<BiPredicate<LocalDate, LocalDate>> LEGACY_AVAILABILITY_RULES = Arrays.asList(
+			(startDate, endDate) -> startDate != null && endDate != null,
+			(startDate, endDate) -> startDate.isBefore(endDate) || startDate.isEqual(endDate),
+			(startDate, endDate) -> startDate.isAfter(LocalDate.now()) && endDate.isBefore(LocalDate.now().plusDays(Calendar.TIME_SPAN + 1)));
+
+	private final BookingDateRangeValidator bookingValidator = new BookingDateRangeValidator();
+	private final AvailabilityDateRangeValidator availabilityValidator = new AvailabilityDateRangeValidator();
+
+	private ReservationDto reservationDto;
+	private DateRangeDto dateRangeDto;
+
+	@Setup
+	public void setUp() {
+		reservationDto = new ReservationDto()
+				.email("someone@something.com")
+				.fullName("John Smith")
+				.arrivalDate(LocalDate.now().plusDays(3))
+				.departureDate(LocalDate.now().plusDays(5));
+		dateRangeDto = new DateRangeDto()
+				.startDate(LocalDate.now().plusDays(1))
+				.endDate(LocalDate.now().plusDays(20));
+	}
+
+	@Benchmark
+	public boolean postLegacy() {
+		LocalDate arrivalDate = (LocalDate) new BeanWrapperImpl(reservationDto).getPropertyValue("arrivalDate");
+		LocalDate departureDate = (LocalDate) new BeanWrapperImpl(reservationDto).getPropertyValue("departureDate");
+		return LEGACY_BOOKING_RULES.stream().allMatch(rule -> rule.test(arrivalDate, departureDate));
+	}
+
+	@Benchmark
+	public boolean postDateRange() {
+		return bookingValidator.isValid(reservationDto, null);
+	}
+
+	@Benchmark
+	public boolean getLegacy() {
+		LocalDate startDate = (LocalDate) new BeanWrapperImpl(dateRangeDto).getPropertyValue("startDate");
+		LocalDate endDate = (LocalDate) new BeanWrapperImpl(dateRangeDto).getPropertyValue("endDate");
+		if (startDate == null && endDate == null) {
+			return true;
+		}
+		return LEGACY_AVAILABILITY_RULES.stream().allMatch(rule -> rule.test(startDate, endDate));
+	}
+
+	@Benchmark
+	public boolean getDateRange() {
+		return availabilityValidator.isValid(dateRangeDto, null);
+	}
+}
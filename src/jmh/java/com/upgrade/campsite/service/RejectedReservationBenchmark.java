@@ -0,0 +1,156 @@
+package com.upgrade.campsite.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.advice.ErrorDto;
+import com.upgrade.campsite.rest.advice.RestResponseEntityExceptionHandler;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.service.exception.MessageTemplate;
+import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
+import com.upgrade.campsite.service.exception.ReservationServiceException;
+
+/*
+ * Booking throughput under a 90% conflict load, as when bookings open for a popular date: nine attempts out of ten
+ * target already booked days and go through the whole rejection path (service exception, advice, error body
+ * serialization), the tenth books a free day and cancels it right away.
+ *
+ * rejection and legacyRejection isolate the rejection path without touching the service: the current one (stackless
+ * exception, message template, advice, ErrorDtoSerializer) against the former one (stack trace capture, String.format
+ * message, bean serialized error body).
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="RejectedReservationBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RejectedReservationBenchmark {
+
+	private static final int BOOKED_DAYS = 27;
+	private static final MessageTemplate UNAVAILABLE_DATES_MESSAGE = new MessageTemplate(
+			"The specified time range from arrival date {} through departure date {} is not available. Please specify a different time range.");
+
+	@State(Scope.Benchmark)
+	public static class Application {
+
+		private ConfigurableApplicationContext context;
+		private ReservationService reservationService;
+		private RestResponseEntityExceptionHandler exceptionHandler;
+		private ObjectMapper objectMapper;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			context = new SpringApplicationBuilder(CampsiteReservationsApplication.class)
+					.web(false)
+					.run("--logging.level.root=WARN");
+			reservationService = context.getBean(ReservationService.class);
+			exceptionHandler = context.getBean(RestResponseEntityExceptionHandler.class);
+			objectMapper = context.getBean(ObjectMapper.class);
+
+			for (int day = 1; day <= BOOKED_DAYS; day++) {
+				reservationService.makeReservation(reservation(day));
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			context.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Attempts {
+
+		private int attempt;
+	}
+
+	@Benchmark
+	public Object bookingUnderConflict(Application application, Attempts attempts) throws Exception {
+		int attempt = attempts.attempt++;
+		if (attempt % 10 != 0) {
+			return reject(application, reservation(1 + attempt % BOOKED_DAYS));
+		}
+		// Free days are shared by all threads, so some of these attempts are rejected as well
+		ReservationDto freeDay = reservation(BOOKED_DAYS + 1 + attempt % (Calendar.TIME_SPAN - BOOKED_DAYS));
+		try {
+			ReservationDto booked = application.reservationService.makeReservation(freeDay);
+			application.reservationService.cancelReservation(booked.getUuid());
+			return booked;
+		} catch (ReservationServiceException ex) {
+			return application.objectMapper.writeValueAsBytes(application.exceptionHandler.handleReservationServiceException(ex, null).getBody());
+		}
+	}
+
+	@Benchmark
+	public byte[] rejection(Application application, Attempts attempts) throws Exception {
+		ReservationDto reservationDto = reservation(1 + attempts.attempt++ % BOOKED_DAYS);
+		ReservationServiceException ex = new ReservationServiceException(ReservationServiceErrorCode.UNAVAILABLE_DATES,
+				UNAVAILABLE_DATES_MESSAGE.format(reservationDto.getArrivalDate(), reservationDto.getDepartureDate()));
+		return application.objectMapper.writeValueAsBytes(application.exceptionHandler.handleReservationServiceException(ex, null).getBody());
+	}
+
+	@Benchmark
+	public byte[] legacyRejection(Application application, Attempts attempts) throws Exception {
+		ReservationDto reservationDto = reservation(1 + attempts.attempt++ % BOOKED_DAYS);
+		RuntimeException ex = new RuntimeException(String.format(
+				"The specified time range from arrival date %s through departure date %s is not available. Please specify a different time range.",
+				reservationDto.getArrivalDate().toString(),
+				reservationDto.getDepartureDate().toString()));
+		LegacyErrorDto errorDto = new LegacyErrorDto();
+		errorDto.status = HttpStatus.FORBIDDEN.value();
+		errorDto.statusCode = HttpStatus.FORBIDDEN.name();
+		errorDto.errorCode = "UNAVAILABLE_DATES";
+		errorDto.message = ex.getMessage();
+		return application.objectMapper.writeValueAsBytes(errorDto);
+	}
+
+	private static byte[] reject(Application application, ReservationDto reservationDto) throws Exception {
+		try {
+			application.reservationService.makeReservation(reservationDto);
+			throw new IllegalStateException("Booked day was available");
+		} catch (ReservationServiceException ex) {
+			ResponseEntity<Object> response = application.exceptionHandler.handleReservationServiceException(ex, null);
+			return application.objectMapper.writeValueAsBytes((ErrorDto) response.getBody());
+		}
+	}
+
+	private static ReservationDto reservation(int day) {
+		return new ReservationDto()
+				.email("someone@something.com")
+				.fullName("John Smith")
+				.arrivalDate(LocalDate.now().plusDays(day))
+				.departureDate(LocalDate.now().plusDays(day));
+	}
+
+	public static class LegacyErrorDto {
+
+		public Integer status;
+		public String statusCode;
+		public String errorCode;
+		public String message;
+	}
+}
@@ -0,0 +1,150 @@
+package com.upgrade.campsite.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.service.exception.ReservationServiceException;
+
+/*
+ * The service under a mix of availability reads and bookings from concurrent threads, on the in-memory backend so
+ * that the calendar lock is all that is measured. readPercent of the operations read the whole availability window,
+ * the others book a day and cancel it right away. overlap is the probability that a booking targets one of the few
+ * days all threads compete for (and is likely rejected) instead of a day of its own.
+ *
+ * mixedThroughput and mixedLatency run the same operation, for throughput and latency percentiles (p0.99) respectively.
+ * The optimistic read validation failure rate of every iteration is printed after it.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ReservationContentionBenchmark"
+ * and "-t 1", "-t 16"... for other thread counts, or a subset of the parameters, e.g. "-p readPercent=99 -p overlap=0.5"
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ReservationContentionBenchmark {
+
+	private static final int SHARED_DAYS = 3;
+
+	@State(Scope.Benchmark)
+	public static class Application {
+
+		@Param({ "99", "90", "50" })
+		private int readPercent;
+
+		@Param({ "0.1", "0.9" })
+		private double overlap;
+
+		private ConfigurableApplicationContext context;
+		private ReservationService reservationService;
+		private CalendarLockMetrics lockMetrics;
+		private final DateRangeDto defaultRange = new DateRangeDto();
+
+		private long optimisticReads;
+		private long optimisticReadFailures;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			// Admission control is off, so that mutations queue up on the lock instead of being shed
+			context = new SpringApplicationBuilder(CampsiteReservationsApplication.class)
+					.web(false)
+					.profiles("in-memory")
+					.run("--logging.level.root=WARN",
+							"--campsite.admission.enabled=false",
+							"--campsite.repository.in-memory.checkpoint-path=target/jmh/" + UUID.randomUUID() + ".checkpoint");
+			reservationService = context.getBean(ReservationService.class);
+			lockMetrics = context.getBean(CalendarLockMetrics.class);
+		}
+
+		@Setup(Level.Iteration)
+		public void startIteration() {
+			optimisticReads = lockMetrics.getOptimisticReads();
+			optimisticReadFailures = lockMetrics.getOptimisticReadFailures();
+		}
+
+		@TearDown(Level.Iteration)
+		public void endIteration() {
+			long reads = lockMetrics.getOptimisticReads() - optimisticReads;
+			long failures = lockMetrics.getOptimisticReadFailures() - optimisticReadFailures;
+			System.out.printf("optimistic read failures: %d of %d reads (%.2f%%)%n",
+					failures, reads, reads == 0 ? 0.0 : 100.0 * failures / reads);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			context.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		private ReservationDto ownDay;
+
+		@Setup(Level.Trial)
+		public void setUp(ThreadParams threadParams) {
+			// Days of their own are taken after the shared ones, wrapping around for large thread counts
+			ownDay = reservation(SHARED_DAYS + 1 + threadParams.getThreadIndex() % (Calendar.TIME_SPAN - SHARED_DAYS));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object mixedThroughput(Application application, Client client) {
+		return operation(application, client);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object mixedLatency(Application application, Client client) {
+		return operation(application, client);
+	}
+
+	private static Object operation(Application application, Client client) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextInt(100) < application.readPercent) {
+			return application.reservationService.readAvailability(application.defaultRange);
+		}
+		ReservationDto day = random.nextDouble() < application.overlap ? reservation(1 + random.nextInt(SHARED_DAYS)) : client.ownDay;
+		try {
+			ReservationDto booked = application.reservationService.makeReservation(day);
+			application.reservationService.cancelReservation(booked.getUuid());
+			return booked;
+		} catch (ReservationServiceException ex) {
+			return ex;
+		}
+	}
+
+	private static ReservationDto reservation(int day) {
+		return new ReservationDto()
+				.email("someone@something.com")
+				.fullName("John Smith")
+				.arrivalDate(LocalDate.now().plusDays(day))
+				.departureDate(LocalDate.now().plusDays(day));
+	}
+}
@@ -0,0 +1,95 @@
+package com.upgrade.campsite.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Reservation id generation, formerly UUID.randomUUID() within the calendar write lock, and the cost of inserting the
+ * ids into a unique index (an H2 table with the uuid as primary key, pre-filled with indexSize ids of the same kind).
+ * Random ids land anywhere in the index whereas time-ordered ones are appended to its end.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ReservationIdBenchmark -prof gc"
+ * and "-t 4" for contended generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationIdBenchmark {
+
+	private final ReservationIdGenerator generator = new ReservationIdGenerator();
+
+	@Benchmark
+	public String randomUuid() {
+		return UUID.randomUUID().toString();
+	}
+
+	@Benchmark
+	public String timeOrderedUuid() {
+		return generator.nextId();
+	}
+
+	@State(Scope.Thread)
+	public static class UniqueIndex {
+
+		@Param({ "random", "time-ordered" })
+		private String ids;
+
+		@Param({ "200000" })
+		private int indexSize;
+
+		private final ReservationIdGenerator generator = new ReservationIdGenerator();
+		private Connection connection;
+		private PreparedStatement insert;
+
+		@Setup(Level.Iteration)
+		public void setUp() throws SQLException {
+			connection = DriverManager.getConnection("jdbc:h2:mem:ids_" + System.nanoTime());
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("create table reservation_id (uuid varchar(36) primary key)");
+			}
+			insert = connection.prepareStatement("insert into reservation_id (uuid) values (?)");
+			for (int i = 0; i < indexSize; i++) {
+				insert();
+			}
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws SQLException {
+			connection.close();
+		}
+
+		int insert() throws SQLException {
+			insert.setString(1, "random".equals(ids) ? UUID.randomUUID().toString() : generator.nextId());
+			return insert.executeUpdate();
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int insertIntoIndex(UniqueIndex index) throws SQLException {
+		return index.insert();
+	}
+}
@@ -0,0 +1,104 @@
+package com.upgrade.campsite.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Compares the former read path (managed entity loaded within a default read-write transaction, then copied into a dto)
+ * against the read-only dto projection used by ReservationServiceImpl.readReservation.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ReservationReadBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationReadBenchmark {
+
+	@Param({ "1000" })
+	private int reservations;
+
+	private ConfigurableApplicationContext context;
+	private ReservationRepository reservationRepository;
+	private ReservationService reservationService;
+	private TransactionTemplate readWriteTransaction;
+	private String[] uuids;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(CampsiteReservationsApplication.class)
+				.web(false)
+				.run("--logging.level.root=WARN");
+		reservationRepository = context.getBean(ReservationRepository.class);
+		reservationService = context.getBean(ReservationService.class);
+		readWriteTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+		uuids = new String[reservations];
+		for (int i = 0; i < reservations; i++) {
+			uuids[i] = UUID.randomUUID().toString();
+			LocalDate arrivalDate = LocalDate.now().plusDays(1 + i % 30);
+			reservationRepository.save(new Reservation()
+					.uuid(uuids[i])
+					.email("someone@something.com")
+					.fullName("John Smith")
+					.arrivalDate(arrivalDate)
+					.departureDate(arrivalDate));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public ReservationDto managedEntityCopy() {
+		String uuid = nextUuid();
+		return readWriteTransaction.execute(status -> {
+			Reservation reservation = reservationRepository.findByUuid(uuid);
+			return new ReservationDto()
+					.uuid(reservation.getUuid())
+					.email(reservation.getEmail())
+					.fullName(reservation.getFullName())
+					.arrivalDate(reservation.getArrivalDate())
+					.departureDate(reservation.getDepartureDate());
+		});
+	}
+
+	@Benchmark
+	public ReservationDto readOnlyProjection() {
+		return reservationService.readReservation(nextUuid());
+	}
+
+	private String nextUuid() {
+		next = next + 1 == uuids.length ? 0 : next + 1;
+		return uuids[next];
+	}
+}
@@ -0,0 +1,96 @@
+package com.upgrade.campsite.load;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/*
+ * Outcome of a load run: latency of every request (from its scheduled send time, so that a stalled server shows up
+ * in the latency of the requests queued behind it), count of every outcome and the stays actually booked.
+ */
+class BurstReport {
+
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+	private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<LocalDate[]> bookedStays = new ConcurrentLinkedQueue<>();
+
+	void record(String outcome, long latencyNanos) {
+		latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+		outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+	}
+
+	void booked(LocalDate arrivalDate, LocalDate departureDate) {
+		bookedStays.add(new LocalDate[] { arrivalDate, departureDate });
+	}
+
+	/*
+	 * Nights booked by more than one of the accepted reservations, by night
+	 */
+	Map<LocalDate, Integer> overbookedNights() {
+		Map<LocalDate, Integer> bookings = new TreeMap<>();
+		for (LocalDate[] stay : bookedStays) {
+			for (LocalDate night = stay[0]; !night.isAfter(stay[1]); night = night.plusDays(1)) {
+				bookings.merge(night, 1, Integer::sum);
+			}
+		}
+		bookings.values().removeIf(count -> count < 2);
+		return bookings;
+	}
+
+	/*
+	 * Nights the calendar and the accepted reservations disagree upon, given the nights the calendar reports as available
+	 */
+	Set<LocalDate> calendarMismatches(LocalDate startDate, LocalDate endDate, Set<LocalDate> availableNights) {
+		Set<LocalDate> bookedNights = new TreeSet<>();
+		for (LocalDate[] stay : bookedStays) {
+			for (LocalDate night = stay[0]; !night.isAfter(stay[1]); night = night.plusDays(1)) {
+				bookedNights.add(night);
+			}
+		}
+		Set<LocalDate> mismatches = new TreeSet<>();
+		for (LocalDate night = startDate; !night.isAfter(endDate); night = night.plusDays(1)) {
+			if (bookedNights.contains(night) == availableNights.contains(night)) {
+				mismatches.add(night);
+			}
+		}
+		return mismatches;
+	}
+
+	void print(PrintStream out, LoadSettings settings, long elapsedNanos) {
+		long requests = latencies.getTotalCount();
+		out.printf("%n%d requests in %.2f s (%s): %.1f requests/s%n", requests, elapsedNanos / 1e9, settings,
+				requests * 1e9 / elapsedNanos);
+		out.printf("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+				percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+				latencies.getMaxValue() / MICROS_PER_MILLI);
+		out.println("outcomes:");
+		new TreeMap<>(outcomes).forEach((outcome, count) -> out.printf("  %-40s %8d%n", outcome, count.sum()));
+		out.printf("booked stays: %d%n", bookedStays.size());
+	}
+
+	/*
+	 * Full percentile distribution in the HdrHistogram text format, in milliseconds, e.g. for the HdrHistogram plotter
+	 */
+	void writeDistribution(String path) throws FileNotFoundException {
+		try (PrintStream out = new PrintStream(path)) {
+			latencies.outputPercentileDistribution(out, MICROS_PER_MILLI);
+		}
+	}
+
+	private double percentileMillis(double percentile) {
+		return latencies.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+	}
+}
@@ -0,0 +1,64 @@
+package com.upgrade.campsite.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Settings of a load run, given as name=value arguments, e.g. rate=2000 duration=5 skew=0.9
+ *
+ *   - rate: requests per second, sent on schedule whether or not earlier ones have completed
+ *   - duration: seconds of the burst
+ *   - skew: probability that a request targets the night which just entered the calendar, the others target any
+ *     night of the calendar
+ *   - clients: connections sending the requests
+ */
+class LoadSettings {
+
+	private final int rate;
+	private final int duration;
+	private final double skew;
+	private final int clients;
+
+	LoadSettings(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 1) {
+				throw new IllegalArgumentException("Expected name=value instead of " + arg);
+			}
+			values.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+		this.rate = Integer.parseInt(values.getOrDefault("rate", "1000"));
+		this.duration = Integer.parseInt(values.getOrDefault("duration", "5"));
+		this.skew = Double.parseDouble(values.getOrDefault("skew", "0.8"));
+		this.clients = Integer.parseInt(values.getOrDefault("clients", "64"));
+		if (rate < 1 || duration < 1 || skew < 0 || skew > 1 || clients < 1) {
+			throw new IllegalArgumentException("Invalid settings " + this);
+		}
+	}
+
+	int getRate() {
+		return rate;
+	}
+
+	int getDuration() {
+		return duration;
+	}
+
+	double getSkew() {
+		return skew;
+	}
+
+	int getClients() {
+		return clients;
+	}
+
+	int getRequests() {
+		return rate * duration;
+	}
+
+	@Override
+	public String toString() {
+		return "rate=" + rate + " duration=" + duration + " skew=" + skew + " clients=" + clients;
+	}
+}
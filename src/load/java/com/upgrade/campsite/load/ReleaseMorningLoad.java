@@ -0,0 +1,171 @@
+package com.upgrade.campsite.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.calendar.Calendar;
+
+/*
+ * Release morning: a new night enters the calendar and everyone tries to book it in the same second.
+ *
+ * Boots the application on a random port, then sends reservation requests at a fixed rate for a few seconds, skew of
+ * them for stays including the new night and the others for stays anywhere in the calendar. Requests are sent on
+ * schedule (open model) by a pool of clients, their latency counting from the time they were due.
+ *
+ * Reports throughput, latency percentiles (full distribution in target/load/release-morning.hgrm) and the outcome
+ * distribution by status and error code, then checks that no night was booked twice and that the calendar agrees with
+ * the accepted reservations. Exits with status 1 if a check fails.
+ *
+ * Rate limiting is off, since the whole crowd comes from localhost. Admission control stays on.
+ *
+ * Run with: mvn -P load test-compile exec:exec -Dload.args="rate=2000 duration=5 skew=0.9 clients=64"
+ */
+public class ReleaseMorningLoad {
+
+	private static final int MAX_STAY = 3;
+	private static final String DISTRIBUTION_PATH = "target/load/release-morning.hgrm";
+
+	private final LoadSettings settings;
+	private final String baseUrl;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final BurstReport report = new BurstReport();
+	private final AtomicInteger guests = new AtomicInteger();
+
+	ReleaseMorningLoad(LoadSettings settings, int port) {
+		this.settings = settings;
+		this.baseUrl = "http://localhost:" + port + "/api/reservations";
+	}
+
+	public static void main(String... args) throws Exception {
+		LoadSettings settings = new LoadSettings(args);
+		// Keep-alive connections for all clients instead of the default 5
+		System.setProperty("http.maxConnections", String.valueOf(settings.getClients()));
+
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(CampsiteReservationsApplication.class)
+				.run("--server.port=0",
+						"--logging.level.root=WARN",
+						"--campsite.rate-limit.enabled=false");
+		boolean passed;
+		try {
+			int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+			passed = new ReleaseMorningLoad(settings, port).run();
+		} finally {
+			context.close();
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	boolean run() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(settings.getClients());
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+		long start = System.nanoTime();
+		for (int i = 0; i < settings.getRequests(); i++) {
+			long due = start + i * intervalNanos;
+			for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+			clients.execute(() -> book(due));
+		}
+		clients.shutdown();
+		clients.awaitTermination(1, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		report.print(System.out, settings, elapsed);
+		Files.createDirectories(Paths.get(DISTRIBUTION_PATH).getParent());
+		report.writeDistribution(DISTRIBUTION_PATH);
+		return checkBookings();
+	}
+
+	private void book(long due) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int nights = 1 + random.nextInt(MAX_STAY);
+		int departureDay = random.nextDouble() < settings.getSkew()
+				? Calendar.TIME_SPAN
+				: nights + random.nextInt(Calendar.TIME_SPAN - nights + 1);
+		LocalDate departureDate = LocalDate.now().plusDays(departureDay);
+		LocalDate arrivalDate = departureDate.minusDays(nights - 1);
+
+		String outcome;
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl).openConnection();
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type", "application/json");
+			connection.setDoOutput(true);
+			try (OutputStream body = connection.getOutputStream()) {
+				body.write(reservation(arrivalDate, departureDate));
+			}
+			int status = connection.getResponseCode();
+			JsonNode response = readBody(connection, status);
+			if (status == HttpURLConnection.HTTP_OK) {
+				outcome = "200";
+				report.booked(LocalDate.parse(response.get("arrivalDate").asText()), LocalDate.parse(response.get("departureDate").asText()));
+			} else {
+				outcome = status + (response != null && response.has("errorCode") ? " " + response.get("errorCode").asText() : "");
+			}
+		} catch (IOException ex) {
+			outcome = ex.getClass().getSimpleName();
+		}
+		report.record(outcome, System.nanoTime() - due);
+	}
+
+	private boolean checkBookings() throws IOException {
+		boolean passed = true;
+
+		Map<LocalDate, Integer> overbooked = report.overbookedNights();
+		if (!overbooked.isEmpty()) {
+			System.out.println("OVERBOOKED nights (accepted reservations): " + overbooked);
+			passed = false;
+		}
+
+		LocalDate startDate = LocalDate.now().plusDays(1);
+		LocalDate endDate = LocalDate.now().plusDays(Calendar.TIME_SPAN);
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl).openConnection();
+		Set<LocalDate> availableNights = new HashSet<>();
+		for (JsonNode date : readBody(connection, connection.getResponseCode()).get("availableDates")) {
+			availableNights.add(LocalDate.parse(date.asText()));
+		}
+		Set<LocalDate> mismatches = report.calendarMismatches(startDate, endDate, availableNights);
+		if (!mismatches.isEmpty()) {
+			System.out.println("Calendar and accepted reservations disagree on nights: " + mismatches);
+			passed = false;
+		}
+
+		System.out.println(passed ? "Overbooking checks passed" : "Overbooking checks FAILED");
+		return passed;
+	}
+
+	private JsonNode readBody(HttpURLConnection connection, int status) throws IOException {
+		try (InputStream body = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream()) {
+			return body == null ? null : objectMapper.readTree(body);
+		}
+	}
+
+	private byte[] reservation(LocalDate arrivalDate, LocalDate departureDate) {
+		// Every guest has an address of their own
+		String email = "guest" + guests.incrementAndGet() + "@load.test";
+		return ("{\"email\":\"" + email + "\",\"fullName\":\"Load Guest\",\"arrivalDate\":\"" + arrivalDate
+				+ "\",\"departureDate\":\"" + departureDate + "\"}").getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,32 +1,57 @@
 package com.upgrade.campsite.calendar;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import javax.annotation.PostConstruct;
-
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 
 /*
  * This class emulates a calendar structure meant to cache booking availability within a predefined time window.
  * It provides basic operations only which the consumer can combine at its convenience, hence it's the
  * consumer's responsibility to ensure thread-safety access to the calendar resource and prevent concurrency issues.
+ *
+ * Days are kept as a bitset, day i from the first stored day being bit i (set = occupied, clear = available), so
+ * that range operations work on whole 64 day words. Prefix counts of occupied days are kept alongside, updated on
+ * every change, so that the occupied days of any range are counted with a subtraction.
+ *
+ * Bits are anchored on dates rather than on today: the first stored day is yesterday, and whole words are stored,
+ * hence at least the day entering the calendar at the next midnight as well. At midnight the calendar moves on to the
+ * new day by itself as soon as Today does, with nothing to prepare or move, and operations which started the day
+ * before still find their own days. advanceCalendar only drops the past days later on.
  */
 @Component
+@DependsOn(ClockConfiguration.CAMPSITE_CLOCK)
 public class Calendar {
 
 	public static final int TIME_SPAN = 30;
 
-	private final List<Boolean> calendar = new ArrayList<>(); // true = occupied, false = available
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+	private final int days; // today to today + timeSpan
+	private final int storedDays;
+	private final long[] occupied;
+	private final int[] occupiedBefore; // occupiedBefore[i] = occupied stored days 0 to i - 1
+	private long firstDay; // epoch day of stored day 0
 
-	@PostConstruct
-	private void initialize() {
+	public Calendar() {
 		// We handle a 30 day window for both availability and booking.
-		for (int i = 0; i <= TIME_SPAN; i++) {
-			calendar.add(false);
-		}
+		this(TIME_SPAN);
+	}
+
+	/**
+	 * @param timeSpan Number of days handled after today, meant for benchmarks of other horizons
+	 */
+	public Calendar(int timeSpan) {
+		days = timeSpan + 1;
+		// Yesterday, the time span and the next day at least
+		occupied = new long[wordIndex(days + 1) + 1];
+		storedDays = occupied.length << ADDRESS_BITS_PER_WORD;
+		occupiedBefore = new int[storedDays + 1];
+		firstDay = Today.epochDay() - 1;
 	}
 
 	/**
@@ -37,16 +62,76 @@ public class Calendar {
 	 */
 	public List<LocalDate> readAvailability(LocalDate startDate, LocalDate endDate) {
 		List<LocalDate> availability = new ArrayList<>();
+		for (int epochDay : readAvailableEpochDays(startDate, endDate)) {
+			availability.add(LocalDate.ofEpochDay(epochDay));
+		}
+		return availability;
+	}
 
-		int initialDay = getDayNumber(startDate);
-		int finalDay = getDayNumber(endDate);
+	/**
+	 * Read availability for given date range, as epoch days (days since 1970-01-01)
+	 * @param startDate
+	 * @param endDate
+	 * @return The available dates, in ascending order
+	 */
+	public int[] readAvailableEpochDays(LocalDate startDate, LocalDate endDate) {
+		long first = firstDay;
+		int initialDay = dayNumber(startDate, first);
+		int finalDay = dayNumber(endDate, first);
+		if (initialDay > finalDay) {
+			return new int[0];
+		}
+		checkRange(initialDay, finalDay, today(first));
 
-		for (int i = initialDay; i <= finalDay; i++) {
-			if (!calendar.get(i).booleanValue()) {
-				availability.add(LocalDate.now().plusDays(i));
+		int[] availability = new int[finalDay - initialDay + 1];
+		int count = 0;
+		for (int word = wordIndex(initialDay); word <= wordIndex(finalDay); word++) {
+			long available = ~occupied[word] & rangeMask(word, initialDay, finalDay);
+			while (available != 0) {
+				availability[count++] = (int) (first + (word << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(available));
+				available &= available - 1;
 			}
 		}
-		return availability;
+		return count == availability.length ? availability : Arrays.copyOf(availability, count);
+	}
+
+	/**
+	 * Find the first stay windows of the given length, all of their dates being available. Windows start tomorrow
+	 * at the earliest and end within the time window, they may overlap each other.
+	 * @param length Number of days of the stay, arrival and departure dates included
+	 * @param limit Maximum number of windows to return
+	 * @return The arrival dates of the windows as epoch days (days since 1970-01-01), in ascending order
+	 */
+	public int[] findStayWindows(int length, int limit) {
+		if (length < 1 || limit < 1) {
+			return new int[0];
+		}
+		long first = firstDay;
+		int today = today(first);
+		checkRange(today, today + days - 1, today);
+
+		long[] available = new long[occupied.length];
+		for (int word = 0; word < occupied.length; word++) {
+			available[word] = ~occupied[word] & daysMask(word, today + 1, today + days - 1);
+		}
+		// Bit i stays set if days i to i + length - 1 are all available: AND of the available days shifted by 0 to length - 1
+		long[] windows = available.clone();
+		for (int shift = 1; shift < length; shift++) {
+			for (int word = 0; word < windows.length; word++) {
+				windows[word] &= shiftedWord(available, word, shift);
+			}
+		}
+
+		int[] arrivals = new int[Math.min(limit, days)];
+		int count = 0;
+		for (int word = 0; word < windows.length && count < arrivals.length; word++) {
+			long window = windows[word];
+			while (window != 0 && count < arrivals.length) {
+				arrivals[count++] = (int) (first + (word << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(window));
+				window &= window - 1;
+			}
+		}
+		return count == arrivals.length ? arrivals : Arrays.copyOf(arrivals, count);
 	}
 
 	/**
@@ -55,12 +140,17 @@ public class Calendar {
 	 * @param departureDate
 	 */
 	public void book(LocalDate arrivalDate, LocalDate departureDate) {
-		int initialDay = getDayNumber(arrivalDate);
-		int finalDay = getDayNumber(departureDate);
+		int initialDay = dayNumber(arrivalDate, firstDay);
+		int finalDay = dayNumber(departureDate, firstDay);
+		if (initialDay > finalDay) {
+			return;
+		}
+		checkRange(initialDay, finalDay, today(firstDay));
 
-		for (int i = initialDay; i <= finalDay; i++) {
-			calendar.set(i, true);
+		for (int word = wordIndex(initialDay); word <= wordIndex(finalDay); word++) {
+			occupied[word] |= rangeMask(word, initialDay, finalDay);
 		}
+		refreshCounts(initialDay);
 	}
 
 	/**
@@ -69,12 +159,17 @@ public class Calendar {
 	 * @param endDate
 	 */
 	public void unbook(LocalDate startDate, LocalDate endDate) {
-		int initialDay = getDayNumber(startDate);
-		int finalDay = getDayNumber(endDate);
+		int initialDay = dayNumber(startDate, firstDay);
+		int finalDay = dayNumber(endDate, firstDay);
+		if (initialDay > finalDay) {
+			return;
+		}
+		checkRange(initialDay, finalDay, today(firstDay));
 
-		for (int i = initialDay; i <= finalDay; i++) {
-			calendar.set(i, false);
+		for (int word = wordIndex(initialDay); word <= wordIndex(finalDay); word++) {
+			occupied[word] &= ~rangeMask(word, initialDay, finalDay);
 		}
+		refreshCounts(initialDay);
 	}
 
 	/**
@@ -84,15 +179,8 @@ public class Calendar {
 	 * @return true if all dates are available, otherwise false
 	 */
 	public boolean checkAvailability(LocalDate startDate, LocalDate endDate) {
-		int initialDay = getDayNumber(startDate);
-		int finalDay = getDayNumber(endDate);
-
-		for (int i = initialDay; i <= finalDay; i++) {
-			if (calendar.get(i)) {
-				return false;
-			}
-		}
-		return true;
+		long first = firstDay;
+		return isAvailable(dayNumber(startDate, first), dayNumber(endDate, first), today(first));
 	}
 
 	/**
@@ -108,43 +196,211 @@ public class Calendar {
 												   LocalDate originalEndDate,
 												   LocalDate newStartDate,
 												   LocalDate newEndDate) {
-		int originalInitialDay = getDayNumber(originalStartDate);
-		int originalFinalDay = getDayNumber(originalEndDate);
-		int newInitialDay = getDayNumber(newStartDate);
-		int newFinalDay = getDayNumber(newEndDate);
-
-		List<Integer> originalDays = new ArrayList<>();
-		for (int i = originalInitialDay; i <= originalFinalDay; i++) {
-			originalDays.add(i);
-		}
-		List<Integer> daysToCheck = new ArrayList<>();
-		for (int i = newInitialDay; i <= newFinalDay; i++) {
-			if (!originalDays.contains(i)) {
-				daysToCheck.add(i);
+		DayChange change = new DayChange(originalStartDate, originalEndDate, newStartDate, newEndDate);
+
+		// Only the days being added need to be free, the original ones are held by the reservation itself
+		for (int word = change.firstWord; word <= change.lastWord; word++) {
+			if ((occupied[word] & change.added(word)) != 0) {
+				return false;
 			}
 		}
-		if (daysToCheck.size() != 0) { // If new dates are not fully contained inside previous dates
-			int initialDay = daysToCheck.get(0);
-			int finalDay = daysToCheck.get(daysToCheck.size() - 1); // don't need size but length of the list
+		return true;
+	}
+
+	/**
+	 * Move a booking from an original date range to a new one, flipping only the days which change: the new days
+	 * get booked and the original days outside the new range unbooked. Original days before today are ignored.
+	 * @param originalStartDate
+	 * @param originalEndDate
+	 * @param newStartDate
+	 * @param newEndDate
+	 */
+	public void moveBooking(LocalDate originalStartDate,
+							LocalDate originalEndDate,
+							LocalDate newStartDate,
+							LocalDate newEndDate) {
+		DayChange change = new DayChange(originalStartDate, originalEndDate, newStartDate, newEndDate);
 
-			for (int i = initialDay; i <= finalDay; i++) {
-				if (calendar.get(i)) {
-					return false;
-				}
+		int firstChangedDay = storedDays;
+		for (int word = change.firstWord; word <= change.lastWord; word++) {
+			long added = change.added(word);
+			long removed = change.removed(word);
+			if ((added | removed) != 0) {
+				occupied[word] = (occupied[word] & ~removed) | added;
+				firstChangedDay = Math.min(firstChangedDay, (word << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(added | removed));
 			}
 		}
-		return true;
+		refreshCounts(firstChangedDay);
 	}
 
 	/**
-	 * Move calendar forward by one day. The service is responsible for managing this operation appropriately.
+	 * Drop the days before yesterday, which makes room for the days to come. The calendar follows Today on its own,
+	 * this is only needed once a day, at any time of the day, and does nothing if already done.
 	 */
 	public void advanceCalendar() {
-		calendar.remove(0);
-		calendar.add(false);
+		moveFirstDay(Today.epochDay() - 1);
 	}
 
-	private int getDayNumber(LocalDate date) {
-		return (int) ChronoUnit.DAYS.between(LocalDate.now(), date);
+	/*
+	 * Shift the stored days so that they start from the given epoch day, days before it are lost
+	 */
+	void moveFirstDay(long epochDay) {
+		long shift = epochDay - firstDay;
+		if (shift <= 0) {
+			return;
+		}
+		for (int word = 0; word < occupied.length; word++) {
+			occupied[word] = shift < storedDays ? shiftedWord(occupied, word, (int) shift) : 0L;
+		}
+		firstDay = epochDay;
+		refreshCounts(0);
+	}
+
+	/**
+	 * Count the occupied dates of consecutive date ranges
+	 * @param bounds Bounds of the ranges as epoch days (days since 1970-01-01): range i goes from bounds[i] to
+	 *               bounds[i + 1] - 1
+	 * @return The number of occupied dates of each range
+	 */
+	public int[] countOccupied(int[] bounds) {
+		if (bounds.length < 2) {
+			return new int[0];
+		}
+		long first = firstDay;
+		int initialDay = (int) (bounds[0] - first);
+		int finalDay = (int) (bounds[bounds.length - 1] - 1 - first);
+		checkRange(initialDay, finalDay, today(first));
+
+		int[] counts = new int[bounds.length - 1];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = occupiedBefore[(int) (bounds[i + 1] - first)] - occupiedBefore[(int) (bounds[i] - first)];
+		}
+		return counts;
+	}
+
+	private boolean isAvailable(int initialDay, int finalDay, int today) {
+		if (initialDay > finalDay) {
+			return true;
+		}
+		checkRange(initialDay, finalDay, today);
+
+		for (int word = wordIndex(initialDay); word <= wordIndex(finalDay); word++) {
+			if ((occupied[word] & rangeMask(word, initialDay, finalDay)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Recomputes the prefix counts following a change from the given day onwards
+	 */
+	private void refreshCounts(int fromDay) {
+		for (int day = fromDay; day < storedDays; day++) {
+			occupiedBefore[day + 1] = occupiedBefore[day] + (int) ((occupied[wordIndex(day)] >>> (day & (BITS_PER_WORD - 1))) & 1L);
+		}
+	}
+
+	/*
+	 * Days must lie within the time span from today, as per stored day numbers
+	 */
+	private void checkRange(int initialDay, int finalDay, int today) {
+		if (today < 0 || today + days > storedDays) {
+			throw new IllegalStateException("Calendar stores days from " + LocalDate.ofEpochDay(firstDay) + ", it has not been advanced");
+		}
+		if (initialDay < today || finalDay >= today + days) {
+			throw new IndexOutOfBoundsException("Days " + (initialDay - today) + " to " + (finalDay - today)
+					+ " out of calendar range 0 to " + (days - 1));
+		}
+	}
+
+	/*
+	 * Days added and removed when a date range is replaced by another, as per word bit masks. The original range
+	 * is cut to the time span (a stay in progress started before today), the new one must lie within it.
+	 */
+	private class DayChange {
+
+		private final int originalInitialDay;
+		private final int originalFinalDay;
+		private final int newInitialDay;
+		private final int newFinalDay;
+		private final int firstWord;
+		private final int lastWord;
+
+		DayChange(LocalDate originalStartDate, LocalDate originalEndDate, LocalDate newStartDate, LocalDate newEndDate) {
+			long first = firstDay;
+			int today = today(first);
+			checkRange(today, today + days - 1, today);
+			originalInitialDay = Math.max(dayNumber(originalStartDate, first), today);
+			originalFinalDay = Math.min(dayNumber(originalEndDate, first), today + days - 1);
+			newInitialDay = dayNumber(newStartDate, first);
+			newFinalDay = dayNumber(newEndDate, first);
+			if (newInitialDay <= newFinalDay) {
+				checkRange(newInitialDay, newFinalDay, today);
+			}
+			firstWord = wordIndex(Math.max(Math.min(originalInitialDay, newInitialDay), today));
+			lastWord = wordIndex(Math.min(Math.max(originalFinalDay, newFinalDay), today + days - 1));
+		}
+
+		long added(int word) {
+			return daysMask(word, newInitialDay, newFinalDay) & ~daysMask(word, originalInitialDay, originalFinalDay);
+		}
+
+		long removed(int word) {
+			return daysMask(word, originalInitialDay, originalFinalDay) & ~daysMask(word, newInitialDay, newFinalDay);
+		}
+	}
+
+	/*
+	 * Stored day number of a date, given the first stored day
+	 */
+	private static int dayNumber(LocalDate date, long first) {
+		return (int) (date.toEpochDay() - first);
+	}
+
+	/*
+	 * Stored day number of today, read once per operation so that it works against a single day
+	 */
+	private static int today(long first) {
+		return (int) (Today.epochDay() - first);
+	}
+
+	private static int wordIndex(int day) {
+		return day >> ADDRESS_BITS_PER_WORD;
+	}
+
+	/*
+	 * Bits of the given word which lie within days initialDay to finalDay
+	 */
+	private static long rangeMask(int word, int initialDay, int finalDay) {
+		long mask = -1L;
+		if (word == wordIndex(initialDay)) {
+			mask &= -1L << (initialDay & (BITS_PER_WORD - 1));
+		}
+		if (word == wordIndex(finalDay)) {
+			mask &= -1L >>> (BITS_PER_WORD - 1 - (finalDay & (BITS_PER_WORD - 1)));
+		}
+		return mask;
+	}
+
+	/*
+	 * Bits of the given word which lie within days initialDay to finalDay, none if the range is empty
+	 */
+	private static long daysMask(int word, int initialDay, int finalDay) {
+		if (initialDay > finalDay || word < wordIndex(initialDay) || word > wordIndex(finalDay)) {
+			return 0L;
+		}
+		return rangeMask(word, initialDay, finalDay);
+	}
+
+	/*
+	 * Word of the bitset shifted right by the given number of bits (bit i + shift moved to bit i)
+	 */
+	private static long shiftedWord(long[] bits, int word, int shift) {
+		int source = word + (shift >>> ADDRESS_BITS_PER_WORD);
+		int offset = shift & (BITS_PER_WORD - 1);
+		long low = source < bits.length ? bits[source] >>> offset : 0L;
+		long high = offset != 0 && source + 1 < bits.length ? bits[source + 1] << (BITS_PER_WORD - offset) : 0L;
+		return low | high;
 	}
 }
@@ -0,0 +1,25 @@
+package com.upgrade.campsite.calendar;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Clock of the campsite, in its time zone (campsite.calendar.zone, the system default if empty). Days, hence the
+ * calendar, Today and the nightly rollover, start at midnight in that zone.
+ */
+@Configuration
+public class ClockConfiguration {
+
+	public static final String CAMPSITE_CLOCK = "campsiteClock";
+
+	@Bean(name = CAMPSITE_CLOCK)
+	public Clock campsiteClock(@Value("${campsite.calendar.zone:}") String zone) {
+		Clock clock = zone.isEmpty() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zone));
+		Today.useClock(clock);
+		return clock;
+	}
+}
@@ -0,0 +1,63 @@
+package com.upgrade.campsite.calendar;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Cached "today" as an epoch day, in the time zone of the campsite's clock (the system default unless configured,
+ * see ClockConfiguration). The date is computed once per day: reading it costs a volatile read and a clock read,
+ * with no allocation, which makes it suitable for per-request date checks.
+ *
+ * The day flips at midnight sharp for every caller at once, the first one to read past midnight swapping in the new
+ * day. Callers meant to work against a single day read it once and keep it.
+ */
+public final class Today {
+
+	private static final AtomicReference<Day> DAY = new AtomicReference<>(new Day(Clock.systemDefaultZone()));
+
+	private Today() {
+	}
+
+	/**
+	 * Base dates on the given clock from now on, in its time zone
+	 */
+	public static void useClock(Clock clock) {
+		DAY.set(new Day(clock));
+	}
+
+	public static Clock getClock() {
+		return DAY.get().clock;
+	}
+
+	/**
+	 * @return Today's date as a number of days since 1970-01-01
+	 */
+	public static long epochDay() {
+		Day current = DAY.get();
+		if (current.clock.millis() >= current.nextMidnightMillis) {
+			// Lost races mean someone else moved to the new day, or to another clock
+			DAY.compareAndSet(current, new Day(current.clock));
+			current = DAY.get();
+		}
+		return current.epochDay;
+	}
+
+	public static LocalDate date() {
+		return LocalDate.ofEpochDay(epochDay());
+	}
+
+	private static final class Day {
+
+		private final Clock clock;
+		private final long epochDay;
+		private final long nextMidnightMillis;
+
+		private Day(Clock clock) {
+			LocalDate date = LocalDate.now(clock);
+			this.clock = clock;
+			this.epochDay = date.toEpochDay();
+			this.nextMidnightMillis = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+		}
+	}
+}
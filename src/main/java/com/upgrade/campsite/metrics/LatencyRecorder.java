@@ -0,0 +1,34 @@
+package com.upgrade.campsite.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency distribution, recorded in microseconds with 2 significant digits up to a minute.
+ *
+ * Recording is wait-free (HdrHistogram Recorder), so it can sit on the hot paths. Readers swap the interval histogram
+ * out of the recorder and add it to the distribution since startup, which is what they get a copy of.
+ */
+public class LatencyRecorder {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+	private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 2); // guarded by this
+	private Histogram interval; // guarded by this
+
+	public void record(long latencyNanos) {
+		recorder.recordValue(Math.max(0, Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS)));
+	}
+
+	/**
+	 * @return The distribution of all latencies recorded so far, in microseconds
+	 */
+	public synchronized Histogram snapshot() {
+		interval = recorder.getIntervalHistogram(interval);
+		total.add(interval);
+		return total.copy();
+	}
+}
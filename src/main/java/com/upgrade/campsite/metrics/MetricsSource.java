@@ -0,0 +1,28 @@
+package com.upgrade.campsite.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Implemented by beans exposing internal state as metrics. All sources are published by the metrics endpoints,
+ * each metric under the name prefix.name.
+ */
+public interface MetricsSource {
+
+	/**
+	 * @return The prefix shared by all the metrics of this source, e.g. admission
+	 */
+	String getMetricsPrefix();
+
+	/**
+	 * @return The current value of every metric, by name
+	 */
+	Map<String, Number> getMetrics();
+
+	/**
+	 * @return The latency distributions of this source, by name
+	 */
+	default Map<String, LatencyRecorder> getLatencies() {
+		return Collections.emptyMap();
+	}
+}
@@ -0,0 +1,72 @@
+package com.upgrade.campsite.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Writes metrics sources in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Names are prefixed with campsite and turned to snake case, e.g. calendarLock.writeLockWait becomes
+ * campsite_calendar_lock_write_lock_wait. Metrics are untyped since sources don't tell counters from gauges,
+ * latencies are summaries in seconds.
+ */
+public final class PrometheusFormat {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final double MICROS_PER_SECOND = TimeUnit.SECONDS.toMicros(1);
+
+	private PrometheusFormat() {
+	}
+
+	public static String write(Iterable<MetricsSource> metricsSources) {
+		StringBuilder text = new StringBuilder();
+		for (MetricsSource metricsSource : metricsSources) {
+			for (Map.Entry<String, Number> metric : metricsSource.getMetrics().entrySet()) {
+				String name = name(metricsSource.getMetricsPrefix(), metric.getKey());
+				text.append("# TYPE ").append(name).append(" untyped\n");
+				text.append(name).append(' ').append(metric.getValue()).append('\n');
+			}
+			for (Map.Entry<String, LatencyRecorder> latency : metricsSource.getLatencies().entrySet()) {
+				writeSummary(text, name(metricsSource.getMetricsPrefix(), latency.getKey()) + "_seconds", latency.getValue().snapshot());
+			}
+		}
+		return text.toString();
+	}
+
+	private static void writeSummary(StringBuilder text, String name, Histogram histogram) {
+		text.append("# TYPE ").append(name).append(" summary\n");
+		for (double quantile : QUANTILES) {
+			text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+					.append(histogram.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND).append('\n');
+		}
+		// Hdr histograms keep no exact sum, the mean is close enough
+		text.append(name).append("_sum ").append(histogram.getMean() * histogram.getTotalCount() / MICROS_PER_SECOND).append('\n');
+		text.append(name).append("_count ").append(histogram.getTotalCount()).append('\n');
+	}
+
+	/*
+	 * campsite_ followed by the snake case prefix and name, anything but letters and digits becoming an underscore
+	 */
+	static String name(String prefix, String name) {
+		StringBuilder snakeCase = new StringBuilder("campsite_");
+		String qualified = prefix + "." + name;
+		char previous = '_';
+		for (int i = 0; i < qualified.length(); i++) {
+			char c = qualified.charAt(i);
+			if (Character.isUpperCase(c) && Character.isLowerCase(previous)) {
+				snakeCase.append('_');
+			}
+			if (Character.isLetterOrDigit(c)) {
+				snakeCase.append(Character.toLowerCase(c));
+			} else if (snakeCase.charAt(snakeCase.length() - 1) != '_') {
+				snakeCase.append('_');
+			}
+			previous = c;
+		}
+		return snakeCase.toString();
+	}
+}
@@ -0,0 +1,137 @@
+package com.upgrade.campsite.metrics;
+
+/**
+ * Time spent by the current request in each of its phases, in nanoseconds.
+ *
+ * A request holds a single instance, bound to whichever thread is working on the request at the time (the request
+ * thread, then the mutation executor for asynchronous mutations). Recording from a thread with no request bound,
+ * e.g. a scheduled job or a benchmark, does nothing. Phases can overlap: lock wait and calendar ops happen within the
+ * service call, repository calls may happen under the lock.
+ */
+public final class RequestTiming {
+
+	public enum Phase {
+		VALIDATION("validation"),
+		QUEUE("queue"),
+		LOCK("lock"),
+		CALENDAR("calendar"),
+		REPOSITORY("db"),
+		SERIALIZATION("ser");
+
+		private final String metricName;
+
+		Phase(String metricName) {
+			this.metricName = metricName;
+		}
+
+		public String getMetricName() {
+			return metricName;
+		}
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+	private final long start = System.nanoTime();
+	private final long[] nanos = new long[PHASES.length];
+	private long serializationStart;
+
+	/**
+	 * Add the time elapsed since start to a phase of the current request, if any
+	 * @param startNanos System.nanoTime() at the start of the phase
+	 */
+	public static void since(Phase phase, long startNanos) {
+		add(phase, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Add some time to a phase of the current request, if any
+	 */
+	public static void add(Phase phase, long elapsedNanos) {
+		RequestTiming timing = CURRENT.get();
+		if (timing != null) {
+			timing.nanos[phase.ordinal()] += elapsedNanos;
+		}
+	}
+
+	/**
+	 * @return The timing of the request the current thread is working on, null if none
+	 */
+	public static RequestTiming current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Bind a request to the current thread, until unbound
+	 */
+	public static void bind(RequestTiming timing) {
+		CURRENT.set(timing);
+	}
+
+	public static void unbind() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Mark the start of the response body serialization, which ends with the request
+	 */
+	public void startSerialization() {
+		serializationStart = System.nanoTime();
+	}
+
+	public void endSerialization() {
+		if (serializationStart != 0) {
+			nanos[Phase.SERIALIZATION.ordinal()] += System.nanoTime() - serializationStart;
+			serializationStart = 0;
+		}
+	}
+
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * @return Time elapsed since the request started
+	 */
+	public long getTotalNanos() {
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Server-Timing header value: the phases the request went through so far, in milliseconds, followed by the time
+	 * elapsed since the request started under app, e.g. validation;dur=0.041, lock;dur=0.003, db;dur=1.204, app;dur=1.532
+	 */
+	public String toServerTiming() {
+		StringBuilder header = new StringBuilder(128);
+		for (Phase phase : PHASES) {
+			if (nanos[phase.ordinal()] > 0) {
+				appendMillis(header.append(phase.metricName).append(";dur="), nanos[phase.ordinal()]).append(", ");
+			}
+		}
+		return appendMillis(header.append("app;dur="), getTotalNanos()).toString();
+	}
+
+	/**
+	 * Log fields: every phase and the total in milliseconds, e.g. validation_ms=0.041 queue_ms=0.000 ... total_ms=1.532
+	 */
+	public String toLogFields() {
+		StringBuilder fields = new StringBuilder(160);
+		for (Phase phase : PHASES) {
+			appendMillis(fields.append(phase.metricName).append("_ms="), nanos[phase.ordinal()]).append(' ');
+		}
+		return appendMillis(fields.append("total_ms="), getTotalNanos()).toString();
+	}
+
+	/*
+	 * Milliseconds with 3 decimals, without going through floating point formatting
+	 */
+	private static StringBuilder appendMillis(StringBuilder text, long nanos) {
+		long micros = nanos / 1000;
+		long fraction = micros % 1000;
+		text.append(micros / 1000).append('.');
+		if (fraction < 100) {
+			text.append(fraction < 10 ? "00" : "0");
+		}
+		return text.append(fraction);
+	}
+}
@@ -4,10 +4,13 @@ import java.time.LocalDate;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
 @Table(name = "reservations")
@@ -33,6 +36,14 @@ public class Reservation {
 	@Column(name = "departure_date", nullable = false)
 	private LocalDate departureDate;
 
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", length = 16, nullable = false)
+	private ReservationStatus status = ReservationStatus.ACTIVE;
+
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
+
 	public Long getId() {
 		return id;
 	}
@@ -81,6 +92,26 @@ public class Reservation {
 		this.departureDate = departureDate;
 	}
 
+	public ReservationStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(ReservationStatus status) {
+		this.status = status;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public boolean isActive() {
+		return status == ReservationStatus.ACTIVE;
+	}
+
 	public Reservation uuid(String uuid) {
 		this.uuid = uuid;
 		return this;
@@ -105,4 +136,14 @@ public class Reservation {
 		this.departureDate = departureDate;
 		return this;
 	}
+
+	public Reservation status(ReservationStatus status) {
+		this.status = status;
+		return this;
+	}
+
+	public Reservation version(Long version) {
+		this.version = version;
+		return this;
+	}
 }
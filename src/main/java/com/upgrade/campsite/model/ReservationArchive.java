@@ -0,0 +1,116 @@
+package com.upgrade.campsite.model;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/*
+ * Cancelled and expired reservations are moved into this table by the nightly archival job, keeping the hot
+ * reservations table limited to the reservations the calendar still cares about.
+ *
+ * The id is carried over from the reservation, hence assigned: archives tell Spring Data they are new until persisted
+ * or loaded, so that saving one persists it straight away rather than merging it, which would select it first.
+ */
+@Entity
+@Table(name = "reservations_archive")
+public class ReservationArchive implements Persistable<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "id", updatable = false, nullable = false)
+	private Long id;
+
+	@Column(name = "uuid", length = 64, nullable = false)
+	private String uuid;
+
+	@Column(name = "email", length = 64, nullable = false)
+	private String email;
+
+	@Column(name = "full_name", length = 64, nullable = false)
+	private String fullName;
+
+	@Column(name = "arrival_date", nullable = false)
+	private LocalDate arrivalDate;
+
+	@Column(name = "departure_date", nullable = false)
+	private LocalDate departureDate;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", length = 16, nullable = false)
+	private ReservationStatus status;
+
+	@Column(name = "archived_date", nullable = false)
+	private LocalDate archivedDate;
+
+	@Transient
+	private boolean isNew = true;
+
+	public ReservationArchive() {
+	}
+
+	public ReservationArchive(Reservation reservation, ReservationStatus status, LocalDate archivedDate) {
+		this.id = reservation.getId();
+		this.uuid = reservation.getUuid();
+		this.email = reservation.getEmail();
+		this.fullName = reservation.getFullName();
+		this.arrivalDate = reservation.getArrivalDate();
+		this.departureDate = reservation.getDepartureDate();
+		this.status = status;
+		this.archivedDate = archivedDate;
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	@Override
+	public boolean isNew() {
+		return isNew;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		isNew = false;
+	}
+
+	public String getUuid() {
+		return uuid;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getFullName() {
+		return fullName;
+	}
+
+	public LocalDate getArrivalDate() {
+		return arrivalDate;
+	}
+
+	public LocalDate getDepartureDate() {
+		return departureDate;
+	}
+
+	public ReservationStatus getStatus() {
+		return status;
+	}
+
+	public LocalDate getArchivedDate() {
+		return archivedDate;
+	}
+}
@@ -0,0 +1,7 @@
+package com.upgrade.campsite.model;
+
+public enum ReservationStatus {
+	ACTIVE,
+	CANCELLED,
+	COMPLETED
+}
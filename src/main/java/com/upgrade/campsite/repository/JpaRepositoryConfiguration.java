@@ -0,0 +1,19 @@
+package com.upgrade.campsite.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/*
+ * Default backend: every repository is a Spring Data JPA repository.
+ */
+@Configuration
+@ConditionalOnProperty(name = JpaRepositoryConfiguration.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+@EnableJpaRepositories(basePackageClasses = ReservationRepository.class)
+public class JpaRepositoryConfiguration {
+
+	/**
+	 * Selects the ReservationRepository implementation: jpa (default) or event-log
+	 */
+	public static final String BACKEND_PROPERTY = "campsite.repository.backend";
+}
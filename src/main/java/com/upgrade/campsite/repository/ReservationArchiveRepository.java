@@ -0,0 +1,8 @@
+package com.upgrade.campsite.repository;
+
+import org.springframework.data.repository.CrudRepository;
+
+import com.upgrade.campsite.model.ReservationArchive;
+
+public interface ReservationArchiveRepository extends CrudRepository<ReservationArchive, Long> {
+}
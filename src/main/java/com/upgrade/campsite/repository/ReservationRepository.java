@@ -1,10 +1,83 @@
 package com.upgrade.campsite.repository;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.rest.dto.ReservationDto;
 
 public interface ReservationRepository extends CrudRepository<Reservation, Long> {
 
 	Reservation findByUuid(String uuid);
+
+	/**
+	 * Save a reservation and flush it right away, so that a version conflict surfaces at this point
+	 * rather than at commit time
+	 * @param reservation
+	 * @return The saved reservation
+	 */
+	<S extends Reservation> S saveAndFlush(S reservation);
+
+	/**
+	 * Read a reservation straight into its dto through a constructor expression, so no managed entity,
+	 * persistence context snapshot or dirty checking is involved. Meant to be called within a read-only transaction.
+	 * @param uuid
+	 * @return The reservation dto, or null if not found or no longer active
+	 */
+	@QueryHints({
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "MANUAL")
+	})
+	@Query("select new com.upgrade.campsite.rest.dto.ReservationDto(r.uuid, r.email, r.fullName, r.arrivalDate, r.departureDate, r.version) "
+			+ "from Reservation r where r.uuid = :uuid and r.status = com.upgrade.campsite.model.ReservationStatus.ACTIVE")
+	ReservationDto findDtoByUuid(@Param("uuid") String uuid);
+
+	/**
+	 * Find reservations in the given status or departing before the given date, one chunk at a time
+	 * @param status
+	 * @param departureDate
+	 * @param pageable
+	 * @return A chunk of matching reservations
+	 */
+	List<Reservation> findByStatusOrDepartureDateBefore(ReservationStatus status, LocalDate departureDate, Pageable pageable);
+
+	/**
+	 * Find reservations in the given status departing on or after the given date
+	 * @param status
+	 * @param departureDate
+	 * @return The matching reservations
+	 */
+	List<Reservation> findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus status, LocalDate departureDate);
+
+	/**
+	 * Find reservations in the given status departing on or after the given date, one chunk at a time in id order.
+	 * Chunks are keyed on the last id seen rather than on an offset, so rows added or removed meanwhile don't shift them.
+	 * @param status
+	 * @param departureDate
+	 * @param id Id of the last reservation of the previous chunk, 0 for the first chunk
+	 * @param pageable
+	 * @return A chunk of matching reservations
+	 */
+	List<Reservation> findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(ReservationStatus status,
+			LocalDate departureDate, Long id, Pageable pageable);
+
+	/**
+	 * Count reservations in the given status arriving on or before the first date and departing on or after the second
+	 * one, i.e. staying on a given date when both dates are the same
+	 * @param status
+	 * @param arrivalDate
+	 * @param departureDate
+	 * @return The number of matching reservations
+	 */
+	long countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(ReservationStatus status,
+			LocalDate arrivalDate, LocalDate departureDate);
 }
@@ -0,0 +1,46 @@
+package com.upgrade.campsite.repository.eventlog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "campsite.repository.event-log")
+public class EventLogProperties {
+
+	/**
+	 * Location of the log file
+	 */
+	private String path = "data/reservations.log";
+
+	/**
+	 * Initial size in bytes of the memory-mapped region, compaction doubles it when the live records need it
+	 */
+	private int capacity = 64 * 1024 * 1024;
+
+	/**
+	 * How long the flusher waits for concurrent writers to join a group commit before forcing the log to disk
+	 */
+	private long groupCommitDelayMillis = 1;
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public long getGroupCommitDelayMillis() {
+		return groupCommitDelayMillis;
+	}
+
+	public void setGroupCommitDelayMillis(long groupCommitDelayMillis) {
+		this.groupCommitDelayMillis = groupCommitDelayMillis;
+	}
+}
@@ -0,0 +1,30 @@
+package com.upgrade.campsite.repository.eventlog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.upgrade.campsite.repository.JpaRepositoryConfiguration;
+import com.upgrade.campsite.repository.ReservationRepository;
+
+/*
+ * Event log backend: ReservationRepository is served by the append-only log while the remaining repositories
+ * (e.g. the archive) stay on Spring Data JPA.
+ */
+@Configuration
+@ConditionalOnProperty(name = JpaRepositoryConfiguration.BACKEND_PROPERTY, havingValue = "event-log")
+@EnableConfigurationProperties(EventLogProperties.class)
+@EnableJpaRepositories(
+		basePackageClasses = ReservationRepository.class,
+		excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReservationRepository.class))
+public class EventLogRepositoryConfiguration {
+
+	@Bean
+	public EventLogReservationRepository reservationRepository(EventLogProperties properties) {
+		return new EventLogReservationRepository(properties);
+	}
+}
@@ -0,0 +1,331 @@
+package com.upgrade.campsite.repository.eventlog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.support.AbstractReservationRepository;
+import com.upgrade.campsite.repository.support.DeferredDurability;
+import com.upgrade.campsite.repository.support.OffsetIndex;
+import com.upgrade.campsite.repository.support.SlotIndex;
+
+/*
+ * ReservationRepository backed by an append-only event log instead of Hibernate and H2.
+ *
+ *   - Writes append one event each (created, modified, cancelled or deleted) and wait for a group commit,
+ *     so concurrent writers share a single fsync. Callers serializing their writes under a lock of their own defer
+ *     the wait past it through DeferredDurability, otherwise their writes would never share one.
+ *   - Reads go through two primitive-keyed indexes (uuid -> offset and id -> slot -> offset) pointing at the latest
+ *     record of every stored reservation, then decode the record straight from the mapped file. Arrival, departure,
+ *     status and id order of the slots are indexed too (SlotIndex), so the query methods only decode matching records.
+ *   - On startup the log is replayed to rebuild the indexes, and a periodic compaction rewrites it with live records
+ *     only. Compaction also runs whenever an append does not fit in the mapped region.
+ *
+ * Saves honour the optimistic version of a reservation the same way JPA does.
+ * Writes become visible to readers as soon as they are appended, slightly before they are durable.
+ * Reservation uuids must be valid UUIDs since they are indexed by their 128 bit value.
+ */
+public class EventLogReservationRepository extends AbstractReservationRepository {
+
+	private final EventLogProperties properties;
+	private final StampedLock lock = new StampedLock();
+	private final OffsetIndex uuidIndex = new OffsetIndex(1024);
+	private final OffsetIndex idIndex = new OffsetIndex(1024);
+	private final SlotIndex slotIndex = new SlotIndex();
+	private final BitSet occupiedSlots = new BitSet();
+
+	private long[] offsets = new long[1024];
+	private ReservationEventLog log;
+	private long lastId;
+	private long supersededRecords;
+
+	public EventLogReservationRepository(EventLogProperties properties) {
+		this.properties = properties;
+	}
+
+	@PostConstruct
+	public void open() throws IOException {
+		log = new ReservationEventLog(Paths.get(properties.getPath()), properties.getCapacity(),
+				properties.getGroupCommitDelayMillis());
+		log.replay((offset, type, reservation) -> {
+			int previousSlot = (int) idIndex.get(0L, reservation.getId());
+			if (previousSlot >= 0) {
+				unindex(log.read(offsets[previousSlot]), previousSlot);
+				supersededRecords++;
+			}
+			if (type == ReservationEventLog.DELETED) {
+				supersededRecords++;
+			} else {
+				index(reservation, offset);
+			}
+			lastId = Math.max(lastId, reservation.getId());
+		});
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		long stamp = lock.writeLock();
+		try {
+			log.close();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public <S extends Reservation> S save(S reservation) {
+		UUID.fromString(reservation.getUuid()); // reject keys the uuid index can not hold before touching the log
+		long durablePosition;
+		long stamp = lock.writeLock();
+		try {
+			int previousSlot = reservation.getId() == null ? -1 : (int) idIndex.get(0L, reservation.getId());
+			if (reservation.getId() == null) {
+				reservation.setId(++lastId);
+			} else {
+				lastId = Math.max(lastId, reservation.getId());
+			}
+			byte type = ReservationEventLog.CREATED;
+			long version = 0L;
+			if (previousSlot >= 0) {
+				Reservation stored = log.read(offsets[previousSlot]);
+				if (!stored.getVersion().equals(reservation.getVersion())) {
+					throw new ObjectOptimisticLockingFailureException(Reservation.class, reservation.getId());
+				}
+				type = reservation.getStatus() == ReservationStatus.CANCELLED ? ReservationEventLog.CANCELLED : ReservationEventLog.MODIFIED;
+				version = stored.getVersion() + 1;
+				unindex(stored, previousSlot);
+				supersededRecords++;
+			}
+			reservation.setVersion(version);
+			index(reservation, append(type, reservation));
+			durablePosition = log.position();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		DeferredDurability.await(() -> log.awaitDurable(durablePosition));
+		return reservation;
+	}
+
+	@Override
+	public void delete(Reservation reservation) {
+		long durablePosition;
+		long stamp = lock.writeLock();
+		try {
+			int slot = reservation.getId() == null ? -1 : (int) idIndex.get(0L, reservation.getId());
+			if (slot < 0) {
+				return;
+			}
+			Reservation stored = log.read(offsets[slot]);
+			// Unindexed first, a compaction triggered by the append then drops the record and renumbers the slots
+			unindex(stored, slot);
+			append(ReservationEventLog.DELETED, stored);
+			supersededRecords += 2;
+			durablePosition = log.position();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		DeferredDurability.await(() -> log.awaitDurable(durablePosition));
+	}
+
+	@Override
+	public Reservation findOne(Long id) {
+		long stamp = lock.readLock();
+		try {
+			int slot = (int) idIndex.get(0L, id);
+			return slot < 0 ? null : log.read(offsets[slot]);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public Reservation findByUuid(String uuid) {
+		UUID key;
+		try {
+			key = UUID.fromString(uuid);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		long stamp = lock.readLock();
+		try {
+			long offset = uuidIndex.get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+			return offset == OffsetIndex.ABSENT ? null : log.read(offset);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reservation> findAll() {
+		List<Reservation> reservations = new ArrayList<>();
+		long stamp = lock.readLock();
+		try {
+			occupiedSlots.stream().forEach(slot -> reservations.add(log.read(offsets[slot])));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		reservations.sort(Comparator.comparing(Reservation::getId));
+		return reservations;
+	}
+
+	@Override
+	public long count() {
+		long stamp = lock.readLock();
+		try {
+			return idIndex.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/* Pages follow the slot order, only the page itself is decoded and sorted by id
+	 */
+	@Override
+	public List<Reservation> findByStatusOrDepartureDateBefore(ReservationStatus status, LocalDate departureDate, Pageable pageable) {
+		long stamp = lock.readLock();
+		try {
+			return read(SlotIndex.page(slotIndex.inStatusOrDepartingBefore(status, departureDate),
+					pageable.getOffset(), pageable.getPageSize()));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reservation> findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus status, LocalDate departureDate) {
+		long stamp = lock.readLock();
+		try {
+			return read(slotIndex.inStatusDepartingFrom(status, departureDate).stream().toArray());
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reservation> findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(ReservationStatus status,
+			LocalDate departureDate, Long id, Pageable pageable) {
+		long stamp = lock.readLock();
+		try {
+			return read(slotIndex.inIdOrder(slotIndex.inStatusDepartingFrom(status, departureDate), id, pageable.getPageSize()));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public long countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(ReservationStatus status,
+			LocalDate arrivalDate, LocalDate departureDate) {
+		long stamp = lock.readLock();
+		try {
+			return slotIndex.inStatusStaying(status, arrivalDate, departureDate).cardinality();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/*
+	 * Number of forces of the log so far, each one making every write appended before it durable
+	 */
+	long forces() {
+		return log.forces();
+	}
+
+	/**
+	 * Rewrite the log without superseded and deleted records, if there are any
+	 */
+	@Scheduled(fixedDelayString = "${campsite.repository.event-log.compaction-interval-millis:3600000}")
+	public void compact() {
+		long stamp = lock.writeLock();
+		try {
+			if (supersededRecords > 0) {
+				compactLocked();
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private long append(byte type, Reservation reservation) {
+		long offset = log.append(type, reservation);
+		if (offset < 0) {
+			compactLocked();
+			offset = log.append(type, reservation);
+			if (offset < 0) {
+				throw new IllegalStateException("Reservation record does not fit in the event log");
+			}
+		}
+		return offset;
+	}
+
+	private void compactLocked() {
+		long[] liveOffsets = occupiedSlots.stream().mapToLong(slot -> offsets[slot]).toArray();
+		Arrays.sort(liveOffsets);
+		try {
+			long[] newOffsets = log.compact(liveOffsets, properties.getCapacity());
+			idIndex.clear();
+			uuidIndex.clear();
+			slotIndex.clear();
+			occupiedSlots.clear();
+			for (long offset : newOffsets) {
+				index(log.read(offset), offset);
+			}
+			supersededRecords = 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Event log compaction failed", e);
+		}
+	}
+
+	/*
+	 * Records are decoded in the order of the given slots, then sorted by id
+	 */
+	private List<Reservation> read(int[] slots) {
+		List<Reservation> reservations = new ArrayList<>(slots.length);
+		for (int slot : slots) {
+			reservations.add(log.read(offsets[slot]));
+		}
+		reservations.sort(Comparator.comparing(Reservation::getId));
+		return reservations;
+	}
+
+	private void index(Reservation reservation, long offset) {
+		int slot = occupiedSlots.nextClearBit(0);
+		if (slot == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[slot] = offset;
+		occupiedSlots.set(slot);
+		UUID uuid = UUID.fromString(reservation.getUuid());
+		uuidIndex.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), offset);
+		idIndex.put(0L, reservation.getId(), slot);
+		slotIndex.add(reservation, slot);
+	}
+
+	/**
+	 * @param stored The reservation as indexed, i.e. its latest record
+	 * @param slot
+	 */
+	private void unindex(Reservation stored, int slot) {
+		UUID uuid = UUID.fromString(stored.getUuid());
+		uuidIndex.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		idIndex.remove(0L, stored.getId());
+		slotIndex.remove(stored, slot);
+		occupiedSlots.clear(slot);
+	}
+}
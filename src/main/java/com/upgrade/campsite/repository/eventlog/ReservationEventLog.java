@@ -0,0 +1,328 @@
+package com.upgrade.campsite.repository.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+
+/*
+ * Append-only, memory-mapped log of reservation events. Every record carries a full copy of the reservation:
+ *
+ *   [int payload length][int payload crc32][byte event type][long id][long version][byte status][long arrival epoch day]
+ *   [long departure epoch day][uuid][email][full name]       (strings as [short byte length][utf-8 bytes])
+ *
+ * A zero length or a crc mismatch marks the end of the log, so a torn write at crash time is simply dropped on replay.
+ *
+ * Appends are expected to be serialized by the caller. Durability is decoupled from appending through group commit:
+ * writers append, release their own lock and then wait in awaitDurable while a single flusher thread forces
+ * whatever has been appended so far, releasing every waiter covered by that force at once.
+ */
+final class ReservationEventLog implements Closeable {
+
+	static final byte CREATED = 1;
+	static final byte MODIFIED = 2;
+	static final byte CANCELLED = 3;
+	static final byte DELETED = 4;
+
+	private static final int HEADER_SIZE = 8;
+	private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+	interface RecordVisitor {
+		void visit(long offset, byte type, Reservation reservation);
+	}
+
+	private final Path path;
+	private final long groupCommitDelayMillis;
+	private final Object flushMonitor = new Object();
+	private final Thread flusher;
+	private final CRC32 crc = new CRC32();
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private ByteBuffer scratch = ByteBuffer.allocate(512);
+	private volatile long position;
+
+	// Guarded by flushMonitor
+	private long requestedOffset;
+	private long durableOffset;
+	private long forces;
+	private boolean closed;
+
+	ReservationEventLog(Path path, int capacity, long groupCommitDelayMillis) throws IOException {
+		this.path = path;
+		this.groupCommitDelayMillis = groupCommitDelayMillis;
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		map(Math.max(capacity, Files.exists(path) ? (int) Files.size(path) : 0));
+		flusher = new Thread(this::flushLoop, "event-log-group-commit");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	long position() {
+		return position;
+	}
+
+	int capacity() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * Read the whole log from the start, handing over every valid record. Leaves the log positioned right after
+	 * the last valid record.
+	 * @param visitor
+	 */
+	void replay(RecordVisitor visitor) {
+		int offset = 0;
+		while (offset + HEADER_SIZE <= buffer.capacity()) {
+			int length = buffer.getInt(offset);
+			if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()
+					|| buffer.getInt(offset + 4) != checksum(offset + HEADER_SIZE, length)) {
+				break;
+			}
+			visitor.visit(offset, buffer.get(offset + HEADER_SIZE), read(offset));
+			offset += HEADER_SIZE + length;
+		}
+		position = offset;
+		synchronized (flushMonitor) {
+			requestedOffset = offset;
+			durableOffset = offset;
+		}
+	}
+
+	/**
+	 * Append an event to the log, not durable until awaitDurable returns for a position past it
+	 * @param type
+	 * @param reservation
+	 * @return The offset of the new record, or -1 if there is not enough room left
+	 */
+	long append(byte type, Reservation reservation) {
+		ByteBuffer record = encode(type, reservation);
+		int length = record.remaining();
+		int offset = (int) position;
+		if (offset + length > buffer.capacity()) {
+			return -1L;
+		}
+		ByteBuffer target = buffer.duplicate();
+		target.position(offset);
+		target.put(record);
+		position = offset + length;
+		return offset;
+	}
+
+	Reservation read(long offset) {
+		ByteBuffer record = buffer.duplicate();
+		record.position((int) offset + HEADER_SIZE + 1);
+		Reservation reservation = new Reservation();
+		reservation.setId(record.getLong());
+		reservation.setVersion(record.getLong());
+		reservation.setStatus(STATUSES[record.get()]);
+		reservation.setArrivalDate(LocalDate.ofEpochDay(record.getLong()));
+		reservation.setDepartureDate(LocalDate.ofEpochDay(record.getLong()));
+		reservation.setUuid(readString(record));
+		reservation.setEmail(readString(record));
+		reservation.setFullName(readString(record));
+		return reservation;
+	}
+
+	long forces() {
+		synchronized (flushMonitor) {
+			return forces;
+		}
+	}
+
+	/**
+	 * Block until everything appended up to the given position has been forced to disk
+	 * @param offset
+	 */
+	void awaitDurable(long offset) {
+		synchronized (flushMonitor) {
+			if (offset > requestedOffset) {
+				requestedOffset = offset;
+				flushMonitor.notifyAll();
+			}
+			while (durableOffset < offset) {
+				if (closed) {
+					throw new IllegalStateException("Event log " + path + " closed before the write became durable");
+				}
+				try {
+					flushMonitor.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the event log to be flushed", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rewrite the log keeping only the given records, in the given order. The caller must prevent appends meanwhile.
+	 * @param liveOffsets
+	 * @param minCapacity
+	 * @return The new offset of each kept record
+	 */
+	long[] compact(long[] liveOffsets, int minCapacity) throws IOException {
+		Path compacted = Paths.get(path.toString() + ".compact");
+		long[] newOffsets = new long[liveOffsets.length];
+		synchronized (flushMonitor) {
+			int written = 0;
+			try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				for (int i = 0; i < liveOffsets.length; i++) {
+					int offset = (int) liveOffsets[i];
+					ByteBuffer record = buffer.duplicate();
+					record.position(offset);
+					record.limit(offset + HEADER_SIZE + buffer.getInt(offset));
+					newOffsets[i] = written;
+					written += record.remaining();
+					while (record.hasRemaining()) {
+						target.write(record);
+					}
+				}
+				target.force(true);
+			}
+			channel.close();
+			Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			map(Math.max(minCapacity, 2 * written));
+			position = written;
+			requestedOffset = written;
+			durableOffset = written;
+			flushMonitor.notifyAll();
+		}
+		return newOffsets;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (flushMonitor) {
+			if (closed) {
+				return;
+			}
+			buffer.force();
+			durableOffset = position;
+			closed = true;
+			flushMonitor.notifyAll();
+		}
+		flusher.interrupt();
+		channel.close();
+	}
+
+	private void flushLoop() {
+		while (true) {
+			synchronized (flushMonitor) {
+				while (!closed && requestedOffset <= durableOffset) {
+					try {
+						flushMonitor.wait();
+					} catch (InterruptedException e) {
+						if (closed) {
+							return;
+						}
+					}
+				}
+				if (closed) {
+					return;
+				}
+			}
+			if (groupCommitDelayMillis > 0) {
+				// Let concurrent writers join this batch
+				try {
+					Thread.sleep(groupCommitDelayMillis);
+				} catch (InterruptedException e) {
+					// closing, the final force happens in close
+				}
+			}
+			synchronized (flushMonitor) {
+				if (closed) {
+					return;
+				}
+				long target = position;
+				buffer.force();
+				forces++;
+				durableOffset = target;
+				flushMonitor.notifyAll();
+			}
+		}
+	}
+
+	private void map(int capacity) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+
+	private ByteBuffer encode(byte type, Reservation reservation) {
+		byte[] uuid = bytes(reservation.getUuid());
+		byte[] email = bytes(reservation.getEmail());
+		byte[] fullName = bytes(reservation.getFullName());
+		int length = 1 + 8 + 8 + 1 + 8 + 8 + 6 + length(uuid) + length(email) + length(fullName);
+		if (scratch.capacity() < HEADER_SIZE + length) {
+			scratch = ByteBuffer.allocate(HEADER_SIZE + length);
+		}
+		scratch.clear();
+		scratch.putInt(length);
+		scratch.putInt(0);
+		scratch.put(type);
+		scratch.putLong(reservation.getId());
+		scratch.putLong(reservation.getVersion());
+		scratch.put((byte) reservation.getStatus().ordinal());
+		scratch.putLong(reservation.getArrivalDate().toEpochDay());
+		scratch.putLong(reservation.getDepartureDate().toEpochDay());
+		putString(scratch, uuid);
+		putString(scratch, email);
+		putString(scratch, fullName);
+		crc.reset();
+		crc.update(scratch.array(), HEADER_SIZE, length);
+		scratch.putInt(4, (int) crc.getValue());
+		scratch.flip();
+		return scratch;
+	}
+
+	private int checksum(int offset, int length) {
+		ByteBuffer payload = buffer.duplicate();
+		payload.position(offset);
+		payload.limit(offset + length);
+		crc.reset();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	private static byte[] bytes(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int length(byte[] value) {
+		return value == null ? 0 : value.length;
+	}
+
+	private static void putString(ByteBuffer target, byte[] value) {
+		if (value == null) {
+			target.putShort((short) -1);
+		} else {
+			target.putShort((short) value.length);
+			target.put(value);
+		}
+	}
+
+	private static String readString(ByteBuffer source) {
+		short length = source.getShort();
+		if (length < 0) {
+			return null;
+		}
+		byte[] value = new byte[length];
+		source.get(value);
+		return new String(value, StandardCharsets.UTF_8);
+	}
+}
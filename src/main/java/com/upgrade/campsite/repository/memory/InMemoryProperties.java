@@ -0,0 +1,20 @@
+package com.upgrade.campsite.repository.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "campsite.repository.in-memory")
+public class InMemoryProperties {
+
+	/**
+	 * Location of the checkpoint file, written periodically and read back on startup
+	 */
+	private String checkpointPath = "data/reservations.checkpoint";
+
+	public String getCheckpointPath() {
+		return checkpointPath;
+	}
+
+	public void setCheckpointPath(String checkpointPath) {
+		this.checkpointPath = checkpointPath;
+	}
+}
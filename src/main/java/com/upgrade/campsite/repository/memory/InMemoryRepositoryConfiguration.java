@@ -0,0 +1,23 @@
+package com.upgrade.campsite.repository.memory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.upgrade.campsite.repository.JpaRepositoryConfiguration;
+
+/*
+ * In-memory backend: ReservationRepository is served from the heap and checkpointed to a local file. No other
+ * repository is available, the in-memory profile turns off the datasource and JPA altogether.
+ */
+@Configuration
+@ConditionalOnProperty(name = JpaRepositoryConfiguration.BACKEND_PROPERTY, havingValue = "in-memory")
+@EnableConfigurationProperties(InMemoryProperties.class)
+public class InMemoryRepositoryConfiguration {
+
+	@Bean
+	public InMemoryReservationRepository reservationRepository(InMemoryProperties properties) {
+		return new InMemoryReservationRepository(properties);
+	}
+}
@@ -0,0 +1,385 @@
+package com.upgrade.campsite.repository.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.support.AbstractReservationRepository;
+import com.upgrade.campsite.repository.support.OffsetIndex;
+import com.upgrade.campsite.repository.support.SlotIndex;
+
+/*
+ * ReservationRepository kept entirely on the heap, meant for edge deployments and load testing.
+ *
+ *   - Reservations live in an array of slots, looked up through two primitive-keyed indexes (uuid -> slot and
+ *     id -> slot). Arrival date, departure date and status are indexed with one bitset of slots per key, and ids
+ *     are kept in order (SlotIndex), which serves the query methods without scanning or sorting every reservation.
+ *   - Stored reservations are private copies which are never mutated, callers always get their own copy back.
+ *   - A checkpoint of all reservations is written periodically (and on shutdown) to a temporary file which then
+ *     atomically replaces the previous one. The latest checkpoint is loaded on startup.
+ *
+ * Saves honour the optimistic version of a reservation the same way JPA does.
+ * Writes made after the latest checkpoint are lost if the process dies.
+ * Reservation uuids must be valid UUIDs since they are indexed by their 128 bit value.
+ */
+public class InMemoryReservationRepository extends AbstractReservationRepository {
+
+	private static final int CHECKPOINT_MAGIC = 0x43504b31; // "CPK1"
+
+	private final InMemoryProperties properties;
+	private final StampedLock lock = new StampedLock();
+	private final OffsetIndex uuidIndex = new OffsetIndex(1024);
+	private final OffsetIndex idIndex = new OffsetIndex(1024);
+	private final SlotIndex slotIndex = new SlotIndex();
+	private final BitSet occupiedSlots = new BitSet();
+
+	private Reservation[] slots = new Reservation[1024];
+	private long lastId;
+	private long modifications;
+	private long checkpointedModifications;
+
+	public InMemoryReservationRepository(InMemoryProperties properties) {
+		this.properties = properties;
+	}
+
+	@PostConstruct
+	public void open() throws IOException {
+		Path path = Paths.get(properties.getCheckpointPath());
+		if (!Files.exists(path)) {
+			return;
+		}
+		CRC32 checksum = new CRC32();
+		try (InputStream file = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(file), checksum))) {
+			if (in.readInt() != CHECKPOINT_MAGIC) {
+				throw new IOException("Not a reservation checkpoint: " + path);
+			}
+			long checkpointLastId = in.readLong();
+			int count = in.readInt();
+			List<Reservation> reservations = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				Reservation reservation = new Reservation()
+						.version(in.readLong())
+						.status(ReservationStatus.values()[in.readByte()])
+						.arrivalDate(LocalDate.ofEpochDay(in.readLong()))
+						.departureDate(LocalDate.ofEpochDay(in.readLong()))
+						.uuid(in.readUTF())
+						.email(in.readUTF())
+						.fullName(in.readUTF());
+				reservation.setId(in.readLong());
+				reservations.add(reservation);
+			}
+			long expectedChecksum = checksum.getValue();
+			if (in.readLong() != expectedChecksum) {
+				throw new IOException("Corrupted reservation checkpoint: " + path);
+			}
+			long stamp = lock.writeLock();
+			try {
+				for (Reservation reservation : reservations) {
+					index(reservation, occupiedSlots.nextClearBit(0));
+				}
+				lastId = checkpointLastId;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		writeCheckpoint();
+	}
+
+	@Override
+	public <S extends Reservation> S save(S reservation) {
+		UUID.fromString(reservation.getUuid()); // reject keys the uuid index can not hold before touching the store
+		long stamp = lock.writeLock();
+		try {
+			int slot = reservation.getId() == null ? -1 : (int) idIndex.get(0L, reservation.getId());
+			if (reservation.getId() == null) {
+				reservation.setId(++lastId);
+			} else {
+				lastId = Math.max(lastId, reservation.getId());
+			}
+			long version = 0L;
+			if (slot >= 0) {
+				Reservation stored = slots[slot];
+				if (!stored.getVersion().equals(reservation.getVersion())) {
+					throw new ObjectOptimisticLockingFailureException(Reservation.class, reservation.getId());
+				}
+				version = stored.getVersion() + 1;
+				unindex(slot);
+			} else {
+				slot = occupiedSlots.nextClearBit(0);
+			}
+			reservation.setVersion(version);
+			index(copy(reservation), slot);
+			modifications++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		return reservation;
+	}
+
+	@Override
+	public void delete(Reservation reservation) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = reservation.getId() == null ? -1 : (int) idIndex.get(0L, reservation.getId());
+			if (slot >= 0) {
+				unindex(slot);
+				modifications++;
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reservation findOne(Long id) {
+		Reservation stored;
+		long stamp = lock.readLock();
+		try {
+			int slot = (int) idIndex.get(0L, id);
+			stored = slot < 0 ? null : slots[slot];
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return stored == null ? null : copy(stored);
+	}
+
+	@Override
+	public Reservation findByUuid(String uuid) {
+		UUID key;
+		try {
+			key = UUID.fromString(uuid);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		Reservation stored;
+		long stamp = lock.readLock();
+		try {
+			int slot = (int) uuidIndex.get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+			stored = slot < 0 ? null : slots[slot];
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return stored == null ? null : copy(stored);
+	}
+
+	@Override
+	public List<Reservation> findAll() {
+		Reservation[] stored;
+		long stamp = lock.readLock();
+		try {
+			stored = snapshot(occupiedSlots);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return copies(stored);
+	}
+
+	@Override
+	public long count() {
+		long stamp = lock.readLock();
+		try {
+			return idIndex.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/* Pages follow the slot order, only the page itself is copied and sorted by id
+	 */
+	@Override
+	public List<Reservation> findByStatusOrDepartureDateBefore(ReservationStatus status, LocalDate departureDate, Pageable pageable) {
+		Reservation[] matches;
+		long stamp = lock.readLock();
+		try {
+			matches = resolve(SlotIndex.page(slotIndex.inStatusOrDepartingBefore(status, departureDate),
+					pageable.getOffset(), pageable.getPageSize()));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return copies(matches);
+	}
+
+	@Override
+	public List<Reservation> findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus status, LocalDate departureDate) {
+		Reservation[] matches;
+		long stamp = lock.readLock();
+		try {
+			matches = snapshot(slotIndex.inStatusDepartingFrom(status, departureDate));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return copies(matches);
+	}
+
+	@Override
+	public List<Reservation> findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(ReservationStatus status,
+			LocalDate departureDate, Long id, Pageable pageable) {
+		Reservation[] matches;
+		long stamp = lock.readLock();
+		try {
+			matches = resolve(slotIndex.inIdOrder(slotIndex.inStatusDepartingFrom(status, departureDate), id, pageable.getPageSize()));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return copies(matches);
+	}
+
+	@Override
+	public long countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(ReservationStatus status,
+			LocalDate arrivalDate, LocalDate departureDate) {
+		long stamp = lock.readLock();
+		try {
+			return slotIndex.inStatusStaying(status, arrivalDate, departureDate).cardinality();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Write a checkpoint, unless nothing changed since the previous one
+	 */
+	@Scheduled(fixedDelayString = "${campsite.repository.in-memory.checkpoint-interval-millis:10000}")
+	public void checkpoint() {
+		try {
+			writeCheckpoint();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Reservation checkpoint failed", e);
+		}
+	}
+
+	/* Stored reservations are never mutated, so a snapshot of the slots taken under the read lock can be written
+	 * out without holding it. Synchronized to keep the scheduled and the shutdown checkpoints apart.
+	 */
+	private synchronized void writeCheckpoint() throws IOException {
+		Reservation[] reservations;
+		long snapshotLastId;
+		long snapshotModifications;
+		long stamp = lock.readLock();
+		try {
+			if (modifications == checkpointedModifications) {
+				return;
+			}
+			reservations = snapshot(occupiedSlots);
+			snapshotLastId = lastId;
+			snapshotModifications = modifications;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+
+		Path path = Paths.get(properties.getCheckpointPath()).toAbsolutePath();
+		Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.createDirectories(path.getParent());
+		CRC32 checksum = new CRC32();
+		try (FileOutputStream file = new FileOutputStream(temporaryPath.toFile());
+				DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), checksum))) {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeLong(snapshotLastId);
+			out.writeInt(reservations.length);
+			for (Reservation reservation : reservations) {
+				out.writeLong(reservation.getVersion());
+				out.writeByte(reservation.getStatus().ordinal());
+				out.writeLong(reservation.getArrivalDate().toEpochDay());
+				out.writeLong(reservation.getDepartureDate().toEpochDay());
+				out.writeUTF(reservation.getUuid());
+				out.writeUTF(reservation.getEmail());
+				out.writeUTF(reservation.getFullName());
+				out.writeLong(reservation.getId());
+			}
+			out.writeLong(checksum.getValue());
+			out.flush();
+			file.getFD().sync();
+		}
+		Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		checkpointedModifications = snapshotModifications;
+	}
+
+	private Reservation[] snapshot(BitSet slotsToCopy) {
+		return slotsToCopy.stream().mapToObj(slot -> slots[slot]).toArray(Reservation[]::new);
+	}
+
+	private Reservation[] resolve(int[] slotsToCopy) {
+		Reservation[] stored = new Reservation[slotsToCopy.length];
+		for (int i = 0; i < slotsToCopy.length; i++) {
+			stored[i] = slots[slotsToCopy[i]];
+		}
+		return stored;
+	}
+
+	private void index(Reservation stored, int slot) {
+		if (slot == slots.length) {
+			slots = Arrays.copyOf(slots, slots.length * 2);
+		}
+		slots[slot] = stored;
+		occupiedSlots.set(slot);
+		UUID uuid = UUID.fromString(stored.getUuid());
+		uuidIndex.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+		idIndex.put(0L, stored.getId(), slot);
+		slotIndex.add(stored, slot);
+	}
+
+	private void unindex(int slot) {
+		Reservation stored = slots[slot];
+		UUID uuid = UUID.fromString(stored.getUuid());
+		uuidIndex.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		idIndex.remove(0L, stored.getId());
+		slotIndex.remove(stored, slot);
+		occupiedSlots.clear(slot);
+		slots[slot] = null;
+	}
+
+	private static List<Reservation> copies(Reservation[] stored) {
+		List<Reservation> reservations = new ArrayList<>(stored.length);
+		for (Reservation reservation : stored) {
+			reservations.add(copy(reservation));
+		}
+		reservations.sort(Comparator.comparing(Reservation::getId));
+		return reservations;
+	}
+
+	private static Reservation copy(Reservation reservation) {
+		Reservation copy = new Reservation()
+				.uuid(reservation.getUuid())
+				.email(reservation.getEmail())
+				.fullName(reservation.getFullName())
+				.arrivalDate(reservation.getArrivalDate())
+				.departureDate(reservation.getDepartureDate())
+				.status(reservation.getStatus())
+				.version(reservation.getVersion());
+		copy.setId(reservation.getId());
+		return copy;
+	}
+}
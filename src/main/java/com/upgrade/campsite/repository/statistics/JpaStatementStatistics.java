@@ -0,0 +1,100 @@
+package com.upgrade.campsite.repository.statistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.upgrade.campsite.metrics.LatencyRecorder;
+import com.upgrade.campsite.metrics.MetricsSource;
+
+/*
+ * JDBC statements by operation, the operation being the transaction they run in (named after the @Transactional
+ * method). Hibernate creates a StatementStatisticsListener per session on its own, the listeners report here through
+ * the active instance.
+ */
+public class JpaStatementStatistics implements MetricsSource {
+
+	private static volatile JpaStatementStatistics active;
+
+	private final Map<String, OperationStatistics> operations = new ConcurrentHashMap<>();
+	private final long slowStatementNanos;
+	private final int repeatedStatementThreshold;
+
+	public JpaStatementStatistics(JpaStatisticsProperties properties) {
+		this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowStatementMillis());
+		this.repeatedStatementThreshold = properties.getRepeatedStatementThreshold();
+	}
+
+	/**
+	 * @return The instance the listeners report to, null if statistics are disabled
+	 */
+	static JpaStatementStatistics active() {
+		return active;
+	}
+
+	@PostConstruct
+	public void activate() {
+		active = this;
+	}
+
+	@PreDestroy
+	public void deactivate() {
+		if (active == this) {
+			active = null;
+		}
+	}
+
+	OperationStatistics operation(String name) {
+		return operations.computeIfAbsent(name, key -> new OperationStatistics());
+	}
+
+	long getSlowStatementNanos() {
+		return slowStatementNanos;
+	}
+
+	int getRepeatedStatementThreshold() {
+		return repeatedStatementThreshold;
+	}
+
+	public Map<String, OperationStatistics> getOperations() {
+		return new TreeMap<>(operations);
+	}
+
+	public void clear() {
+		operations.clear();
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "jpa";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		getOperations().forEach((name, operation) -> {
+			metrics.put(name + ".transactions", operation.getTransactions());
+			metrics.put(name + ".statements", operation.getStatements());
+			metrics.put(name + ".flushes", operation.getFlushes());
+			metrics.put(name + ".slowStatements", operation.getSlowStatements());
+			metrics.put(name + ".repeatedStatements", operation.getRepeatedStatements());
+		});
+		return metrics;
+	}
+
+	@Override
+	public Map<String, LatencyRecorder> getLatencies() {
+		if (operations.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+		getOperations().forEach((name, operation) -> latencies.put(name + ".statement", operation.statementTime()));
+		return latencies;
+	}
+}
@@ -0,0 +1,23 @@
+package com.upgrade.campsite.repository.statistics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Opt-in statement statistics of the JPA backend. Hibernate has to be told about the listener and the statement
+ * inspector as well, which the jpa-statistics profile does along with enabling Hibernate's own statistics.
+ */
+@Configuration
+@ConditionalOnProperty(name = JpaStatisticsConfiguration.ENABLED_PROPERTY)
+@EnableConfigurationProperties(JpaStatisticsProperties.class)
+public class JpaStatisticsConfiguration {
+
+	public static final String ENABLED_PROPERTY = "campsite.jpa-statistics.enabled";
+
+	@Bean
+	public JpaStatementStatistics jpaStatementStatistics(JpaStatisticsProperties properties) {
+		return new JpaStatementStatistics(properties);
+	}
+}
@@ -0,0 +1,46 @@
+package com.upgrade.campsite.repository.statistics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "campsite.jpa-statistics")
+public class JpaStatisticsProperties {
+
+	/**
+	 * Whether JDBC statements are counted and timed by operation, see the jpa-statistics profile
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Statements taking longer than this are logged along with their operation
+	 */
+	private long slowStatementMillis = 50;
+
+	/**
+	 * Number of times the same select may run within a transaction before it is flagged as a possible N+1
+	 */
+	private int repeatedStatementThreshold = 5;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getSlowStatementMillis() {
+		return slowStatementMillis;
+	}
+
+	public void setSlowStatementMillis(long slowStatementMillis) {
+		this.slowStatementMillis = slowStatementMillis;
+	}
+
+	public int getRepeatedStatementThreshold() {
+		return repeatedStatementThreshold;
+	}
+
+	public void setRepeatedStatementThreshold(int repeatedStatementThreshold) {
+		this.repeatedStatementThreshold = repeatedStatementThreshold;
+	}
+}
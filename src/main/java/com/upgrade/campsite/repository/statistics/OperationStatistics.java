@@ -0,0 +1,86 @@
+package com.upgrade.campsite.repository.statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.upgrade.campsite.metrics.LatencyRecorder;
+
+/**
+ * Statements run by the transactions of one operation, e.g. ReservationServiceImpl.makeReservation
+ */
+public class OperationStatistics {
+
+	private final LongAdder transactions = new LongAdder();
+	private final LongAdder statements = new LongAdder();
+	private final LongAdder statementNanos = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder slowStatements = new LongAdder();
+	private final LongAdder repeatedStatements = new LongAdder();
+	private final LatencyRecorder statementTime = new LatencyRecorder();
+	private volatile String lastSlowStatement;
+	private volatile String lastRepeatedStatement;
+
+	void statement(long elapsedNanos) {
+		statementTime.record(elapsedNanos);
+	}
+
+	void slowStatement(String sql) {
+		slowStatements.increment();
+		lastSlowStatement = sql;
+	}
+
+	void repeatedStatement(String sql) {
+		repeatedStatements.increment();
+		lastRepeatedStatement = sql;
+	}
+
+	void transaction(int statementCount, long statementNanosTotal, int flushCount) {
+		transactions.increment();
+		statements.add(statementCount);
+		statementNanos.add(statementNanosTotal);
+		flushes.add(flushCount);
+	}
+
+	LatencyRecorder statementTime() {
+		return statementTime;
+	}
+
+	public long getTransactions() {
+		return transactions.sum();
+	}
+
+	public long getStatements() {
+		return statements.sum();
+	}
+
+	public double getStatementsPerTransaction() {
+		long transactionCount = transactions.sum();
+		return transactionCount == 0 ? 0 : (double) statements.sum() / transactionCount;
+	}
+
+	public double getStatementMillis() {
+		return statementNanos.sum() / 1e6;
+	}
+
+	public long getFlushes() {
+		return flushes.sum();
+	}
+
+	public long getSlowStatements() {
+		return slowStatements.sum();
+	}
+
+	/**
+	 * @return Number of transactions which ran the same select over and over, typically lazy loading in a loop
+	 */
+	public long getRepeatedStatements() {
+		return repeatedStatements.sum();
+	}
+
+	public String getLastSlowStatement() {
+		return lastSlowStatement;
+	}
+
+	public String getLastRepeatedStatement() {
+		return lastRepeatedStatement;
+	}
+}
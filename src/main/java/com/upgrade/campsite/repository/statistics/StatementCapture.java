@@ -0,0 +1,24 @@
+package com.upgrade.campsite.repository.statistics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+ * Hands the SQL of the statement about to be prepared over to the session listener, which only gets told about
+ * statements starting and ending. The SQL is left untouched.
+ */
+public class StatementCapture implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<String> SQL = new ThreadLocal<>();
+
+	static String lastSql() {
+		return SQL.get();
+	}
+
+	@Override
+	public String inspect(String sql) {
+		SQL.set(sql);
+		return sql;
+	}
+}
@@ -0,0 +1,110 @@
+package com.upgrade.campsite.repository.statistics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.BaseSessionEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Created by Hibernate for every session. Counts and times the statements of the current transaction, and reports
+ * them under its operation when the transaction completes. A session may outlive a transaction (open session in
+ * view), hence the state is reset on every completion.
+ */
+public class StatementStatisticsListener extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOGGER = LoggerFactory.getLogger(StatementStatisticsListener.class);
+
+	private final transient JpaStatementStatistics statistics = JpaStatementStatistics.active();
+
+	private String operationName;
+	private OperationStatistics operation;
+	private String sql;
+	private long executeStart;
+	private int statements;
+	private long statementNanos;
+	private int flushes;
+	private Map<String, Integer> selects;
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		sql = StatementCapture.lastSql();
+		if (operation == null && statistics != null) {
+			operationName = operationName();
+			operation = statistics.operation(operationName);
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		executeStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		if (operation == null) {
+			return;
+		}
+		long elapsed = System.nanoTime() - executeStart;
+		statements++;
+		statementNanos += elapsed;
+		operation.statement(elapsed);
+
+		if (elapsed > statistics.getSlowStatementNanos()) {
+			operation.slowStatement(sql);
+			LOGGER.warn("Slow statement in {}: {} ms, {}", operationName, elapsed / 1_000_000, sql);
+		}
+		if (sql != null && sql.regionMatches(true, 0, "select", 0, 6)) {
+			if (selects == null) {
+				selects = new HashMap<>();
+			}
+			if (selects.merge(sql, 1, Integer::sum) == statistics.getRepeatedStatementThreshold()) {
+				operation.repeatedStatement(sql);
+				LOGGER.warn("Statement repeated {} times in {}, possible N+1: {}",
+						statistics.getRepeatedStatementThreshold(), operationName, sql);
+			}
+		}
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		flushes++;
+	}
+
+	@Override
+	public void transactionCompletion(boolean successful) {
+		report();
+	}
+
+	@Override
+	public void end() {
+		report();
+	}
+
+	private void report() {
+		if (operation != null) {
+			operation.transaction(statements, statementNanos, flushes);
+		}
+		operationName = null;
+		operation = null;
+		statements = 0;
+		statementNanos = 0;
+		flushes = 0;
+		selects = null;
+	}
+
+	/*
+	 * Class and method of the @Transactional method, e.g. ReservationServiceImpl.makeReservation
+	 */
+	private static String operationName() {
+		String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+		if (transactionName == null) {
+			return "nonTransactional";
+		}
+		int method = transactionName.lastIndexOf('.');
+		return transactionName.substring(transactionName.lastIndexOf('.', method - 1) + 1);
+	}
+}
@@ -0,0 +1,84 @@
+package com.upgrade.campsite.repository.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Base class for ReservationRepository implementations not backed by Spring Data JPA. Subclasses provide the
+ * primitive operations and the query methods, served from indexes of their own rather than by scanning findAll,
+ * the remaining CrudRepository operations are derived from them.
+ * Implementations are expected to honour the optimistic version of a reservation on save.
+ */
+public abstract class AbstractReservationRepository implements ReservationRepository {
+
+	/**
+	 * @return A snapshot of all stored reservations, ordered by id
+	 */
+	@Override
+	public abstract List<Reservation> findAll();
+
+	@Override
+	public <S extends Reservation> S saveAndFlush(S reservation) {
+		return save(reservation);
+	}
+
+	@Override
+	public <S extends Reservation> Iterable<S> save(Iterable<S> reservations) {
+		List<S> saved = new ArrayList<>();
+		for (S reservation : reservations) {
+			saved.add(save(reservation));
+		}
+		return saved;
+	}
+
+	@Override
+	public boolean exists(Long id) {
+		return findOne(id) != null;
+	}
+
+	@Override
+	public Iterable<Reservation> findAll(Iterable<Long> ids) {
+		List<Reservation> reservations = new ArrayList<>();
+		for (Long id : ids) {
+			Reservation reservation = findOne(id);
+			if (reservation != null) {
+				reservations.add(reservation);
+			}
+		}
+		return reservations;
+	}
+
+	@Override
+	public void delete(Long id) {
+		Reservation reservation = findOne(id);
+		if (reservation != null) {
+			delete(reservation);
+		}
+	}
+
+	@Override
+	public void delete(Iterable<? extends Reservation> reservations) {
+		for (Reservation reservation : reservations) {
+			delete(reservation);
+		}
+	}
+
+	@Override
+	public void deleteAll() {
+		delete(findAll());
+	}
+
+	@Override
+	public ReservationDto findDtoByUuid(String uuid) {
+		Reservation reservation = findByUuid(uuid);
+		if (reservation == null || !reservation.isActive()) {
+			return null;
+		}
+		return new ReservationDto(reservation.getUuid(), reservation.getEmail(), reservation.getFullName(),
+				reservation.getArrivalDate(), reservation.getDepartureDate(), reservation.getVersion());
+	}
+}
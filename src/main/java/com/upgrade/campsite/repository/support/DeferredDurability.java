@@ -0,0 +1,51 @@
+package com.upgrade.campsite.repository.support;
+
+/*
+ * Takes the durability wait of repository writes out of a lock held by their caller.
+ *
+ * Backends making writes durable asynchronously (the event log group commit) hand their wait over to await. Between
+ * begin and end on the same thread the wait is only recorded, and end runs it: a caller serializing its writes
+ * under a lock of its own ends once the lock is released, so that concurrent writers append one after the other but
+ * wait for the disk together, sharing a single force. Outside of begin and end, writes wait right away as usual.
+ */
+public final class DeferredDurability {
+
+	private static final ThreadLocal<DeferredDurability> CURRENT = new ThreadLocal<>();
+
+	private Runnable pendingWait;
+
+	private DeferredDurability() {
+	}
+
+	/**
+	 * Defer the durability waits of the current thread until end
+	 */
+	public static void begin() {
+		CURRENT.set(new DeferredDurability());
+	}
+
+	/**
+	 * Wait for the writes made since begin to be durable
+	 */
+	public static void end() {
+		DeferredDurability deferred = CURRENT.get();
+		CURRENT.remove();
+		if (deferred != null && deferred.pendingWait != null) {
+			deferred.pendingWait.run();
+		}
+	}
+
+	/**
+	 * Wait for a write to be durable, now or at end if deferred. Waits are expected to cover earlier ones, the last
+	 * wait deferred being the only one run.
+	 * @param wait
+	 */
+	public static void await(Runnable wait) {
+		DeferredDurability deferred = CURRENT.get();
+		if (deferred == null) {
+			wait.run();
+		} else {
+			deferred.pendingWait = wait;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.upgrade.campsite.repository.support;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+ * Open addressing hash index from a 128 bit key (two longs, e.g. the two halves of a uuid) to an offset
+ * (a position in a log file, a slot in an array).
+ * Keys and values live in primitive arrays, so lookups neither box nor chase pointers.
+ * Not thread-safe, the owning repository guards every access.
+ */
+public final class OffsetIndex {
+
+	public static final long ABSENT = -1L;
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private long[] keys; // two slots per entry: high and low halves
+	private long[] offsets; // ABSENT marks an empty entry
+	private int mask;
+	private int size;
+	private int threshold;
+
+	public OffsetIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long get(long high, long low) {
+		int slot = slot(high, low);
+		while (true) {
+			long offset = offsets[slot];
+			if (offset == ABSENT) {
+				return ABSENT;
+			}
+			if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+				return offset;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	public void put(long high, long low, long offset) {
+		int slot = slot(high, low);
+		while (offsets[slot] != ABSENT) {
+			if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+				offsets[slot] = offset;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot << 1] = high;
+		keys[(slot << 1) + 1] = low;
+		offsets[slot] = offset;
+		if (++size > threshold) {
+			rehash(offsets.length << 1);
+		}
+	}
+
+	public long remove(long high, long low) {
+		int slot = slot(high, low);
+		while (true) {
+			long offset = offsets[slot];
+			if (offset == ABSENT) {
+				return ABSENT;
+			}
+			if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+				shiftBack(slot);
+				size--;
+				return offset;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	public void forEachOffset(LongConsumer consumer) {
+		for (long offset : offsets) {
+			if (offset != ABSENT) {
+				consumer.accept(offset);
+			}
+		}
+	}
+
+	public void clear() {
+		allocate(capacityFor(0));
+		size = 0;
+	}
+
+	/*
+	 * Backward shift deletion: entries following the freed slot within the same probe sequence are moved back,
+	 * so no tombstones are needed and lookups never probe further than necessary.
+	 */
+	private void shiftBack(int freed) {
+		int slot = freed;
+		while (true) {
+			slot = (slot + 1) & mask;
+			long offset = offsets[slot];
+			if (offset == ABSENT) {
+				break;
+			}
+			long high = keys[slot << 1];
+			long low = keys[(slot << 1) + 1];
+			int ideal = slot(high, low);
+			boolean reachable = freed <= slot ? freed < ideal && ideal <= slot : freed < ideal || ideal <= slot;
+			if (!reachable) {
+				keys[freed << 1] = high;
+				keys[(freed << 1) + 1] = low;
+				offsets[freed] = offset;
+				freed = slot;
+			}
+		}
+		offsets[freed] = ABSENT;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldOffsets = offsets;
+		allocate(capacity);
+		for (int i = 0; i < oldOffsets.length; i++) {
+			if (oldOffsets[i] != ABSENT) {
+				int slot = slot(oldKeys[i << 1], oldKeys[(i << 1) + 1]);
+				while (offsets[slot] != ABSENT) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot << 1] = oldKeys[i << 1];
+				keys[(slot << 1) + 1] = oldKeys[(i << 1) + 1];
+				offsets[slot] = oldOffsets[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity << 1];
+		offsets = new long[capacity];
+		Arrays.fill(offsets, ABSENT);
+		mask = capacity - 1;
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private int slot(long high, long low) {
+		long hash = high * 0x9E3779B97F4A7C15L ^ low;
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return (int) hash & mask;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = 16;
+		while (capacity * LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
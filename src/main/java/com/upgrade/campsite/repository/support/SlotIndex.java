@@ -0,0 +1,136 @@
+package com.upgrade.campsite.repository.support;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+
+/*
+ * Secondary indexes of the reservations stored in numbered slots: arrival date, departure date and status map to a
+ * bitset of slots each, and ids are kept in order, so that the query methods combine bitsets instead of scanning
+ * every reservation. Queries return matching slots, which the owning repository resolves to reservations.
+ * Not thread-safe, the owning repository guards every access.
+ */
+public final class SlotIndex {
+
+	private final NavigableMap<Long, BitSet> arrivals = new TreeMap<>();
+	private final NavigableMap<Long, BitSet> departures = new TreeMap<>();
+	private final Map<ReservationStatus, BitSet> statuses = new EnumMap<>(ReservationStatus.class);
+	private final NavigableMap<Long, Integer> slotsById = new TreeMap<>();
+
+	public SlotIndex() {
+		for (ReservationStatus status : ReservationStatus.values()) {
+			statuses.put(status, new BitSet());
+		}
+	}
+
+	public void add(Reservation reservation, int slot) {
+		arrivals.computeIfAbsent(reservation.getArrivalDate().toEpochDay(), day -> new BitSet()).set(slot);
+		departures.computeIfAbsent(reservation.getDepartureDate().toEpochDay(), day -> new BitSet()).set(slot);
+		statuses.get(reservation.getStatus()).set(slot);
+		slotsById.put(reservation.getId(), slot);
+	}
+
+	/**
+	 * @param reservation The reservation stored in the slot, as indexed
+	 * @param slot
+	 */
+	public void remove(Reservation reservation, int slot) {
+		clear(arrivals, reservation.getArrivalDate().toEpochDay(), slot);
+		clear(departures, reservation.getDepartureDate().toEpochDay(), slot);
+		statuses.get(reservation.getStatus()).clear(slot);
+		slotsById.remove(reservation.getId());
+	}
+
+	public void clear() {
+		arrivals.clear();
+		departures.clear();
+		statuses.values().forEach(BitSet::clear);
+		slotsById.clear();
+	}
+
+	/**
+	 * @return Slots in the given status or departing before the given date
+	 */
+	public BitSet inStatusOrDepartingBefore(ReservationStatus status, LocalDate departureDate) {
+		BitSet matching = (BitSet) statuses.get(status).clone();
+		departures.headMap(departureDate.toEpochDay(), false).values().forEach(matching::or);
+		return matching;
+	}
+
+	/**
+	 * @return Slots in the given status departing on or after the given date
+	 */
+	public BitSet inStatusDepartingFrom(ReservationStatus status, LocalDate departureDate) {
+		BitSet matching = new BitSet();
+		departures.tailMap(departureDate.toEpochDay(), true).values().forEach(matching::or);
+		matching.and(statuses.get(status));
+		return matching;
+	}
+
+	/**
+	 * @return Slots in the given status arriving on or before the first date and departing on or after the second one
+	 */
+	public BitSet inStatusStaying(ReservationStatus status, LocalDate arrivalDate, LocalDate departureDate) {
+		BitSet matching = inStatusDepartingFrom(status, departureDate);
+		BitSet arriving = new BitSet();
+		arrivals.headMap(arrivalDate.toEpochDay(), true).values().forEach(arriving::or);
+		matching.and(arriving);
+		return matching;
+	}
+
+	/**
+	 * Walk the matching slots in id order, starting after the given id
+	 * @param matching
+	 * @param afterId
+	 * @param limit
+	 * @return Up to limit slots, ordered by the id of their reservation
+	 */
+	public int[] inIdOrder(BitSet matching, long afterId, int limit) {
+		int[] found = new int[Math.min(limit, matching.cardinality())];
+		int count = 0;
+		for (int slot : slotsById.tailMap(afterId, false).values()) {
+			if (count == found.length) {
+				break;
+			}
+			if (matching.get(slot)) {
+				found[count++] = slot;
+			}
+		}
+		return count == found.length ? found : Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Page through the matching slots in slot order, which is stable as long as the slots don't change
+	 * @param matching
+	 * @param offset
+	 * @param size
+	 * @return The slots of the page
+	 */
+	public static int[] page(BitSet matching, long offset, int size) {
+		int[] found = new int[Math.min(size, matching.cardinality())];
+		int count = 0;
+		int slot = matching.nextSetBit(0);
+		for (long skipped = 0; skipped < offset && slot >= 0; skipped++) {
+			slot = matching.nextSetBit(slot + 1);
+		}
+		for (; slot >= 0 && count < size; slot = matching.nextSetBit(slot + 1)) {
+			found[count++] = slot;
+		}
+		return count == found.length ? found : Arrays.copyOf(found, count);
+	}
+
+	private static void clear(NavigableMap<Long, BitSet> index, long day, int slot) {
+		BitSet slots = index.get(day);
+		slots.clear(slot);
+		if (slots.isEmpty()) {
+			index.remove(day);
+		}
+	}
+}
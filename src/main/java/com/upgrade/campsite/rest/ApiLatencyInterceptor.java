@@ -0,0 +1,58 @@
+package com.upgrade.campsite.rest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.upgrade.campsite.metrics.LatencyRecorder;
+import com.upgrade.campsite.metrics.MetricsSource;
+
+/*
+ * Latency of every endpoint, by handler method name. Asynchronous requests are timed from their first dispatch
+ * until they complete on the dispatch back with their result.
+ */
+public class ApiLatencyInterceptor extends HandlerInterceptorAdapter implements MetricsSource {
+
+	private static final String START_ATTRIBUTE = ApiLatencyInterceptor.class.getName() + ".start";
+
+	private final Map<String, LatencyRecorder> latencies = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Object start = request.getAttribute(START_ATTRIBUTE);
+		if (start != null) {
+			latencies.computeIfAbsent(((HandlerMethod) handler).getMethod().getName(), name -> new LatencyRecorder())
+					.record(System.nanoTime() - (Long) start);
+		}
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "api";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public Map<String, LatencyRecorder> getLatencies() {
+		return latencies;
+	}
+}
@@ -0,0 +1,23 @@
+package com.upgrade.campsite.rest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/*
+ * Times the reservation api endpoints, published along with the other metrics
+ */
+@Configuration
+public class ApiMetricsConfiguration extends WebMvcConfigurerAdapter {
+
+	@Bean
+	public ApiLatencyInterceptor apiLatencyInterceptor() {
+		return new ApiLatencyInterceptor();
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(apiLatencyInterceptor()).addPathPatterns("/api/**");
+	}
+}
@@ -0,0 +1,74 @@
+package com.upgrade.campsite.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.upgrade.campsite.repository.statistics.JpaStatementStatistics;
+import com.upgrade.campsite.repository.statistics.JpaStatisticsConfiguration;
+
+/*
+ * Statements by operation, along with Hibernate's own session factory statistics. Clearing them before running a
+ * scenario gives its statement counts alone.
+ */
+@RestController
+@RequestMapping("/admin/jpa-statistics")
+@ConditionalOnProperty(name = JpaStatisticsConfiguration.ENABLED_PROPERTY)
+public class JpaStatisticsApi {
+
+	@Autowired
+	private JpaStatementStatistics statementStatistics;
+
+	@Autowired(required = false)
+	private EntityManagerFactory entityManagerFactory;
+
+	@GetMapping
+	public ResponseEntity<Map<String, Object>> readStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("operations", statementStatistics.getOperations());
+		Statistics hibernateStatistics = hibernateStatistics();
+		if (hibernateStatistics != null && hibernateStatistics.isStatisticsEnabled()) {
+			Map<String, Object> hibernate = new LinkedHashMap<>();
+			hibernate.put("transactionCount", hibernateStatistics.getTransactionCount());
+			hibernate.put("prepareStatementCount", hibernateStatistics.getPrepareStatementCount());
+			hibernate.put("flushCount", hibernateStatistics.getFlushCount());
+			hibernate.put("entityLoadCount", hibernateStatistics.getEntityLoadCount());
+			hibernate.put("entityFetchCount", hibernateStatistics.getEntityFetchCount());
+			hibernate.put("collectionFetchCount", hibernateStatistics.getCollectionFetchCount());
+			hibernate.put("queryExecutionCount", hibernateStatistics.getQueryExecutionCount());
+			hibernate.put("queryExecutionMaxTimeMillis", hibernateStatistics.getQueryExecutionMaxTime());
+			hibernate.put("queryExecutionMaxTimeQuery", hibernateStatistics.getQueryExecutionMaxTimeQueryString());
+			statistics.put("hibernate", hibernate);
+		}
+		return new ResponseEntity<Map<String, Object>>(statistics, HttpStatus.OK);
+	}
+
+	@DeleteMapping
+	public ResponseEntity<Void> clearStatistics() {
+		statementStatistics.clear();
+		Statistics hibernateStatistics = hibernateStatistics();
+		if (hibernateStatistics != null) {
+			hibernateStatistics.clear();
+		}
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+
+	/*
+	 * Null with the in-memory backend, which has no session factory
+	 */
+	private Statistics hibernateStatistics() {
+		return entityManagerFactory == null ? null : entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+}
@@ -0,0 +1,61 @@
+package com.upgrade.campsite.rest;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.upgrade.campsite.rest.advice.ErrorDto;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
+import com.upgrade.campsite.rest.json.BinaryHttpMessageConverter;
+import com.upgrade.campsite.rest.json.PreparedWriterHttpMessageConverter;
+
+/*
+ * Message converters of the api.
+ *
+ * The default Json converter is replaced (Spring Boot backs off when one is declared) with one holding prepared writers
+ * for the api response bodies. Internal clients can also negotiate CBOR (application/cbor) or Smile
+ * (application/x-jackson-smile), for responses through Accept and for reservation bodies through Content-Type.
+ * The binary converters come last, so Json stays the default for clients accepting anything.
+ */
+@Configuration
+public class MessageConverterConfiguration extends WebMvcConfigurerAdapter {
+
+	private static final Class<?>[] PREPARED_TYPES = { AvailabilityDto.class, ReservationDto.class, StayWindowsDto.class,
+			OccupancyDto.class, ErrorDto.class };
+
+	@Autowired
+	private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+	@Bean
+	public PreparedWriterHttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		return new PreparedWriterHttpMessageConverter(objectMapper, PREPARED_TYPES);
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(binaryConverter(new SmileFactory(), BinaryHttpMessageConverter.APPLICATION_SMILE));
+		converters.add(binaryConverter(new CBORFactory(), BinaryHttpMessageConverter.APPLICATION_CBOR));
+	}
+
+	/*
+	 * Same mapper settings as Json (Java time module, dates as strings...), on top of a binary factory
+	 */
+	private BinaryHttpMessageConverter binaryConverter(JsonFactory factory, MediaType mediaType) {
+		ObjectMapper objectMapper = new ObjectMapper(factory);
+		objectMapperBuilder.configure(objectMapper);
+		return new BinaryHttpMessageConverter(objectMapper, mediaType, PREPARED_TYPES);
+	}
+}
@@ -0,0 +1,53 @@
+package com.upgrade.campsite.rest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.upgrade.campsite.metrics.MetricsSource;
+import com.upgrade.campsite.metrics.PrometheusFormat;
+
+@RestController
+@RequestMapping("/admin")
+public class MetricsApi {
+
+	@Autowired(required = false)
+	private List<MetricsSource> metricsSources = Collections.emptyList();
+
+	/*
+	 * Latencies come as their count along with a few percentiles in microseconds, e.g. api.makeReservation.p99Micros
+	 */
+	@GetMapping("/metrics")
+	public ResponseEntity<Map<String, Number>> readMetrics() {
+		Map<String, Number> metrics = new TreeMap<>();
+		for (MetricsSource metricsSource : metricsSources) {
+			String prefix = metricsSource.getMetricsPrefix() + ".";
+			metricsSource.getMetrics().forEach((name, value) -> metrics.put(prefix + name, value));
+			metricsSource.getLatencies().forEach((name, latency) -> {
+				Histogram histogram = latency.snapshot();
+				metrics.put(prefix + name + ".count", histogram.getTotalCount());
+				metrics.put(prefix + name + ".p50Micros", histogram.getValueAtPercentile(50));
+				metrics.put(prefix + name + ".p99Micros", histogram.getValueAtPercentile(99));
+				metrics.put(prefix + name + ".maxMicros", histogram.getMaxValue());
+			});
+		}
+		return new ResponseEntity<Map<String, Number>>(metrics, HttpStatus.OK);
+	}
+
+	@GetMapping("/metrics/prometheus")
+	public ResponseEntity<String> readPrometheusMetrics() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.CONTENT_TYPE, PrometheusFormat.CONTENT_TYPE);
+		return new ResponseEntity<String>(PrometheusFormat.write(metricsSources), headers, HttpStatus.OK);
+	}
+}
@@ -0,0 +1,44 @@
+package com.upgrade.campsite.rest;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*
+ * Executor running the mutation endpoints (make, modify, cancel) of ReservationApi.
+ *
+ * Mutations wait on the calendar write lock and the database commit, so by default they run on a dedicated bounded pool
+ * and the request thread is released right away: a burst of bookings can't take all the server threads and starve the
+ * reads. Once the pool and its queue are full further mutations are rejected (503) instead of piling up.
+ * With campsite.mutations.async=false mutations run on the request thread, as plain synchronous handlers do.
+ */
+@Configuration
+public class MutationExecutorConfiguration {
+
+	public static final String MUTATION_EXECUTOR = "mutationExecutor";
+
+	@Bean(name = MUTATION_EXECUTOR)
+	@ConditionalOnProperty(name = "campsite.mutations.async", havingValue = "true", matchIfMissing = true)
+	public ThreadPoolTaskExecutor mutationExecutor(@Value("${campsite.mutations.pool-size:8}") int poolSize,
+												   @Value("${campsite.mutations.queue-capacity:256}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("mutation-");
+		// Accepted mutations are completed on shutdown
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	@Bean(name = MUTATION_EXECUTOR)
+	@ConditionalOnProperty(name = "campsite.mutations.async", havingValue = "false")
+	public Executor callerRunsMutationExecutor() {
+		return Runnable::run;
+	}
+}
@@ -1,9 +1,15 @@
 package com.upgrade.campsite.rest;
 
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,20 +18,38 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.upgrade.campsite.metrics.RequestTiming;
+import com.upgrade.campsite.metrics.RequestTiming.Phase;
 import com.upgrade.campsite.rest.dto.AvailabilityDto;
 import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+import com.upgrade.campsite.rest.dto.OccupancySearchDto;
 import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.dto.StaySearchDto;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
 import com.upgrade.campsite.service.ReservationService;
+import com.upgrade.campsite.service.admission.AdmissionLimiter;
+import com.upgrade.campsite.service.exception.ReservationServiceOverloadedException;
 
 @RestController
 @RequestMapping("/api")
 public class ReservationApi {
 
+	private static final long UNMATCHABLE_VERSION = -1L;
+	private static final String OVERLOADED_MESSAGE = "Too many reservation changes are waiting to be processed. Please retry later.";
+
 	@Autowired
 	private ReservationService reservationService;
+	@Autowired
+	@Qualifier(MutationExecutorConfiguration.MUTATION_EXECUTOR)
+	private Executor mutationExecutor;
+	@Autowired
+	private AdmissionLimiter admissionLimiter;
 
 	@GetMapping("/reservations")
 	public ResponseEntity<AvailabilityDto> readAvailability(@Valid DateRangeDto dateRangeDto) {
@@ -33,27 +57,134 @@ public class ReservationApi {
 		return new ResponseEntity<AvailabilityDto>(availabilityDto, HttpStatus.OK);
 	}
 
+	@GetMapping("/reservations/windows")
+	public ResponseEntity<StayWindowsDto> findStayWindows(@Valid StaySearchDto staySearchDto) {
+		StayWindowsDto stayWindowsDto = reservationService.findStayWindows(staySearchDto);
+		return new ResponseEntity<StayWindowsDto>(stayWindowsDto, HttpStatus.OK);
+	}
+
+	@GetMapping("/reservations/occupancy")
+	public ResponseEntity<OccupancyDto> readOccupancy(@Valid OccupancySearchDto occupancySearchDto) {
+		OccupancyDto occupancyDto = reservationService.readOccupancy(occupancySearchDto);
+		return new ResponseEntity<OccupancyDto>(occupancyDto, HttpStatus.OK);
+	}
+
 	@PostMapping("/reservations")
-	public ResponseEntity<ReservationDto> makeReservation(@RequestBody @Valid ReservationDto reservationDto) {
-		ReservationDto createdReservationDto = reservationService.makeReservation(reservationDto);
-		return new ResponseEntity<ReservationDto>(createdReservationDto, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<ReservationDto>> makeReservation(@RequestBody @Valid ReservationDto reservationDto) {
+		return mutate(() -> {
+			ReservationDto createdReservationDto = reservationService.makeReservation(reservationDto);
+			return new ResponseEntity<ReservationDto>(createdReservationDto, eTag(createdReservationDto), HttpStatus.OK);
+		});
 	}
 
 	@PutMapping("/reservations/{id}")
-	public ResponseEntity<ReservationDto> modifyReservation(@PathVariable String id, @RequestBody @Valid ReservationDto reservationDto) {
-		ReservationDto updatedReservationDto = reservationService.modifyReservation(id, reservationDto);
-		return new ResponseEntity<ReservationDto>(updatedReservationDto, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<ReservationDto>> modifyReservation(@PathVariable String id,
+																			@RequestBody @Valid ReservationDto reservationDto,
+																			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Long expectedVersion = expectedVersion(ifMatch);
+		return mutate(() -> {
+			ReservationDto updatedReservationDto = reservationService.modifyReservation(id, reservationDto, expectedVersion);
+			return new ResponseEntity<ReservationDto>(updatedReservationDto, eTag(updatedReservationDto), HttpStatus.OK);
+		});
 	}
 
 	@DeleteMapping("/reservations/{id}")
-	public ResponseEntity<HttpStatus> cancelReservation(@PathVariable String id) {
-		reservationService.cancelReservation(id);
-		return new ResponseEntity<HttpStatus>(HttpStatus.OK);
+	public DeferredResult<ResponseEntity<HttpStatus>> cancelReservation(@PathVariable String id,
+																		@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Long expectedVersion = expectedVersion(ifMatch);
+		return mutate(() -> {
+			reservationService.cancelReservation(id, expectedVersion);
+			return new ResponseEntity<HttpStatus>(HttpStatus.OK);
+		});
 	}
 
 	@GetMapping("/reservations/{id}")
 	public ResponseEntity<ReservationDto> readReservation(@PathVariable String id) {
 		ReservationDto reservationDto = reservationService.readReservation(id);
-		return new ResponseEntity<ReservationDto>(reservationDto, HttpStatus.OK);
+		return new ResponseEntity<ReservationDto>(reservationDto, eTag(reservationDto), HttpStatus.OK);
+	}
+
+	/*
+	 * Runs a mutation on the mutation executor. Its outcome, response or exception, is handed back to Spring MVC which
+	 * then completes the request as usual (exceptions go through the controller advice). The request timing follows the
+	 * mutation to the executor.
+	 * Admission control happens right here, on the request thread, so that the limit covers the mutations queued for
+	 * the executor too: excess ones are rejected (429) well before the executor is full (503), and the latency of every
+	 * mutation is measured from admission to completion, queueing included.
+	 */
+	private <T> DeferredResult<T> mutate(Supplier<T> mutation) {
+		if (!admissionLimiter.tryAcquire()) {
+			throw new ReservationServiceOverloadedException(OVERLOADED_MESSAGE, admissionLimiter.retryAfterSeconds());
+		}
+		DeferredResult<T> result = new DeferredResult<>();
+		RequestTiming timing = RequestTiming.current();
+		long submitted = System.nanoTime();
+		try {
+			mutationExecutor.execute(() -> {
+				// Already bound when mutations run on the request thread
+				boolean bound = timing != null && RequestTiming.current() != timing;
+				if (bound) {
+					RequestTiming.bind(timing);
+				}
+				RequestTiming.since(Phase.QUEUE, submitted);
+				T response = null;
+				Throwable error = null;
+				try {
+					response = mutation.get();
+				} catch (Throwable ex) {
+					// Errors included, the request would otherwise hang until the async timeout
+					error = ex;
+				} finally {
+					if (bound) {
+						RequestTiming.unbind();
+					}
+					// Released before the request completes, a client reading the response sees the mutation done
+					admissionLimiter.release(System.nanoTime() - submitted);
+				}
+				if (error == null) {
+					result.setResult(response);
+				} else {
+					result.setErrorResult(error);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// Never ran, the limit is left as is
+			admissionLimiter.cancel();
+			throw ex;
+		}
+		return result;
+	}
+
+	/*
+	 * The reservation version is exposed as its entity tag
+	 */
+	private HttpHeaders eTag(ReservationDto reservationDto) {
+		HttpHeaders headers = new HttpHeaders();
+		if (reservationDto.getVersion() != null) {
+			headers.setETag("\"" + reservationDto.getVersion() + "\"");
+		}
+		return headers;
+	}
+
+	/*
+	 * Maps an If-Match header to the expected reservation version: none or a wildcard mean no expectation,
+	 * whereas a tag which is not a version can't match any reservation.
+	 */
+	private Long expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+		if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			tag = tag.substring(1, tag.length() - 1);
+		}
+		try {
+			return Long.valueOf(tag);
+		} catch (NumberFormatException e) {
+			return UNMATCHABLE_VERSION;
+		}
 	}
 }
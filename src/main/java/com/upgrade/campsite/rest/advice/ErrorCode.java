@@ -2,5 +2,7 @@ package com.upgrade.campsite.rest.advice;
 
 public enum ErrorCode {
 	INVALID_PARAMETERS,
-	MISSING_PARAMETERS
+	MISSING_PARAMETERS,
+	SERVER_BUSY,
+	RATE_LIMITED
 }
@@ -1,8 +1,9 @@
 package com.upgrade.campsite.rest.advice;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.upgrade.campsite.rest.json.ErrorDtoSerializer;
 
-@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonSerialize(using = ErrorDtoSerializer.class)
 public class ErrorDto {
 
 	private Integer status;
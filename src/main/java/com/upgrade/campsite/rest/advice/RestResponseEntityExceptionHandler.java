@@ -2,11 +2,15 @@ package com.upgrade.campsite.rest.advice;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.PostConstruct;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,31 +25,81 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableMap;
+import com.upgrade.campsite.rest.ratelimit.RateLimitExceededException;
+import com.upgrade.campsite.service.ReservationServiceMetrics;
 import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
 import com.upgrade.campsite.service.exception.ReservationServiceException;
+import com.upgrade.campsite.service.exception.ReservationServiceOverloadedException;
 
 @ControllerAdvice
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
 	public static final String MALFORMED_DATE_ERROR_MESSAGE = "Dates must be properly formatted in the pattern of yyyy-MM-dd, e.g: 2019-03-30";
+	public static final String MALFORMED_NUMBER_ERROR_MESSAGE = "Numeric parameters must be whole numbers, e.g: 3";
+	public static final String INVALID_VALUE_ERROR_MESSAGE = "Parameters must take one of their documented values, e.g: granularity=WEEK";
 	public static final String ID_MISSING_ERROR_MESSAGE = "Id is missing in URL";
+	public static final String CONCURRENT_MODIFICATION_ERROR_MESSAGE = "The reservation has been modified concurrently. Please read it again and retry.";
+	public static final String BUSY_ERROR_MESSAGE = "Too many reservation changes are being processed. Please retry later.";
+
+	@Autowired
+	private ReservationServiceMetrics reservationServiceMetrics;
 
 	private Map<ReservationServiceErrorCode, HttpStatus> reservationServiceErrorMapping;
 
 	@PostConstruct
 	private void initialize() {
-		reservationServiceErrorMapping = ImmutableMap.<ReservationServiceErrorCode, HttpStatus>builder()
-				.put(ReservationServiceErrorCode.UNAVAILABLE_DATES, HttpStatus.FORBIDDEN)
-				.put(ReservationServiceErrorCode.RESERVATION_EXPIRED, HttpStatus.FORBIDDEN)
-				.put(ReservationServiceErrorCode.RESERVATION_NOT_FOUND, HttpStatus.NOT_FOUND)
-				.build();
+		// Looked up on every rejected request, an EnumMap lookup is a plain array access
+		reservationServiceErrorMapping = new EnumMap<>(ReservationServiceErrorCode.class);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.UNAVAILABLE_DATES, HttpStatus.FORBIDDEN);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.RESERVATION_EXPIRED, HttpStatus.FORBIDDEN);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.RESERVATION_NOT_FOUND, HttpStatus.NOT_FOUND);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.VERSION_MISMATCH, HttpStatus.PRECONDITION_FAILED);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+		reservationServiceErrorMapping.put(ReservationServiceErrorCode.OVERLOADED, HttpStatus.TOO_MANY_REQUESTS);
 	}
 
 	@ExceptionHandler(value = {ReservationServiceException.class})
 	public ResponseEntity<Object> handleReservationServiceException(ReservationServiceException ex, WebRequest request) {
+		reservationServiceMetrics.rejected(ex.getErrorCode());
 		HttpStatus status = reservationServiceErrorMapping.get(ex.getErrorCode());
 		ErrorDto errorDto = buildErrorDto(status, ex.getErrorCode().name(), ex.getMessage());
+		HttpHeaders headers = new HttpHeaders();
+		if (ex instanceof ReservationServiceOverloadedException) {
+			headers.set(HttpHeaders.RETRY_AFTER, Long.toString(((ReservationServiceOverloadedException) ex).getRetryAfterSeconds()));
+		}
+		return handleExceptionInternal(ex, errorDto, headers, status, request);
+	}
+
+	/*
+	 * Handles version conflicts detected at commit time, after the service returned
+	 */
+	@ExceptionHandler(value = {ConcurrencyFailureException.class})
+	public ResponseEntity<Object> handleConcurrencyFailureException(ConcurrencyFailureException ex, WebRequest request) {
+		reservationServiceMetrics.rejected(ReservationServiceErrorCode.CONCURRENT_MODIFICATION);
+		HttpStatus status = HttpStatus.CONFLICT;
+		ErrorDto errorDto = buildErrorDto(status, ReservationServiceErrorCode.CONCURRENT_MODIFICATION.name(), CONCURRENT_MODIFICATION_ERROR_MESSAGE);
+		return handleExceptionInternal(ex, errorDto, new HttpHeaders(), status, request);
+	}
+
+	/*
+	 * Handles clients over their rate limit
+	 */
+	@ExceptionHandler(value = {RateLimitExceededException.class})
+	public ResponseEntity<Object> handleRateLimitExceededException(RateLimitExceededException ex, WebRequest request) {
+		HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+		ErrorDto errorDto = buildErrorDto(status, ErrorCode.RATE_LIMITED.name(), ex.getMessage());
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+		return handleExceptionInternal(ex, errorDto, headers, status, request);
+	}
+
+	/*
+	 * Handles mutations rejected by a full mutation executor
+	 */
+	@ExceptionHandler(value = {RejectedExecutionException.class})
+	public ResponseEntity<Object> handleRejectedExecutionException(RejectedExecutionException ex, WebRequest request) {
+		HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+		ErrorDto errorDto = buildErrorDto(status, ErrorCode.SERVER_BUSY.name(), BUSY_ERROR_MESSAGE);
 		return handleExceptionInternal(ex, errorDto, new HttpHeaders(), status, request);
 	}
 
@@ -72,10 +126,11 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
 	}
 
 	/*
-	 * Handles validation errors on DateRangeDto fields (mapped from request params):
-	 * - malformed dates
+	 * Handles validation errors on DateRangeDto, StaySearchDto and OccupancySearchDto fields (mapped from request params):
+	 * - malformed dates, numbers or granularity
 	 * - missing dates
 	 * - invalid date range
+	 * - missing or out of range stay length and limit
 	 */
 	@Override
 	protected ResponseEntity<Object> handleBindException(
@@ -85,24 +140,32 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
 			WebRequest request) {
 
 		List<ObjectError> errors = ex.getBindingResult().getAllErrors();
-		String message = MALFORMED_DATE_ERROR_MESSAGE;
-
-		boolean isDateFormatErrorPresent = errors.stream()
-				.flatMap(error -> Arrays.stream(error.getCodes()))
-				.anyMatch(code -> code.equalsIgnoreCase("typeMismatch"));
-
-		if (!isDateFormatErrorPresent) {
+		String message;
+
+		if (hasErrorCode(errors, "typeMismatch.java.time.LocalDate")) {
+			message = MALFORMED_DATE_ERROR_MESSAGE;
+		} else if (hasErrorCode(errors, "typeMismatch.java.lang.Integer")) {
+			message = MALFORMED_NUMBER_ERROR_MESSAGE;
+		} else if (hasErrorCode(errors, "typeMismatch")) {
+			message = INVALID_VALUE_ERROR_MESSAGE;
+		} else {
 			message = errors.stream()
 					.filter(error -> Arrays.stream(error.getCodes())
 							.anyMatch(code -> code.equalsIgnoreCase("AvailabilityDateRange")))
 					.findFirst()
-					.orElse(null)
-					.getDefaultMessage();
+					.map(ObjectError::getDefaultMessage)
+					.orElseGet(() -> Joiner.on(". ").join(errors.stream().map(ObjectError::getDefaultMessage).distinct().iterator()));
 		}
 		ErrorDto errorDto = buildErrorDto(status, ErrorCode.INVALID_PARAMETERS.name(), message);
 		return handleExceptionInternal(ex, errorDto, new HttpHeaders(), status, request);
 	}
 
+	private static boolean hasErrorCode(List<ObjectError> errors, String errorCode) {
+		return errors.stream()
+				.flatMap(error -> Arrays.stream(error.getCodes()))
+				.anyMatch(code -> code.equalsIgnoreCase(errorCode));
+	}
+
 	/*
 	 * Handles validation errors on ReservationDto date fields (mapped from request body):
 	 * - malformed dates
@@ -1,26 +1,34 @@
 package com.upgrade.campsite.rest.dto;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.upgrade.campsite.rest.json.AvailabilityDtoSerializer;
 
+/*
+ * Available dates are held as epoch days, which the serializer writes out as ISO dates directly
+ */
+@JsonSerialize(using = AvailabilityDtoSerializer.class)
 public class AvailabilityDto {
 
+	private static final int[] NO_DAYS = new int[0];
+
 	@JsonFormat(pattern = "yyyy-MM-dd")
 	private LocalDate startDate;
 	@JsonFormat(pattern = "yyyy-MM-dd")
 	private LocalDate endDate;
-	@JsonFormat(pattern = "yyyy-MM-dd")
-	private List<LocalDate> availableDates;
+	private int[] availableEpochDays = NO_DAYS;
 
 	public AvailabilityDto() {
 	}
 
-	public AvailabilityDto(LocalDate startDate, LocalDate endDate, List<LocalDate> availableDates) {
+	public AvailabilityDto(LocalDate startDate, LocalDate endDate, int[] availableEpochDays) {
 		this.startDate = startDate;
 		this.endDate = endDate;
-		this.availableDates = availableDates;
+		this.availableEpochDays = availableEpochDays;
 	}
 
 	public LocalDate getStartDate() {
@@ -39,11 +47,19 @@ public class AvailabilityDto {
 		this.endDate = endDate;
 	}
 
+	public int[] getAvailableEpochDays() {
+		return availableEpochDays;
+	}
+
 	public List<LocalDate> getAvailableDates() {
+		List<LocalDate> availableDates = new ArrayList<>(availableEpochDays.length);
+		for (int epochDay : availableEpochDays) {
+			availableDates.add(LocalDate.ofEpochDay(epochDay));
+		}
 		return availableDates;
 	}
 
 	public void setAvailableDates(List<LocalDate> availableDates) {
-		this.availableDates = availableDates;
+		availableEpochDays = availableDates.stream().mapToInt(date -> (int) date.toEpochDay()).toArray();
 	}
 }
@@ -5,9 +5,10 @@ import java.time.LocalDate;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.upgrade.campsite.rest.validation.AvailabilityDateRange;
+import com.upgrade.campsite.rest.validation.DateRange;
 
 @AvailabilityDateRange(startDate = "startDate", endDate = "endDate")
-public class DateRangeDto {
+public class DateRangeDto implements DateRange {
 
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate startDate;
@@ -34,6 +35,16 @@ public class DateRangeDto {
 		this.endDate = endDate;
 	}
 
+	@Override
+	public LocalDate rangeStart() {
+		return startDate;
+	}
+
+	@Override
+	public LocalDate rangeEnd() {
+		return endDate;
+	}
+
 	public DateRangeDto startDate(LocalDate startDate) {
 		this.startDate = startDate;
 		return this;
@@ -0,0 +1,42 @@
+package com.upgrade.campsite.rest.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.upgrade.campsite.rest.json.OccupancyDtoSerializer;
+
+/*
+ * Buckets are held as their bounds in epoch days, bucket i going from bounds[i] to bounds[i + 1] - 1, along with
+ * their booked date counts
+ */
+@JsonSerialize(using = OccupancyDtoSerializer.class)
+public class OccupancyDto {
+
+	private final OccupancyGranularity granularity;
+	private final int[] bounds;
+	private final int[] booked;
+
+	public OccupancyDto(OccupancyGranularity granularity, int[] bounds, int[] booked) {
+		this.granularity = granularity;
+		this.bounds = bounds;
+		this.booked = booked;
+	}
+
+	public OccupancyGranularity getGranularity() {
+		return granularity;
+	}
+
+	public int[] getBounds() {
+		return bounds;
+	}
+
+	public int[] getBooked() {
+		return booked;
+	}
+
+	public int getBucketCount() {
+		return booked.length;
+	}
+
+	public int getFree(int bucket) {
+		return bounds[bucket + 1] - bounds[bucket] - booked[bucket];
+	}
+}
@@ -0,0 +1,36 @@
+package com.upgrade.campsite.rest.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/*
+ * Bucket size of the occupancy summary. Weeks start on Monday and months on their first day, the first and last
+ * buckets being cut to the requested range.
+ */
+public enum OccupancyGranularity {
+
+	DAY {
+		@Override
+		public LocalDate nextBucket(LocalDate date) {
+			return date.plusDays(1);
+		}
+	},
+	WEEK {
+		@Override
+		public LocalDate nextBucket(LocalDate date) {
+			return date.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+		}
+	},
+	MONTH {
+		@Override
+		public LocalDate nextBucket(LocalDate date) {
+			return date.with(TemporalAdjusters.firstDayOfNextMonth());
+		}
+	};
+
+	/**
+	 * @return The first date of the bucket following the one of the given date
+	 */
+	public abstract LocalDate nextBucket(LocalDate date);
+}
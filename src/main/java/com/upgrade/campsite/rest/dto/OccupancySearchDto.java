@@ -0,0 +1,71 @@
+package com.upgrade.campsite.rest.dto;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.upgrade.campsite.rest.validation.AvailabilityDateRange;
+import com.upgrade.campsite.rest.validation.DateRange;
+
+@AvailabilityDateRange(startDate = "startDate", endDate = "endDate")
+public class OccupancySearchDto implements DateRange {
+
+	@DateTimeFormat(pattern = "yyyy-MM-dd")
+	private LocalDate startDate;
+	@DateTimeFormat(pattern = "yyyy-MM-dd")
+	private LocalDate endDate;
+	private OccupancyGranularity granularity = OccupancyGranularity.DAY;
+
+	public boolean isNullDates() {
+		return startDate == null && endDate == null;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public void setStartDate(LocalDate startDate) {
+		this.startDate = startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public void setEndDate(LocalDate endDate) {
+		this.endDate = endDate;
+	}
+
+	public OccupancyGranularity getGranularity() {
+		return granularity;
+	}
+
+	public void setGranularity(OccupancyGranularity granularity) {
+		this.granularity = granularity;
+	}
+
+	@Override
+	public LocalDate rangeStart() {
+		return startDate;
+	}
+
+	@Override
+	public LocalDate rangeEnd() {
+		return endDate;
+	}
+
+	public OccupancySearchDto startDate(LocalDate startDate) {
+		this.startDate = startDate;
+		return this;
+	}
+
+	public OccupancySearchDto endDate(LocalDate endDate) {
+		this.endDate = endDate;
+		return this;
+	}
+
+	public OccupancySearchDto granularity(OccupancyGranularity granularity) {
+		this.granularity = granularity;
+		return this;
+	}
+}
@@ -9,11 +9,16 @@ import org.hibernate.validator.constraints.NotBlank;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.upgrade.campsite.rest.json.ReservationDtoSerializer;
 import com.upgrade.campsite.rest.validation.BookingDateRange;
+import com.upgrade.campsite.rest.validation.DateRange;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonSerialize(using = ReservationDtoSerializer.class)
 @BookingDateRange(arrivalDate = "arrivalDate", departureDate = "departureDate")
-public class ReservationDto {
+public class ReservationDto implements DateRange {
 
 	private String uuid;
 
@@ -32,6 +37,21 @@ public class ReservationDto {
 	@JsonFormat(pattern = "yyyy-MM-dd")
 	private LocalDate departureDate;
 
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long version;
+
+	public ReservationDto() {
+	}
+
+	public ReservationDto(String uuid, String email, String fullName, LocalDate arrivalDate, LocalDate departureDate, Long version) {
+		this.uuid = uuid;
+		this.email = email;
+		this.fullName = fullName;
+		this.arrivalDate = arrivalDate;
+		this.departureDate = departureDate;
+		this.version = version;
+	}
+
 	public String getUuid() {
 		return uuid;
 	}
@@ -52,6 +72,20 @@ public class ReservationDto {
 		return departureDate;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	@Override
+	public LocalDate rangeStart() {
+		return arrivalDate;
+	}
+
+	@Override
+	public LocalDate rangeEnd() {
+		return departureDate;
+	}
+
 	public ReservationDto uuid(String uuid) {
 		this.uuid = uuid;
 		return this;
@@ -76,4 +110,9 @@ public class ReservationDto {
 		this.departureDate = departureDate;
 		return this;
 	}
+
+	public ReservationDto version(Long version) {
+		this.version = version;
+		return this;
+	}
 }
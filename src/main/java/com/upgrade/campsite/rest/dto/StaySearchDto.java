@@ -0,0 +1,45 @@
+package com.upgrade.campsite.rest.dto;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class StaySearchDto {
+
+	public static final int DEFAULT_LIMIT = 5;
+
+	@NotNull(message = "Parameter 'days' is required")
+	@Min(value = 1, message = "Stays last between 1 and 3 days")
+	@Max(value = 3, message = "Stays last between 1 and 3 days")
+	private Integer days;
+
+	@Min(value = 1, message = "Parameter 'limit' must be between 1 and 30")
+	@Max(value = 30, message = "Parameter 'limit' must be between 1 and 30")
+	private Integer limit = DEFAULT_LIMIT;
+
+	public Integer getDays() {
+		return days;
+	}
+
+	public void setDays(Integer days) {
+		this.days = days;
+	}
+
+	public Integer getLimit() {
+		return limit;
+	}
+
+	public void setLimit(Integer limit) {
+		this.limit = limit;
+	}
+
+	public StaySearchDto days(Integer days) {
+		this.days = days;
+		return this;
+	}
+
+	public StaySearchDto limit(Integer limit) {
+		this.limit = limit;
+		return this;
+	}
+}
@@ -0,0 +1,40 @@
+package com.upgrade.campsite.rest.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.upgrade.campsite.rest.json.StayWindowsDtoSerializer;
+
+/*
+ * Stay windows are held as the epoch days of their arrival, which the serializer writes out as arrival and
+ * departure ISO dates
+ */
+@JsonSerialize(using = StayWindowsDtoSerializer.class)
+public class StayWindowsDto {
+
+	private final int days;
+	private final int[] arrivalEpochDays;
+
+	public StayWindowsDto(int days, int[] arrivalEpochDays) {
+		this.days = days;
+		this.arrivalEpochDays = arrivalEpochDays;
+	}
+
+	public int getDays() {
+		return days;
+	}
+
+	public int[] getArrivalEpochDays() {
+		return arrivalEpochDays;
+	}
+
+	public List<LocalDate> getArrivalDates() {
+		List<LocalDate> arrivalDates = new ArrayList<>(arrivalEpochDays.length);
+		for (int epochDay : arrivalEpochDays) {
+			arrivalDates.add(LocalDate.ofEpochDay(epochDay));
+		}
+		return arrivalDates;
+	}
+}
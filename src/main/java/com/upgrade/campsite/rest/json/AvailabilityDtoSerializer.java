@@ -0,0 +1,52 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+
+/*
+ * Writes AvailabilityDto without bean introspection nor intermediate dates: available dates go from the epoch days
+ * kept by the dto straight to the generator, through a single scratch buffer.
+ */
+public class AvailabilityDtoSerializer extends StdSerializer<AvailabilityDto> {
+
+	private static final SerializedString START_DATE = new SerializedString("startDate");
+	private static final SerializedString END_DATE = new SerializedString("endDate");
+	private static final SerializedString AVAILABLE_DATES = new SerializedString("availableDates");
+
+	public AvailabilityDtoSerializer() {
+		super(AvailabilityDto.class);
+	}
+
+	@Override
+	public void serialize(AvailabilityDto availabilityDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		char[] buffer = new char[IsoDates.LENGTH];
+		int[] availableEpochDays = availabilityDto.getAvailableEpochDays();
+
+		generator.writeStartObject();
+		generator.writeFieldName(START_DATE);
+		writeDate(generator, availabilityDto.getStartDate(), buffer);
+		generator.writeFieldName(END_DATE);
+		writeDate(generator, availabilityDto.getEndDate(), buffer);
+		generator.writeFieldName(AVAILABLE_DATES);
+		generator.writeStartArray(availableEpochDays.length);
+		for (int epochDay : availableEpochDays) {
+			IsoDates.writeEpochDay(generator, epochDay, buffer);
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+
+	private static void writeDate(JsonGenerator generator, LocalDate date, char[] buffer) throws IOException {
+		if (date == null) {
+			generator.writeNull();
+		} else {
+			IsoDates.writeDate(generator, date, buffer);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Reads and writes a binary Jackson format (CBOR, Smile), given by the factory of the object mapper. Bodies go
+ * through the same serializers as Json, and the most frequent ones through prepared writers.
+ */
+public class BinaryHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+	public static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+	public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+	private final PreparedWriters writers;
+
+	public BinaryHttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType, Class<?>... preparedTypes) {
+		super(objectMapper, mediaType);
+		this.writers = new PreparedWriters(objectMapper, preparedTypes);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		// Binary generators ignore the encoding
+		if (!writers.write(object, outputMessage, JsonEncoding.UTF8)) {
+			super.writeInternal(object, type, outputMessage);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.upgrade.campsite.rest.advice.ErrorCode;
+import com.upgrade.campsite.rest.advice.ErrorDto;
+import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
+
+/*
+ * Writes ErrorDto without going through bean introspection. Field names, along with the status and error code values
+ * (all of them enum names known upfront), are pre-encoded once, so only the number and the message are encoded
+ * per response. Null fields are left out, as with JsonInclude.Include.NON_NULL.
+ */
+public class ErrorDtoSerializer extends StdSerializer<ErrorDto> {
+
+	private static final SerializedString STATUS = new SerializedString("status");
+	private static final SerializedString STATUS_CODE = new SerializedString("statusCode");
+	private static final SerializedString ERROR_CODE = new SerializedString("errorCode");
+	private static final SerializedString MESSAGE = new SerializedString("message");
+
+	private static final Map<String, SerializedString> CODES = new HashMap<>();
+
+	static {
+		for (HttpStatus status : HttpStatus.values()) {
+			CODES.put(status.name(), new SerializedString(status.name()));
+		}
+		for (ErrorCode errorCode : ErrorCode.values()) {
+			CODES.put(errorCode.name(), new SerializedString(errorCode.name()));
+		}
+		for (ReservationServiceErrorCode errorCode : ReservationServiceErrorCode.values()) {
+			CODES.put(errorCode.name(), new SerializedString(errorCode.name()));
+		}
+	}
+
+	public ErrorDtoSerializer() {
+		super(ErrorDto.class);
+	}
+
+	@Override
+	public void serialize(ErrorDto errorDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		generator.writeStartObject();
+		if (errorDto.getStatus() != null) {
+			generator.writeFieldName(STATUS);
+			generator.writeNumber(errorDto.getStatus());
+		}
+		writeCode(generator, STATUS_CODE, errorDto.getStatusCode());
+		writeCode(generator, ERROR_CODE, errorDto.getErrorCode());
+		if (errorDto.getMessage() != null) {
+			generator.writeFieldName(MESSAGE);
+			generator.writeString(errorDto.getMessage());
+		}
+		generator.writeEndObject();
+	}
+
+	private static void writeCode(JsonGenerator generator, SerializedString fieldName, String code) throws IOException {
+		if (code == null) {
+			return;
+		}
+		generator.writeFieldName(fieldName);
+		SerializedString serializedCode = CODES.get(code);
+		if (serializedCode != null) {
+			generator.writeString(serializedCode);
+		} else {
+			generator.writeString(code);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/*
+ * Writes dates as ISO strings (yyyy-MM-dd) straight into a generator, from epoch days or date fields, without going
+ * through LocalDate.toString() or a formatter. The epoch day conversion is the one of LocalDate.ofEpochDay, it's only
+ * taken for four digit years (everything this application deals with), other dates fall back to LocalDate.
+ */
+public final class IsoDates {
+
+	static final int LENGTH = 10;
+
+	private static final long FIRST_EPOCH_DAY = LocalDate.of(1, 1, 1).toEpochDay();
+	private static final long LAST_EPOCH_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+	private static final long DAYS_0000_TO_1970 = 719528L;
+	private static final long DAYS_PER_CYCLE = 146097L;
+
+	private IsoDates() {
+	}
+
+	/**
+	 * @param buffer scratch space of at least {@link #LENGTH} chars, it can be reused between calls
+	 */
+	public static void writeEpochDay(JsonGenerator generator, long epochDay, char[] buffer) throws IOException {
+		if (epochDay < FIRST_EPOCH_DAY || epochDay > LAST_EPOCH_DAY) {
+			generator.writeString(LocalDate.ofEpochDay(epochDay).toString());
+			return;
+		}
+		long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+		long year = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+		long dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+		if (dayOfYear < 0) {
+			year--;
+			dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+		}
+		int marchMonth = ((int) dayOfYear * 5 + 2) / 153;
+		int month = (marchMonth + 2) % 12 + 1;
+		int day = (int) dayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+		year += marchMonth / 10;
+
+		generator.writeString(buffer, 0, format((int) year, month, day, buffer));
+	}
+
+	public static void writeDate(JsonGenerator generator, LocalDate date, char[] buffer) throws IOException {
+		int year = date.getYear();
+		if (year < 1 || year > 9999) {
+			generator.writeString(date.toString());
+			return;
+		}
+		generator.writeString(buffer, 0, format(year, date.getMonthValue(), date.getDayOfMonth(), buffer));
+	}
+
+	static int format(int year, int month, int day, char[] buffer) {
+		buffer[0] = (char) ('0' + year / 1000);
+		buffer[1] = (char) ('0' + year / 100 % 10);
+		buffer[2] = (char) ('0' + year / 10 % 10);
+		buffer[3] = (char) ('0' + year % 10);
+		buffer[4] = '-';
+		buffer[5] = (char) ('0' + month / 10);
+		buffer[6] = (char) ('0' + month % 10);
+		buffer[7] = '-';
+		buffer[8] = (char) ('0' + day / 10);
+		buffer[9] = (char) ('0' + day % 10);
+		return LENGTH;
+	}
+}
@@ -0,0 +1,54 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+
+/*
+ * Writes each occupancy bucket as its first and last dates, straight from the bucket bounds, with its free and
+ * booked date counts
+ */
+public class OccupancyDtoSerializer extends StdSerializer<OccupancyDto> {
+
+	private static final SerializedString GRANULARITY = new SerializedString("granularity");
+	private static final SerializedString BUCKETS = new SerializedString("buckets");
+	private static final SerializedString START_DATE = new SerializedString("startDate");
+	private static final SerializedString END_DATE = new SerializedString("endDate");
+	private static final SerializedString FREE = new SerializedString("free");
+	private static final SerializedString BOOKED = new SerializedString("booked");
+
+	public OccupancyDtoSerializer() {
+		super(OccupancyDto.class);
+	}
+
+	@Override
+	public void serialize(OccupancyDto occupancyDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		char[] buffer = new char[IsoDates.LENGTH];
+		int[] bounds = occupancyDto.getBounds();
+		int[] booked = occupancyDto.getBooked();
+
+		generator.writeStartObject();
+		generator.writeFieldName(GRANULARITY);
+		generator.writeString(occupancyDto.getGranularity().name());
+		generator.writeFieldName(BUCKETS);
+		generator.writeStartArray(booked.length);
+		for (int bucket = 0; bucket < booked.length; bucket++) {
+			generator.writeStartObject();
+			generator.writeFieldName(START_DATE);
+			IsoDates.writeEpochDay(generator, bounds[bucket], buffer);
+			generator.writeFieldName(END_DATE);
+			IsoDates.writeEpochDay(generator, bounds[bucket + 1] - 1, buffer);
+			generator.writeFieldName(FREE);
+			generator.writeNumber(occupancyDto.getFree(bucket));
+			generator.writeFieldName(BOOKED);
+			generator.writeNumber(booked[bucket]);
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+}
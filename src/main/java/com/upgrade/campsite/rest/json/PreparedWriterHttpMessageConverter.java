@@ -0,0 +1,30 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Json converter which writes the most frequent response bodies through prepared writers, any other body goes the
+ * usual way
+ */
+public class PreparedWriterHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	private final PreparedWriters writers;
+
+	public PreparedWriterHttpMessageConverter(ObjectMapper objectMapper, Class<?>... preparedTypes) {
+		super(objectMapper);
+		this.writers = new PreparedWriters(objectMapper, preparedTypes);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		if (!writers.write(object, outputMessage, getJsonEncoding(outputMessage.getHeaders().getContentType()))) {
+			super.writeInternal(object, type, outputMessage);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/*
+ * ObjectWriter instances prepared upfront for the most frequent response bodies, their root serializer is then
+ * resolved once instead of being looked up on every response.
+ */
+class PreparedWriters {
+
+	private final ObjectMapper objectMapper;
+	private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+
+	PreparedWriters(ObjectMapper objectMapper, Class<?>... preparedTypes) {
+		this.objectMapper = objectMapper;
+		for (Class<?> type : preparedTypes) {
+			writers.put(type, objectMapper.writerFor(type));
+		}
+	}
+
+	/**
+	 * @return false if there is no writer prepared for the object type, nothing has been written then
+	 */
+	boolean write(Object object, HttpOutputMessage outputMessage, JsonEncoding encoding) throws IOException {
+		ObjectWriter writer = writers.get(object.getClass());
+		if (writer == null) {
+			return false;
+		}
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(outputMessage.getBody(), encoding);
+		try {
+			writer.writeValue(generator, object);
+			generator.flush();
+		} catch (JsonProcessingException ex) {
+			throw new HttpMessageNotWritableException("Could not write content: " + ex.getOriginalMessage(), ex);
+		}
+		return true;
+	}
+}
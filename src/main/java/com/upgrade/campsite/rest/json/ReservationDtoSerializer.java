@@ -0,0 +1,59 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Writes ReservationDto without bean introspection, with pre-encoded field names and dates written straight from
+ * their fields. Null fields are left out, as with JsonInclude.Include.NON_NULL.
+ */
+public class ReservationDtoSerializer extends StdSerializer<ReservationDto> {
+
+	private static final SerializedString UUID = new SerializedString("uuid");
+	private static final SerializedString EMAIL = new SerializedString("email");
+	private static final SerializedString FULL_NAME = new SerializedString("fullName");
+	private static final SerializedString ARRIVAL_DATE = new SerializedString("arrivalDate");
+	private static final SerializedString DEPARTURE_DATE = new SerializedString("departureDate");
+	private static final SerializedString VERSION = new SerializedString("version");
+
+	public ReservationDtoSerializer() {
+		super(ReservationDto.class);
+	}
+
+	@Override
+	public void serialize(ReservationDto reservationDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		char[] buffer = new char[IsoDates.LENGTH];
+
+		generator.writeStartObject();
+		writeString(generator, UUID, reservationDto.getUuid());
+		writeString(generator, EMAIL, reservationDto.getEmail());
+		writeString(generator, FULL_NAME, reservationDto.getFullName());
+		writeDate(generator, ARRIVAL_DATE, reservationDto.getArrivalDate(), buffer);
+		writeDate(generator, DEPARTURE_DATE, reservationDto.getDepartureDate(), buffer);
+		if (reservationDto.getVersion() != null) {
+			generator.writeFieldName(VERSION);
+			generator.writeNumber(reservationDto.getVersion());
+		}
+		generator.writeEndObject();
+	}
+
+	private static void writeString(JsonGenerator generator, SerializedString fieldName, String value) throws IOException {
+		if (value != null) {
+			generator.writeFieldName(fieldName);
+			generator.writeString(value);
+		}
+	}
+
+	private static void writeDate(JsonGenerator generator, SerializedString fieldName, LocalDate date, char[] buffer) throws IOException {
+		if (date != null) {
+			generator.writeFieldName(fieldName);
+			IsoDates.writeDate(generator, date, buffer);
+		}
+	}
+}
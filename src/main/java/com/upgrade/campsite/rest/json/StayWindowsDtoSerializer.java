@@ -0,0 +1,47 @@
+package com.upgrade.campsite.rest.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
+
+/*
+ * Writes each stay window as its arrival and departure dates, straight from the arrival epoch days
+ */
+public class StayWindowsDtoSerializer extends StdSerializer<StayWindowsDto> {
+
+	private static final SerializedString DAYS = new SerializedString("days");
+	private static final SerializedString WINDOWS = new SerializedString("windows");
+	private static final SerializedString ARRIVAL_DATE = new SerializedString("arrivalDate");
+	private static final SerializedString DEPARTURE_DATE = new SerializedString("departureDate");
+
+	public StayWindowsDtoSerializer() {
+		super(StayWindowsDto.class);
+	}
+
+	@Override
+	public void serialize(StayWindowsDto stayWindowsDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		char[] buffer = new char[IsoDates.LENGTH];
+		int[] arrivalEpochDays = stayWindowsDto.getArrivalEpochDays();
+		int lastDay = stayWindowsDto.getDays() - 1;
+
+		generator.writeStartObject();
+		generator.writeFieldName(DAYS);
+		generator.writeNumber(stayWindowsDto.getDays());
+		generator.writeFieldName(WINDOWS);
+		generator.writeStartArray(arrivalEpochDays.length);
+		for (int arrivalEpochDay : arrivalEpochDays) {
+			generator.writeStartObject();
+			generator.writeFieldName(ARRIVAL_DATE);
+			IsoDates.writeEpochDay(generator, arrivalEpochDay, buffer);
+			generator.writeFieldName(DEPARTURE_DATE);
+			IsoDates.writeEpochDay(generator, arrivalEpochDay + lastDay, buffer);
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,48 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * One token bucket per client key (ip address, email), all with the same limit. Buckets are created on first use
+ * and dropped by evictIdle once full for long enough.
+ */
+public class ClientRateLimiter {
+
+	private final double permitsPerSecond;
+	private final int burst;
+	private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+	public ClientRateLimiter(double permitsPerSecond, int burst) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+	}
+
+	/**
+	 * Take one token from the bucket of the given client
+	 * @param key
+	 * @param nowNanos
+	 * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+	 */
+	public long tryAcquire(String key, long nowNanos) {
+		TokenBucket bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst, nowNanos));
+		}
+		return bucket.tryAcquire(nowNanos);
+	}
+
+	/**
+	 * Drop buckets full for longer than the idle timeout. A client racing with the eviction of its bucket at worst
+	 * gets a fresh, full one.
+	 * @param nowNanos
+	 * @param idleNanos
+	 */
+	public void evictIdle(long nowNanos, long idleNanos) {
+		buckets.values().removeIf(bucket -> bucket.isIdle(nowNanos, idleNanos));
+	}
+
+	public int size() {
+		return buckets.size();
+	}
+}
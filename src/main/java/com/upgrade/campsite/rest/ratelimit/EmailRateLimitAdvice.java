@@ -0,0 +1,35 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+/*
+ * Limits requests per reservation email, as soon as the reservation body has been read and before it is validated
+ */
+@ControllerAdvice
+public class EmailRateLimitAdvice extends RequestBodyAdviceAdapter {
+
+	@Autowired
+	private RateLimits rateLimits;
+
+	@Override
+	public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return ReservationDto.class.equals(methodParameter.getParameterType())
+				&& rateLimits.hasEmailLimit(methodParameter.getMethod().getName());
+	}
+
+	@Override
+	public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+								Class<? extends HttpMessageConverter<?>> converterType) {
+		rateLimits.checkEmail(parameter.getMethod().getName(), ((ReservationDto) body).getEmail());
+		return body;
+	}
+}
@@ -0,0 +1,29 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/*
+ * Limits requests per client ip address, before the request body is even read. Asynchronous requests are only counted
+ * once, not again when dispatched back with their result.
+ */
+public class IpRateLimitInterceptor extends HandlerInterceptorAdapter {
+
+	private final RateLimits rateLimits;
+
+	public IpRateLimitInterceptor(RateLimits rateLimits) {
+		this.rateLimits = rateLimits;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+			rateLimits.checkIp(((HandlerMethod) handler).getMethod().getName(), request.getRemoteAddr());
+		}
+		return true;
+	}
+}
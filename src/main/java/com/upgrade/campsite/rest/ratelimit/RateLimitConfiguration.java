@@ -0,0 +1,30 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/*
+ * In-memory, per instance rate limiting of the reservation api: per client ip address for every configured endpoint,
+ * and per reservation email for the endpoints taking a reservation body.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration extends WebMvcConfigurerAdapter {
+
+	@Autowired
+	private RateLimitProperties properties;
+
+	@Bean
+	public RateLimits rateLimits() {
+		return new RateLimits(properties);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new IpRateLimitInterceptor(rateLimits())).addPathPatterns("/api/**");
+	}
+}
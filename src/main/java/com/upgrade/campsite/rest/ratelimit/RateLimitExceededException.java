@@ -0,0 +1,18 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+/*
+ * A client went over its rate limit. Raised for every throttled request, hence stackless.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public RateLimitExceededException(String message, long retryAfterSeconds) {
+		super(message, null, false, false);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -0,0 +1,81 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "campsite.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * How long a client bucket stays around once full, before being evicted
+	 */
+	private long idleEvictionMillis = 60000;
+
+	/**
+	 * Limits per client ip address, by ReservationApi handler method name (e.g. readAvailability)
+	 */
+	private Map<String, Limit> ip = new HashMap<>();
+
+	/**
+	 * Limits per reservation email, by ReservationApi handler method name (e.g. makeReservation)
+	 */
+	private Map<String, Limit> email = new HashMap<>();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getIdleEvictionMillis() {
+		return idleEvictionMillis;
+	}
+
+	public void setIdleEvictionMillis(long idleEvictionMillis) {
+		this.idleEvictionMillis = idleEvictionMillis;
+	}
+
+	public Map<String, Limit> getIp() {
+		return ip;
+	}
+
+	public void setIp(Map<String, Limit> ip) {
+		this.ip = ip;
+	}
+
+	public Map<String, Limit> getEmail() {
+		return email;
+	}
+
+	public void setEmail(Map<String, Limit> email) {
+		this.email = email;
+	}
+
+	public static class Limit {
+
+		private double permitsPerSecond;
+		private int burst;
+
+		public double getPermitsPerSecond() {
+			return permitsPerSecond;
+		}
+
+		public void setPermitsPerSecond(double permitsPerSecond) {
+			this.permitsPerSecond = permitsPerSecond;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+	}
+}
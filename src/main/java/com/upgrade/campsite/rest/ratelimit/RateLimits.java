@@ -0,0 +1,103 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.upgrade.campsite.metrics.MetricsSource;
+import com.upgrade.campsite.rest.ratelimit.RateLimitProperties.Limit;
+
+/*
+ * Client rate limiters of every endpoint, per ip address and per reservation email. Endpoints are identified by their
+ * handler method name, those without a configured limit are not limited. Limits are checked when created, so that a
+ * misconfigured one fails the startup rather than the requests.
+ */
+public class RateLimits implements MetricsSource {
+
+	private static final String EXCEEDED_MESSAGE = "Too many requests. Please retry later.";
+
+	private final RateLimitProperties properties;
+	private final Map<String, ClientRateLimiter> ipLimiters;
+	private final Map<String, ClientRateLimiter> emailLimiters;
+	private final LongAdder rejected = new LongAdder();
+
+	public RateLimits(RateLimitProperties properties) {
+		this.properties = properties;
+		this.ipLimiters = limiters(properties.getIp());
+		this.emailLimiters = limiters(properties.getEmail());
+	}
+
+	/**
+	 * @param endpoint Handler method name
+	 * @param ip Client ip address
+	 * @throws RateLimitExceededException if the client is over the limit of the endpoint
+	 */
+	public void checkIp(String endpoint, String ip) {
+		check(ipLimiters, endpoint, ip);
+	}
+
+	/**
+	 * @param endpoint Handler method name
+	 * @param email Reservation email, compared regardless of case and surrounding blanks
+	 * @throws RateLimitExceededException if the email is over the limit of the endpoint
+	 */
+	public void checkEmail(String endpoint, String email) {
+		check(emailLimiters, endpoint, email == null ? null : email.trim().toLowerCase(Locale.ROOT));
+	}
+
+	public boolean hasEmailLimit(String endpoint) {
+		return emailLimiters.containsKey(endpoint);
+	}
+
+	@Scheduled(fixedDelayString = "${campsite.rate-limit.idle-eviction-millis:60000}")
+	public void evictIdle() {
+		long now = System.nanoTime();
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictionMillis());
+		ipLimiters.values().forEach(limiter -> limiter.evictIdle(now, idleNanos));
+		emailLimiters.values().forEach(limiter -> limiter.evictIdle(now, idleNanos));
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "rateLimit";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		metrics.put("rejected", rejected.sum());
+		metrics.put("ipBuckets", ipLimiters.values().stream().mapToInt(ClientRateLimiter::size).sum());
+		metrics.put("emailBuckets", emailLimiters.values().stream().mapToInt(ClientRateLimiter::size).sum());
+		return metrics;
+	}
+
+	private void check(Map<String, ClientRateLimiter> limiters, String endpoint, String key) {
+		ClientRateLimiter limiter = limiters.get(endpoint);
+		if (limiter == null || key == null || !properties.isEnabled()) {
+			return;
+		}
+		long waitNanos = limiter.tryAcquire(key, System.nanoTime());
+		if (waitNanos > 0) {
+			rejected.increment();
+			throw new RateLimitExceededException(EXCEEDED_MESSAGE, Math.max(1L, (long) Math.ceil(waitNanos / 1e9)));
+		}
+	}
+
+	private static Map<String, ClientRateLimiter> limiters(Map<String, Limit> limits) {
+		Map<String, ClientRateLimiter> limiters = new HashMap<>();
+		limits.forEach((endpoint, limit) -> {
+			// The token bucket emission interval is the inverse of the rate
+			if (!(limit.getPermitsPerSecond() > 0)) {
+				throw new IllegalArgumentException("Rate limit of " + endpoint + " must have a positive permits-per-second, not "
+						+ limit.getPermitsPerSecond());
+			}
+			limiters.put(endpoint, new ClientRateLimiter(limit.getPermitsPerSecond(), limit.getBurst()));
+		});
+		return limiters;
+	}
+}
@@ -0,0 +1,54 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: instead of a token count refilled over time,
+ * the bucket keeps the theoretical arrival time of the next request, i.e. the time at which it would be full again.
+ * Taking a token pushes that time one emission interval further, which is a single compare-and-set.
+ */
+public final class TokenBucket {
+
+	private final long emissionIntervalNanos;
+	private final long burstToleranceNanos;
+	private final AtomicLong theoreticalArrivalNanos;
+
+	/**
+	 * @param permitsPerSecond Refill rate
+	 * @param burst Bucket capacity
+	 * @param nowNanos Current time, the bucket starts full
+	 */
+	public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+		this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+		this.burstToleranceNanos = emissionIntervalNanos * burst;
+		this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+	}
+
+	/**
+	 * Take one token if there is one
+	 * @param nowNanos Current time
+	 * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+	 */
+	public long tryAcquire(long nowNanos) {
+		while (true) {
+			long arrival = theoreticalArrivalNanos.get();
+			long nextArrival = Math.max(arrival, nowNanos) + emissionIntervalNanos;
+			long excess = nextArrival - nowNanos - burstToleranceNanos;
+			if (excess > 0) {
+				return excess;
+			}
+			if (theoreticalArrivalNanos.compareAndSet(arrival, nextArrival)) {
+				return 0L;
+			}
+		}
+	}
+
+	/**
+	 * @param nowNanos Current time
+	 * @param idleNanos Idle timeout
+	 * @return true if the bucket has been full for longer than the idle timeout, dropping it then loses no state
+	 */
+	public boolean isIdle(long nowNanos, long idleNanos) {
+		return nowNanos - theoreticalArrivalNanos.get() > idleNanos;
+	}
+}
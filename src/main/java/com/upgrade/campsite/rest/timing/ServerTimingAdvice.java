@@ -0,0 +1,36 @@
+package com.upgrade.campsite.rest.timing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.upgrade.campsite.metrics.RequestTiming;
+
+/*
+ * Sets the Server-Timing header of api responses right before their body is written, since headers can't change
+ * afterwards. Serialization itself is timed from here, for the sampled timing logs only.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+								  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+								  ServerHttpRequest request, ServerHttpResponse response) {
+		RequestTiming timing = RequestTiming.current();
+		if (timing != null) {
+			response.getHeaders().set(ServerTimingInterceptor.SERVER_TIMING, timing.toServerTiming());
+			timing.startSerialization();
+		}
+		return body;
+	}
+}
@@ -0,0 +1,50 @@
+package com.upgrade.campsite.rest.timing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.validation.MessageInterpolatorFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/*
+ * Per request phase timing of the reservation api, sent back as a Server-Timing header and logged for a sample of
+ * the requests. Validation is timed by wrapping the Spring MVC validator around the application one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "campsite.timing.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(TimingProperties.class)
+public class ServerTimingConfiguration extends WebMvcConfigurerAdapter {
+
+	@Autowired
+	private TimingProperties properties;
+
+	@Bean
+	public ServerTimingInterceptor serverTimingInterceptor() {
+		return new ServerTimingInterceptor(properties);
+	}
+
+	/*
+	 * Same validator as the Spring Boot default one, which backs off when the mvc validator is declared
+	 */
+	@Bean
+	public LocalValidatorFactoryBean defaultValidator() {
+		LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+		validator.setMessageInterpolator(new MessageInterpolatorFactory().getObject());
+		return validator;
+	}
+
+	@Bean
+	public Validator mvcValidator() {
+		return new TimedValidator(defaultValidator());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(serverTimingInterceptor()).addPathPatterns("/api/**");
+	}
+}
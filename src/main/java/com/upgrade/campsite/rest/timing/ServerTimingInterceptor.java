@@ -0,0 +1,75 @@
+package com.upgrade.campsite.rest.timing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.upgrade.campsite.metrics.RequestTiming;
+
+/*
+ * Starts the timing of every api request and binds it to the thread working on the request: the request thread, and
+ * the container thread completing an asynchronous request once its result is in (the mutation executor binds it in
+ * between). Responses without a body get their Server-Timing header here, the others from the ServerTimingAdvice.
+ *
+ * Once the request completes its timing, serialization included, is logged for a sample of the requests.
+ */
+public class ServerTimingInterceptor extends HandlerInterceptorAdapter {
+
+	public static final String SERVER_TIMING = "Server-Timing";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ServerTimingInterceptor.class);
+	private static final String TIMING_ATTRIBUTE = RequestTiming.class.getName();
+
+	private final double logSampleRate;
+
+	public ServerTimingInterceptor(TimingProperties properties) {
+		this.logSampleRate = properties.getLogSampleRate();
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+			if (timing != null) {
+				RequestTiming.bind(timing);
+			}
+		} else if (handler instanceof HandlerMethod) {
+			RequestTiming timing = new RequestTiming();
+			request.setAttribute(TIMING_ATTRIBUTE, timing);
+			RequestTiming.bind(timing);
+		}
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+		RequestTiming timing = RequestTiming.current();
+		if (timing != null && !response.isCommitted() && !response.containsHeader(SERVER_TIMING)) {
+			response.setHeader(SERVER_TIMING, timing.toServerTiming());
+		}
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		RequestTiming.unbind();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		RequestTiming timing = RequestTiming.current();
+		RequestTiming.unbind();
+		if (timing != null && logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+			timing.endSerialization();
+			LOGGER.info("timing endpoint={} status={} {}", ((HandlerMethod) handler).getMethod().getName(), response.getStatus(),
+					timing.toLogFields());
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.upgrade.campsite.rest.timing;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+import com.upgrade.campsite.metrics.RequestTiming;
+import com.upgrade.campsite.metrics.RequestTiming.Phase;
+
+/*
+ * Validator of the @Valid handler arguments, timing the validation of the current request
+ */
+class TimedValidator implements SmartValidator {
+
+	private final SmartValidator delegate;
+
+	TimedValidator(SmartValidator delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return delegate.supports(clazz);
+	}
+
+	@Override
+	public void validate(Object target, Errors errors) {
+		long start = System.nanoTime();
+		try {
+			delegate.validate(target, errors);
+		} finally {
+			RequestTiming.since(Phase.VALIDATION, start);
+		}
+	}
+
+	@Override
+	public void validate(Object target, Errors errors, Object... validationHints) {
+		long start = System.nanoTime();
+		try {
+			delegate.validate(target, errors, validationHints);
+		} finally {
+			RequestTiming.since(Phase.VALIDATION, start);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.upgrade.campsite.rest.timing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "campsite.timing")
+public class TimingProperties {
+
+	/**
+	 * Whether api responses carry a Server-Timing header
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Share of the api requests whose timing is also logged, from 0 (none) to 1 (all)
+	 */
+	private double logSampleRate = 0;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getLogSampleRate() {
+		return logSampleRate;
+	}
+
+	public void setLogSampleRate(double logSampleRate) {
+		this.logSampleRate = logSampleRate;
+	}
+}
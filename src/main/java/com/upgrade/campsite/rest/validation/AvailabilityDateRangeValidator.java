@@ -1,32 +1,27 @@
 package com.upgrade.campsite.rest.validation;
 
 import java.time.LocalDate;
-import java.util.Arrays;
-import java.util.List;
-import java.util.function.BiPredicate;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 
 import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.Today;
 
-
+/*
+ * Rules are evaluated on epoch days against a cached today. Dtos implementing DateRange are read directly,
+ * any other type falls back to reading the annotated properties reflectively.
+ */
 public class AvailabilityDateRangeValidator implements ConstraintValidator<AvailabilityDateRange, Object> {
 
-	private List<BiPredicate<LocalDate, LocalDate>> validationRules;
 	private String startDateName;
 	private String endDateName;
 
 	@Override
 	public void initialize(final AvailabilityDateRange constraintAnnotation) {
-
-		validationRules = Arrays.asList(
-			(startDate, endDate) -> startDate != null && endDate != null,
-			(startDate, endDate) -> startDate.isBefore(endDate) || startDate.isEqual(endDate),
-			(startDate, endDate) -> startDate.isAfter(LocalDate.now()) && endDate.isBefore(LocalDate.now().plusDays(Calendar.TIME_SPAN + 1))
-		);
 		startDateName = constraintAnnotation.startDate();
 		endDateName = constraintAnnotation.endDate();
 	}
@@ -34,15 +29,31 @@ public class AvailabilityDateRangeValidator implements ConstraintValidator<Avail
 	@Override
 	public boolean isValid(final Object value, final ConstraintValidatorContext context) {
 
-		LocalDate startDate = (LocalDate) new BeanWrapperImpl(value)
-				.getPropertyValue(startDateName);
-		LocalDate endDate = (LocalDate) new BeanWrapperImpl(value)
-				.getPropertyValue(endDateName);
+		if (value instanceof DateRange) {
+			DateRange dateRange = (DateRange) value;
+			return isValid(dateRange.rangeStart(), dateRange.rangeEnd(), Today.epochDay());
+		}
+		BeanWrapper beanWrapper = new BeanWrapperImpl(value);
+		return isValid((LocalDate) beanWrapper.getPropertyValue(startDateName),
+				(LocalDate) beanWrapper.getPropertyValue(endDateName),
+				Today.epochDay());
+	}
 
+	/**
+	 * No dates at all is valid (default range). Otherwise both dates must be given, in order, starting tomorrow
+	 * at the earliest and ending no later than TIME_SPAN days from today
+	 */
+	static boolean isValid(LocalDate startDate, LocalDate endDate, long today) {
 		if (startDate == null && endDate == null) {
 			return true;
 		}
-		return validationRules.stream()
-				.allMatch(rule -> rule.test(startDate, endDate));
+		if (startDate == null || endDate == null) {
+			return false;
+		}
+		long startDay = startDate.toEpochDay();
+		long endDay = endDate.toEpochDay();
+		return startDay <= endDay
+				&& startDay > today
+				&& endDay <= today + Calendar.TIME_SPAN;
 	}
 }
@@ -1,34 +1,29 @@
 package com.upgrade.campsite.rest.validation;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
-import java.util.List;
-import java.util.function.BiPredicate;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 
 import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.Today;
 
-
+/*
+ * Rules are evaluated on epoch days against a cached today. Dtos implementing DateRange are read directly,
+ * any other type falls back to reading the annotated properties reflectively.
+ */
 public class BookingDateRangeValidator implements ConstraintValidator<BookingDateRange, Object> {
 
-	private List<BiPredicate<LocalDate, LocalDate>> validationRules;
+	private static final int MAX_DAYS_BETWEEN = 2;
+
 	private String arrivalDateName;
 	private String departureDateName;
 
 	@Override
 	public void initialize(final BookingDateRange constraintAnnotation) {
-
-		validationRules = Arrays.asList(
-			(arrivalDate, departureDate) -> arrivalDate != null && departureDate != null,
-			(arrivalDate, departureDate) -> arrivalDate.isBefore(departureDate) || arrivalDate.isEqual(departureDate),
-			(arrivalDate, departureDate) -> arrivalDate.isAfter(LocalDate.now()) && departureDate.isBefore(LocalDate.now().plusDays(Calendar.TIME_SPAN + 2)),
-			(arrivalDate, departureDate) -> ChronoUnit.DAYS.between(arrivalDate, departureDate) < 3
-		);
 		arrivalDateName = constraintAnnotation.arrivalDate();
 		departureDateName = constraintAnnotation.departureDate();
 	}
@@ -36,12 +31,29 @@ public class BookingDateRangeValidator implements ConstraintValidator<BookingDat
 	@Override
 	public boolean isValid(final Object value, final ConstraintValidatorContext context) {
 
-		LocalDate arrivalDate = (LocalDate) new BeanWrapperImpl(value)
-				.getPropertyValue(arrivalDateName);
-		LocalDate departureDate = (LocalDate) new BeanWrapperImpl(value)
-				.getPropertyValue(departureDateName);
+		if (value instanceof DateRange) {
+			DateRange dateRange = (DateRange) value;
+			return isValid(dateRange.rangeStart(), dateRange.rangeEnd(), Today.epochDay());
+		}
+		BeanWrapper beanWrapper = new BeanWrapperImpl(value);
+		return isValid((LocalDate) beanWrapper.getPropertyValue(arrivalDateName),
+				(LocalDate) beanWrapper.getPropertyValue(departureDateName),
+				Today.epochDay());
+	}
 
-		return validationRules.stream()
-				.allMatch(rule -> rule.test(arrivalDate, departureDate));
+	/**
+	 * Dates must be given, in order, no more than 3 days long, starting tomorrow at the earliest and ending
+	 * no later than TIME_SPAN + 1 days from today
+	 */
+	static boolean isValid(LocalDate arrivalDate, LocalDate departureDate, long today) {
+		if (arrivalDate == null || departureDate == null) {
+			return false;
+		}
+		long arrivalDay = arrivalDate.toEpochDay();
+		long departureDay = departureDate.toEpochDay();
+		return arrivalDay <= departureDay
+				&& arrivalDay > today
+				&& departureDay <= today + Calendar.TIME_SPAN + 1
+				&& departureDay - arrivalDay <= MAX_DAYS_BETWEEN;
 	}
 }
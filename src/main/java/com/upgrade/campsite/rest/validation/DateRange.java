@@ -0,0 +1,14 @@
+package com.upgrade.campsite.rest.validation;
+
+import java.time.LocalDate;
+
+/**
+ * Implemented by dtos carrying a date range, so that the date range validators can read it directly.
+ * Dtos which don't implement it are still validated, their dates being read reflectively by property name.
+ */
+public interface DateRange {
+
+	LocalDate rangeStart();
+
+	LocalDate rangeEnd();
+}
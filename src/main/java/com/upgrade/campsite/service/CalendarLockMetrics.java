@@ -0,0 +1,71 @@
+package com.upgrade.campsite.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.upgrade.campsite.metrics.LatencyRecorder;
+import com.upgrade.campsite.metrics.MetricsSource;
+
+/*
+ * Outcome of the optimistic reads of the calendar. A read fails validation when a mutation held or took the write
+ * lock meanwhile, it is then retried under the read lock, so a high failure rate means reads queue up behind writes.
+ *
+ * Along with the time admitted mutations wait for the write lock and hold it.
+ */
+@Component
+public class CalendarLockMetrics implements MetricsSource {
+
+	private final LongAdder optimisticReads = new LongAdder();
+	private final LongAdder optimisticReadFailures = new LongAdder();
+	private final LatencyRecorder writeLockWait = new LatencyRecorder();
+	private final LatencyRecorder writeLockHold = new LatencyRecorder();
+	private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+
+	public CalendarLockMetrics() {
+		latencies.put("writeLockWait", writeLockWait);
+		latencies.put("writeLockHold", writeLockHold);
+	}
+
+	void optimisticRead(boolean validated) {
+		optimisticReads.increment();
+		if (!validated) {
+			optimisticReadFailures.increment();
+		}
+	}
+
+	void writeLocked(long waitNanos, long holdNanos) {
+		writeLockWait.record(waitNanos);
+		writeLockHold.record(holdNanos);
+	}
+
+	public long getOptimisticReads() {
+		return optimisticReads.sum();
+	}
+
+	public long getOptimisticReadFailures() {
+		return optimisticReadFailures.sum();
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "calendarLock";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		metrics.put("optimisticReads", getOptimisticReads());
+		metrics.put("optimisticReadFailures", getOptimisticReadFailures());
+		long reads = getOptimisticReads();
+		metrics.put("optimisticReadFailureRatio", reads == 0 ? 0.0 : (double) getOptimisticReadFailures() / reads);
+		return metrics;
+	}
+
+	@Override
+	public Map<String, LatencyRecorder> getLatencies() {
+		return latencies;
+	}
+}
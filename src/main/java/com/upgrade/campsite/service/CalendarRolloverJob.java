@@ -0,0 +1,34 @@
+package com.upgrade.campsite.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * Nightly job, at midnight in the campsite's time zone: drops the past days from the calendar, which has moved on to
+ * the new day by itself, and right after archives the reservations which are no longer relevant to it (cancelled,
+ * or expired as of the new day). Archival is skipped when there is no archiver (in-memory backend).
+ */
+@Component
+public class CalendarRolloverJob {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CalendarRolloverJob.class);
+
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired(required = false)
+	private ReservationArchiver reservationArchiver;
+
+	@Scheduled(cron = "${campsite.rollover.cron:0 0 0 * * *}", zone = "${campsite.calendar.zone:}")
+	public void rollover() {
+		reservationService.advanceCalendar();
+		if (reservationArchiver == null) {
+			LOGGER.info("Calendar moved forward");
+			return;
+		}
+		int archived = reservationArchiver.archiveInactiveReservations();
+		LOGGER.info("Calendar moved forward, {} reservations archived", archived);
+	}
+}
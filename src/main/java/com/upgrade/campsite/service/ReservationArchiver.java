@@ -0,0 +1,66 @@
+package com.upgrade.campsite.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.upgrade.campsite.calendar.Today;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationArchive;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.ReservationArchiveRepository;
+import com.upgrade.campsite.repository.ReservationRepository;
+
+/*
+ * Moves cancelled and expired reservations from the reservations table into the archive table.
+ * Rows are moved in bounded chunks, each one within its own transaction, so that a large backlog never turns into
+ * a single long-running transaction competing with the request path.
+ * There is no archive table with the in-memory backend, hence no archiver either.
+ */
+@Component
+@ConditionalOnExpression("'${campsite.repository.backend:jpa}' != 'in-memory'")
+public class ReservationArchiver {
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private ReservationArchiveRepository reservationArchiveRepository;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${campsite.archival.chunk-size:500}")
+	private int chunkSize;
+
+	/**
+	 * Archive all cancelled reservations along with those whose departure date is before today
+	 * @return The number of archived reservations
+	 */
+	public int archiveInactiveReservations() {
+		LocalDate today = Today.date();
+		int archived = 0;
+		int chunk;
+		do {
+			chunk = transactionTemplate.execute(status -> archiveChunk(today));
+			archived += chunk;
+		} while (chunk == chunkSize);
+		return archived;
+	}
+
+	private int archiveChunk(LocalDate today) {
+		List<Reservation> reservations = reservationRepository.findByStatusOrDepartureDateBefore(
+				ReservationStatus.CANCELLED, today, new PageRequest(0, chunkSize));
+
+		for (Reservation reservation : reservations) {
+			ReservationStatus status = reservation.isActive() ? ReservationStatus.COMPLETED : reservation.getStatus();
+			reservationArchiveRepository.save(new ReservationArchive(reservation, status, today));
+		}
+		reservationRepository.delete(reservations);
+		return reservations.size();
+	}
+}
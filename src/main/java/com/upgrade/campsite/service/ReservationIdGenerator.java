@@ -0,0 +1,60 @@
+package com.upgrade.campsite.service;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * Generates reservation ids as version 7 UUIDs: a 48 bit unix timestamp in milliseconds followed by 74 random bits.
+ * Ids created later sort after earlier ones (down to the millisecond), so inserts land at the end of the uuid index
+ * instead of all over it.
+ * The id is the only credential needed to modify or cancel a reservation, so the random bits come from SecureRandom:
+ * those of a fast generator such as ThreadLocalRandom can be inverted to predict the next ids from a known one. Each
+ * thread draws them from its own buffer of random bytes, refilled from its own SecureRandom, so that threads don't
+ * contend on the generator (nor on the shared source behind the default native implementation) for every id.
+ */
+@Component
+public class ReservationIdGenerator {
+
+	private static final long VERSION_7 = 0x7000L;
+	private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+	// Random bytes of 64 ids (10 each, rounded up to a long and a short)
+	private static final int BUFFER_SIZE = 64 * (Long.BYTES + Short.BYTES);
+
+	private final ThreadLocal<RandomBuffer> randomBuffers = ThreadLocal.withInitial(RandomBuffer::new);
+
+	public String nextId() {
+		return nextUuid(System.currentTimeMillis()).toString();
+	}
+
+	UUID nextUuid(long epochMillis) {
+		ByteBuffer random = randomBuffers.get().next();
+		long mostSigBits = (epochMillis << 16) | VERSION_7 | (random.getShort() & 0x0fffL);
+		long leastSigBits = VARIANT_RFC_4122 | (random.getLong() >>> 2);
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	private static final class RandomBuffer {
+
+		private final SecureRandom secureRandom = new SecureRandom();
+		private final byte[] bytes = new byte[BUFFER_SIZE];
+		private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		RandomBuffer() {
+			buffer.position(bytes.length);
+		}
+
+		/**
+		 * @return The buffer, with at least the random bytes of one id remaining
+		 */
+		ByteBuffer next() {
+			if (buffer.remaining() < Long.BYTES + Short.BYTES) {
+				secureRandom.nextBytes(bytes);
+				buffer.clear();
+			}
+			return buffer;
+		}
+	}
+}
@@ -1,8 +1,14 @@
 package com.upgrade.campsite.service;
 
+import java.time.LocalDate;
+
 import com.upgrade.campsite.rest.dto.AvailabilityDto;
 import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+import com.upgrade.campsite.rest.dto.OccupancySearchDto;
 import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.dto.StaySearchDto;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
 import com.upgrade.campsite.service.exception.ReservationServiceException;
 
 public interface ReservationService {
@@ -14,6 +20,20 @@ public interface ReservationService {
 	 */
 	AvailabilityDto readAvailability(DateRangeDto dateRangeDto);
 
+	/**
+	 * Find the first windows of available dates for a stay of the given length
+	 * @param staySearchDto the length of the stay and the maximum number of windows
+	 * @return The windows, earliest first
+	 */
+	StayWindowsDto findStayWindows(StaySearchDto staySearchDto);
+
+	/**
+	 * Count free and booked dates per day, week or month over the given date range
+	 * @param occupancySearchDto the date range to summarize and the bucket size
+	 * @return The counts per bucket
+	 */
+	OccupancyDto readOccupancy(OccupancySearchDto occupancySearchDto);
+
 	/**
 	 * Make a reservation
 	 * @param reservationDto The intended reservation
@@ -31,7 +51,23 @@ public interface ReservationService {
 	 * @throws ReservationServiceException with error code RESERVATION_EXPIRED if the original reservation has expired (departure date is today or before today)
 	 * @throws ReservationServiceException with error code UNAVAILABLE_DATES if requested new dates are not available
 	 */
-	ReservationDto modifyReservation(String uuid, ReservationDto reservationDto);
+	default ReservationDto modifyReservation(String uuid, ReservationDto reservationDto) {
+		return modifyReservation(uuid, reservationDto, null);
+	}
+
+	/**
+	 * Modify an existing reservation, provided it is still at the expected version
+	 * @param uuid The uuid of the existing reservation
+	 * @param reservationDto The modified reservation
+	 * @param expectedVersion The version the caller last read, or null to skip the check
+	 * @return The updated reservation
+	 * @throws ReservationServiceException with error code RESERVATION_NOT_FOUND if the reservation does not exist
+	 * @throws ReservationServiceException with error code VERSION_MISMATCH if the reservation is not at the expected version
+	 * @throws ReservationServiceException with error code RESERVATION_EXPIRED if the original reservation has expired (departure date is today or before today)
+	 * @throws ReservationServiceException with error code UNAVAILABLE_DATES if requested new dates are not available
+	 * @throws ReservationServiceException with error code CONCURRENT_MODIFICATION if the reservation was modified meanwhile
+	 */
+	ReservationDto modifyReservation(String uuid, ReservationDto reservationDto, Long expectedVersion);
 
 	/**
 	 * Cancel a reservation
@@ -39,7 +75,20 @@ public interface ReservationService {
 	 * @throws ReservationServiceException with error code RESERVATION_NOT_FOUND if the reservation does not exist
 	 * @throws ReservationServiceException with error code RESERVATION_EXPIRED if the reservation has already expired (departure date is today or before today)
 	 */
-	void cancelReservation(String uuid);
+	default void cancelReservation(String uuid) {
+		cancelReservation(uuid, null);
+	}
+
+	/**
+	 * Cancel a reservation, provided it is still at the expected version
+	 * @param uuid The uuid of the reservation
+	 * @param expectedVersion The version the caller last read, or null to skip the check
+	 * @throws ReservationServiceException with error code RESERVATION_NOT_FOUND if the reservation does not exist
+	 * @throws ReservationServiceException with error code VERSION_MISMATCH if the reservation is not at the expected version
+	 * @throws ReservationServiceException with error code RESERVATION_EXPIRED if the reservation has already expired (departure date is today or before today)
+	 * @throws ReservationServiceException with error code CONCURRENT_MODIFICATION if the reservation was modified meanwhile
+	 */
+	void cancelReservation(String uuid, Long expectedVersion);
 
 	/**
 	 * Read a reservation
@@ -48,4 +97,19 @@ public interface ReservationService {
 	 * @throws ReservationServiceException with error code RESERVATION_NOT_FOUND if the reservation does not exist
 	 */
 	ReservationDto readReservation(String uuid);
+
+	/**
+	 * Move the calendar forward by one day, meant to be called at midnight
+	 */
+	void advanceCalendar();
+
+	/**
+	 * Set the calendar state of a date to what the repository holds, meant to repair drift between the two. The date
+	 * is left alone if its calendar state has changed since the drift was found, or if mutations in progress may not be
+	 * visible in the repository yet.
+	 * @param date A date within the calendar, today included
+	 * @param expectedAvailable Calendar state of the date when the drift was found
+	 * @return true if the calendar was out of step and has been fixed, otherwise false
+	 */
+	boolean reconcileCalendar(LocalDate date, boolean expectedAvailable);
 }
@@ -1,23 +1,39 @@
 package com.upgrade.campsite.service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.Today;
+import com.upgrade.campsite.metrics.RequestTiming;
+import com.upgrade.campsite.metrics.RequestTiming.Phase;
 import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
 import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.repository.support.DeferredDurability;
 import com.upgrade.campsite.rest.dto.AvailabilityDto;
 import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+import com.upgrade.campsite.rest.dto.OccupancyGranularity;
+import com.upgrade.campsite.rest.dto.OccupancySearchDto;
 import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.dto.StaySearchDto;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
+import com.upgrade.campsite.service.admission.AdmissionLimiter;
+import com.upgrade.campsite.service.exception.MessageTemplate;
 import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
 import com.upgrade.campsite.service.exception.ReservationServiceException;
 
@@ -29,17 +45,42 @@ import com.upgrade.campsite.service.exception.ReservationServiceException;
  *     makeReservation and modifyReservation operations.
  *
  *   - The StampedLock ensures thread-safety access to the calendar resource for all operations, plus the readAvailability
- *     operation is optimized due to the optimistic read lock implementation.
+ *     operation is optimized due to the optimistic read lock implementation. Mutations queueing up on the write lock
+ *     are bounded by the AdmissionLimiter in front of the mutation executor, and report back how long they held the
+ *     lock so that rejected ones can be told when to retry.
  */
 @Service
 public class ReservationServiceImpl implements ReservationService {
 
+	private static final MessageTemplate UNAVAILABLE_DATES_MESSAGE = new MessageTemplate(
+			"The specified time range from arrival date {} through departure date {} is not available. Please specify a different time range.");
+	private static final MessageTemplate EXPIRED_MODIFICATION_MESSAGE = new MessageTemplate(
+			"Reservation with id {} has already expired. Please submit a new reservation");
+	private static final MessageTemplate EXPIRED_CANCELLATION_MESSAGE = new MessageTemplate("Reservation with id {} has already expired.");
+	private static final MessageTemplate NOT_FOUND_MESSAGE = new MessageTemplate("Reservation with id {} not found.");
+	private static final MessageTemplate VERSION_MISMATCH_MESSAGE = new MessageTemplate(
+			"Reservation with id {} is at version {}, not at the expected version {}.");
+	private static final MessageTemplate CONCURRENT_MODIFICATION_MESSAGE = new MessageTemplate(
+			"Reservation with id {} has been modified concurrently. Please read it again and retry.");
+
 	@Autowired
 	private Calendar calendar;
 	@Autowired
 	private ReservationRepository reservationRepository;
+	@Autowired
+	private AdmissionLimiter admissionLimiter;
+	@Autowired
+	private ReservationIdGenerator reservationIdGenerator;
+	@Autowired
+	private CalendarLockMetrics calendarLockMetrics;
+	@Autowired
+	private ReservationServiceMetrics reservationServiceMetrics;
 
 	private final StampedLock lock = new StampedLock();
+	// Mutations so far, guarded by the lock
+	private long mutations;
+	// Mutations whose transaction has yet to complete, their calendar changes may be ahead of the repository
+	private final AtomicInteger uncommittedMutations = new AtomicInteger();
 
 	@PostConstruct
 	private void initialize() {
@@ -53,137 +94,323 @@ public class ReservationServiceImpl implements ReservationService {
 		LocalDate endDate = dateRangeDto.getEndDate();
 
 		if (dateRangeDto.isNullDates()) {
-			startDate = LocalDate.now().plusDays(1);
-			endDate = LocalDate.now().plusDays(Calendar.TIME_SPAN);
+			LocalDate today = Today.date();
+			startDate = today.plusDays(1);
+			endDate = today.plusDays(Calendar.TIME_SPAN);
 		}
 
-		long stamp = lock.tryOptimisticRead();
-		List<LocalDate> availability = calendar.readAvailability(startDate, endDate);
+		LocalDate start = startDate;
+		LocalDate end = endDate;
+		return new AvailabilityDto(startDate, endDate, underOptimisticRead(() -> calendar.readAvailableEpochDays(start, end)));
+	}
 
-		if (lock.validate(stamp)) {
-			return new AvailabilityDto(startDate, endDate, availability);
-		} else {
-			stamp = lock.readLock();
-			try {
-				availability = calendar.readAvailability(startDate, endDate);
-				return new AvailabilityDto(startDate, endDate, availability);
-			} finally {
-				lock.unlock(stamp);
-			}
+	@Override
+	public StayWindowsDto findStayWindows(StaySearchDto staySearchDto) {
+
+		int days = staySearchDto.getDays();
+		int limit = staySearchDto.getLimit();
+
+		return new StayWindowsDto(days, underOptimisticRead(() -> calendar.findStayWindows(days, limit)));
+	}
+
+	@Override
+	public OccupancyDto readOccupancy(OccupancySearchDto occupancySearchDto) {
+
+		LocalDate startDate = occupancySearchDto.getStartDate();
+		LocalDate endDate = occupancySearchDto.getEndDate();
+
+		if (occupancySearchDto.isNullDates()) {
+			LocalDate today = Today.date();
+			startDate = today.plusDays(1);
+			endDate = today.plusDays(Calendar.TIME_SPAN);
 		}
+		OccupancyGranularity granularity = occupancySearchDto.getGranularity();
+		int[] bounds = bucketBounds(startDate, endDate, granularity);
+
+		return new OccupancyDto(granularity, bounds, underOptimisticRead(() -> calendar.countOccupied(bounds)));
 	}
 
 	@Override
 	@Transactional
 	public ReservationDto makeReservation(ReservationDto reservationDto) {
-		long stamp = lock.writeLock();
-		try {
+		// Prepared before taking the lock, which then only covers the calendar and the insert, not its durability wait
+		Reservation reservation = toEntity(reservationDto).uuid(reservationIdGenerator.nextId());
+		return underWriteLock(() -> {
 			if (!calendar.checkAvailability(reservationDto.getArrivalDate(), reservationDto.getDepartureDate())) {
 				throw new ReservationServiceException(
 						ReservationServiceErrorCode.UNAVAILABLE_DATES,
-						String.format("The specified time range from arrival date %s through departure date %s is not available. Please specify a different time range.",
-								reservationDto.getArrivalDate().toString(),
-								reservationDto.getDepartureDate().toString()));
+						UNAVAILABLE_DATES_MESSAGE.format(reservationDto.getArrivalDate(), reservationDto.getDepartureDate()));
 			}
-			Reservation reservation = toEntity(reservationDto);
-			reservation.uuid(UUID.randomUUID().toString());
+			long saving = System.nanoTime();
 			Reservation savedReservation = reservationRepository.save(reservation);
+			saved(System.nanoTime() - saving);
 
 			calendar.book(savedReservation.getArrivalDate(), savedReservation.getDepartureDate());
 			return toDto(savedReservation);
-
-		} finally {
-			lock.unlock(stamp);
-		}
+		});
 	}
 
+	/* Modifications are guarded by the reservation version, so that concurrent writers of the same reservation can't
+	 * silently overwrite each other. Changes to the contact details only don't touch the calendar, hence they skip the
+	 * calendar lock altogether and rely on the version alone. Date changes still go through the lock, and the version
+	 * conflict (if any) is flushed before the calendar is updated.
+	 */
 	@Override
 	@Transactional
-	public ReservationDto modifyReservation(String uuid, ReservationDto reservationDto) {
+	public ReservationDto modifyReservation(String uuid, ReservationDto reservationDto, Long expectedVersion) {
 
 		Reservation reservation = retrieveReservation(uuid);
+		checkVersion(reservation, expectedVersion);
 		LocalDate originalArrivalDate = reservation.getArrivalDate();
 		LocalDate originalDepartureDate = reservation.getDepartureDate();
 		LocalDate newArrivalDate = reservationDto.getArrivalDate();
 		LocalDate newDepartureDate = reservationDto.getDepartureDate();
 
-		if (originalDepartureDate.isBefore(LocalDate.now().plusDays(1))) {
+		if (originalDepartureDate.isBefore(Today.date().plusDays(1))) {
 			throw new ReservationServiceException(
 					ReservationServiceErrorCode.RESERVATION_EXPIRED,
-					String.format("Reservation with id %s has already expired. Please submit a new reservation", uuid));
+					EXPIRED_MODIFICATION_MESSAGE.format(uuid));
 		}
 
-		long stamp = lock.writeLock();
-		try {
+		if (originalArrivalDate.equals(newArrivalDate) && originalDepartureDate.equals(newDepartureDate)) {
+			reservation
+					.email(reservationDto.getEmail())
+					.fullName(reservationDto.getFullName());
+			return toDto(saveVersioned(reservation));
+		}
+
+		return underWriteLock(() -> {
 			if (!calendar.checkOverlappingAvailability(originalArrivalDate, originalDepartureDate, newArrivalDate, newDepartureDate)) {
 				throw new ReservationServiceException(
 						ReservationServiceErrorCode.UNAVAILABLE_DATES,
-						String.format("The specified time range from arrival date %s through departure date %s is not available. Please specify a different time range.",
-								newArrivalDate.toString(),
-								newDepartureDate.toString()));
+						UNAVAILABLE_DATES_MESSAGE.format(newArrivalDate, newDepartureDate));
 			}
 			reservation
 					.email(reservationDto.getEmail())
 					.fullName(reservationDto.getFullName())
 					.arrivalDate(newArrivalDate)
 					.departureDate(newDepartureDate);
-			Reservation updatedReservation = reservationRepository.save(reservation);
+			Reservation updatedReservation = saveVersioned(reservation);
 
-			calendar.unbook(originalArrivalDate, originalDepartureDate);
-			calendar.book(newArrivalDate, newDepartureDate);
+			calendar.moveBooking(originalArrivalDate, originalDepartureDate, newArrivalDate, newDepartureDate);
 			return toDto(updatedReservation);
-
-		} finally {
-			lock.unlock(stamp);
-		}
+		});
 	}
 
 	@Override
 	@Transactional
-	public void cancelReservation(String uuid) {
+	public void cancelReservation(String uuid, Long expectedVersion) {
 		Reservation reservation = retrieveReservation(uuid);
-		if (reservation.getDepartureDate().isBefore(LocalDate.now().plusDays(1))) {
+		checkVersion(reservation, expectedVersion);
+		if (reservation.getDepartureDate().isBefore(Today.date().plusDays(1))) {
 			throw new ReservationServiceException(
 					ReservationServiceErrorCode.RESERVATION_EXPIRED,
-					String.format("Reservation with id %s has already expired.", uuid));
+					EXPIRED_CANCELLATION_MESSAGE.format(uuid));
 		}
-		long stamp = lock.writeLock();
-		try {
-			// Ideally this would not be a delete but a state change in the entity, scoped out for simplicity
-			reservationRepository.delete(reservation);
+		underWriteLock(() -> {
+			// Cancelled reservations stay in place until the nightly archival job moves them out of the table
+			saveVersioned(reservation.status(ReservationStatus.CANCELLED));
 			calendar.unbook(reservation.getArrivalDate(), reservation.getDepartureDate());
-
-		} finally {
-			lock.unlock(stamp);
-		}
+			return null;
+		});
 	}
 
+	/* Pure read, hence a read-only transaction (manual flush mode, no dirty checking) along with a dto projection
+	 * which skips loading a managed entity altogether.
+	 */
 	@Override
+	@Transactional(readOnly = true)
 	public ReservationDto readReservation(String uuid) {
-		return toDto(retrieveReservation(uuid));
+		long finding = System.nanoTime();
+		ReservationDto reservationDto = reservationRepository.findDtoByUuid(uuid);
+		RequestTiming.since(Phase.REPOSITORY, finding);
+		return Optional.ofNullable(reservationDto)
+				.orElseThrow(() -> new ReservationServiceException(
+						ReservationServiceErrorCode.RESERVATION_NOT_FOUND,
+						NOT_FOUND_MESSAGE.format(uuid)));
 	}
 
-	/* A cron job would call this method a few seconds before midnight.
-	 * All existing threads would be allowed to finish but all operations would be blocked for new incoming threads.
-	 * At 12:00 am the calendar would be moved forward by one day and operations would be re-enabled
+	/* Called by the CalendarRolloverJob after midnight, the calendar having already moved on to the new day with
+	 * Today. The write lock holds operations back only for as long as it takes to drop the past days.
 	 */
+	@Override
 	public void advanceCalendar() {
-		// TODO: implement
-		//calendar.advanceCalendar();
+		long stamp = lock.writeLock();
+		try {
+			calendar.advanceCalendar();
+		} finally {
+			lock.unlock(stamp);
+		}
+	}
+
+	/* Called by the CalendarAuditor on drift found by two audits in a row. Mutations change the calendar under the lock
+	 * but their rows only become visible at commit, after the lock is released (JPA), so holding the lock while reading
+	 * the repository would not keep them out of step. Instead the repository is read outside the lock, and the date is
+	 * only fixed if no mutation was uncommitted before the read, none ran since and the calendar still holds what the
+	 * audit saw. Otherwise nothing is changed, the next audits look at the date again.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public boolean reconcileCalendar(LocalDate date, boolean expectedAvailable) {
+		long observedMutations;
+		long stamp = lock.readLock();
+		try {
+			if (calendar.checkAvailability(date, date) != expectedAvailable || uncommittedMutations.get() > 0) {
+				return false;
+			}
+			observedMutations = mutations;
+		} finally {
+			lock.unlock(stamp);
+		}
+
+		boolean booked = reservationRepository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.ACTIVE, date, date) > 0;
+		stamp = lock.writeLock();
+		try {
+			if (mutations != observedMutations || booked != calendar.checkAvailability(date, date)) {
+				return false;
+			}
+			if (booked) {
+				calendar.book(date, date);
+			} else {
+				calendar.unbook(date, date);
+			}
+			return true;
+		} finally {
+			lock.unlock(stamp);
+		}
 	}
 
 	/* This method is invoked at application startup, it retrieves existing reservations from the repository
-	 * and populates the calendar accordingly.
+	 * and populates the calendar accordingly. Only the part of each reservation falling within the calendar is booked.
 	 */
 	private void syncUpCalendar() {
-		// TODO: implement
+		LocalDate today = Today.date();
+		LocalDate lastDay = today.plusDays(Calendar.TIME_SPAN);
+
+		long stamp = lock.writeLock();
+		try {
+			for (Reservation reservation : reservationRepository.findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus.ACTIVE, today)) {
+				LocalDate arrivalDate = reservation.getArrivalDate().isBefore(today) ? today : reservation.getArrivalDate();
+				LocalDate departureDate = reservation.getDepartureDate().isAfter(lastDay) ? lastDay : reservation.getDepartureDate();
+				if (!arrivalDate.isAfter(departureDate)) {
+					calendar.book(arrivalDate, departureDate);
+				}
+			}
+		} finally {
+			lock.unlock(stamp);
+		}
+	}
+
+	/* Reads run without locking first and are retried under the read lock only if a mutation got in the way.
+	 * The calendar arrays are never reallocated, so a read overlapping a mutation returns garbage but can't fail.
+	 */
+	private <T> T underOptimisticRead(Supplier<T> read) {
+		long reading = System.nanoTime();
+		long stamp = lock.tryOptimisticRead();
+		T result = read.get();
+
+		boolean validated = lock.validate(stamp);
+		calendarLockMetrics.optimisticRead(validated);
+		if (validated) {
+			RequestTiming.since(Phase.CALENDAR, reading);
+			return result;
+		}
+		stamp = lock.readLock();
+		long acquired = System.nanoTime();
+		try {
+			return read.get();
+		} finally {
+			lock.unlock(stamp);
+			RequestTiming.add(Phase.LOCK, acquired - reading);
+			RequestTiming.since(Phase.CALENDAR, acquired);
+		}
+	}
+
+	/* Mutations have been admitted before being queued for the mutation executor, they report back how long they held
+	 * the write lock which paces the mutations in flight. Waiting and holding times also go to the metrics and the
+	 * timing of the current request. Repository writes wait to be durable once the lock is released, so that
+	 * mutations queueing up behind each other still share a group commit (event log backend). Mutations are counted,
+	 * and tracked until their transaction completes, for reconcileCalendar.
+	 */
+	private <T> T underWriteLock(Supplier<T> mutation) {
+		long locking = System.nanoTime();
+		long acquired = locking;
+		RequestTiming timing = RequestTiming.current();
+		long repositoryNanos = timing == null ? 0 : timing.getNanos(Phase.REPOSITORY);
+		DeferredDurability.begin();
+		try {
+			long stamp = lock.writeLock();
+			acquired = System.nanoTime();
+			try {
+				mutations++;
+				trackCompletion();
+				return mutation.get();
+			} finally {
+				lock.unlock(stamp);
+			}
+		} finally {
+			long released = System.nanoTime();
+			admissionLimiter.held(released - acquired);
+			calendarLockMetrics.writeLocked(acquired - locking, released - acquired);
+			if (timing != null) {
+				// Calendar time is the time holding the lock, repository calls excepted
+				RequestTiming.add(Phase.LOCK, acquired - locking);
+				RequestTiming.add(Phase.CALENDAR, released - acquired - (timing.getNanos(Phase.REPOSITORY) - repositoryNanos));
+			}
+			DeferredDurability.end();
+			RequestTiming.since(Phase.REPOSITORY, released);
+		}
+	}
+
+	private void trackCompletion() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		uncommittedMutations.incrementAndGet();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				uncommittedMutations.decrementAndGet();
+			}
+		});
 	}
 
 	private Reservation retrieveReservation(String uuid) {
-		return Optional.ofNullable(reservationRepository.findByUuid(uuid))
+		long finding = System.nanoTime();
+		Reservation reservation = reservationRepository.findByUuid(uuid);
+		RequestTiming.since(Phase.REPOSITORY, finding);
+		return Optional.ofNullable(reservation)
+				.filter(Reservation::isActive)
 				.orElseThrow(() -> new ReservationServiceException(
 						ReservationServiceErrorCode.RESERVATION_NOT_FOUND,
-						String.format("Reservation with id %s not found.", uuid)));
+						NOT_FOUND_MESSAGE.format(uuid)));
+	}
+
+	private void checkVersion(Reservation reservation, Long expectedVersion) {
+		if (expectedVersion != null && !expectedVersion.equals(reservation.getVersion())) {
+			throw new ReservationServiceException(
+					ReservationServiceErrorCode.VERSION_MISMATCH,
+					VERSION_MISMATCH_MESSAGE.format(reservation.getUuid(), reservation.getVersion(), expectedVersion));
+		}
+	}
+
+	private Reservation saveVersioned(Reservation reservation) {
+		long saving = System.nanoTime();
+		try {
+			return reservationRepository.saveAndFlush(reservation);
+		} catch (ConcurrencyFailureException ex) {
+			throw new ReservationServiceException(
+					ReservationServiceErrorCode.CONCURRENT_MODIFICATION,
+					CONCURRENT_MODIFICATION_MESSAGE.format(reservation.getUuid()));
+		} finally {
+			saved(System.nanoTime() - saving);
+		}
+	}
+
+	private void saved(long latencyNanos) {
+		reservationServiceMetrics.saved(latencyNanos);
+		RequestTiming.add(Phase.REPOSITORY, latencyNanos);
 	}
 
 	private Reservation toEntity(ReservationDto reservationDto) {
@@ -201,6 +428,21 @@ public class ReservationServiceImpl implements ReservationService {
 				.email(reservation.getEmail())
 				.fullName(reservation.getFullName())
 				.arrivalDate(reservation.getArrivalDate())
-				.departureDate(reservation.getDepartureDate());
+				.departureDate(reservation.getDepartureDate())
+				.version(reservation.getVersion());
+	}
+
+	/*
+	 * Bounds of the occupancy buckets as epoch days, the first one being the start date and the last one the day
+	 * after the end date
+	 */
+	private static int[] bucketBounds(LocalDate startDate, LocalDate endDate, OccupancyGranularity granularity) {
+		int[] bounds = new int[(int) (endDate.toEpochDay() - startDate.toEpochDay()) + 2];
+		int count = 0;
+		for (LocalDate date = startDate; !date.isAfter(endDate); date = granularity.nextBucket(date)) {
+			bounds[count++] = (int) date.toEpochDay();
+		}
+		bounds[count++] = (int) endDate.toEpochDay() + 1;
+		return count == bounds.length ? bounds : Arrays.copyOf(bounds, count);
 	}
 }
@@ -0,0 +1,60 @@
+package com.upgrade.campsite.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.upgrade.campsite.metrics.LatencyRecorder;
+import com.upgrade.campsite.metrics.MetricsSource;
+import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
+
+/*
+ * Repository save latency, and operations rejected by the service (conflicts, unavailable dates, overload...) by
+ * error code. Rejections are counted where they become responses, so that conflicts detected at commit time are
+ * counted as well.
+ */
+@Component
+public class ReservationServiceMetrics implements MetricsSource {
+
+	private final LatencyRecorder repositorySave = new LatencyRecorder();
+	private final Map<ReservationServiceErrorCode, LongAdder> rejections = new EnumMap<>(ReservationServiceErrorCode.class);
+
+	public ReservationServiceMetrics() {
+		for (ReservationServiceErrorCode errorCode : ReservationServiceErrorCode.values()) {
+			rejections.put(errorCode, new LongAdder());
+		}
+	}
+
+	void saved(long latencyNanos) {
+		repositorySave.record(latencyNanos);
+	}
+
+	public void rejected(ReservationServiceErrorCode errorCode) {
+		rejections.get(errorCode).increment();
+	}
+
+	public long getRejections(ReservationServiceErrorCode errorCode) {
+		return rejections.get(errorCode).sum();
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "reservationService";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		rejections.forEach((errorCode, count) -> metrics.put("rejected." + errorCode.name(), count.sum()));
+		return metrics;
+	}
+
+	@Override
+	public Map<String, LatencyRecorder> getLatencies() {
+		return Collections.singletonMap("repositorySave", repositorySave);
+	}
+}
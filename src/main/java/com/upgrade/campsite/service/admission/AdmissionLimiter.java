@@ -0,0 +1,140 @@
+package com.upgrade.campsite.service.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.upgrade.campsite.metrics.MetricsSource;
+
+/*
+ * Admission control in front of the mutation executor and the calendar write lock, so that a burst of mutations is
+ * shed right away instead of queueing up for seconds.
+ *
+ * Mutations are admitted on the request thread, before being handed to the mutation executor. Mutations in flight
+ * (queued for the executor, waiting for or holding the lock, committing) are counted and those beyond the limit are
+ * rejected. The limit adapts AIMD style to the latency of every mutation from admission to completion: while its
+ * moving average stays under the target the limit grows by one per limit mutations, otherwise it is multiplied by the
+ * backoff ratio. The average lags behind the latency it tracks, one slow mutation keeps it over the target for dozens
+ * of releases, hence the limit is decreased at most once per window of limit releases (about one round trip of the
+ * mutations in flight) rather than on every release of that stretch.
+ */
+@Component
+public class AdmissionLimiter implements MetricsSource {
+
+	private static final double SMOOTHING = 0.1;
+
+	private final AdmissionProperties properties;
+	private final long targetLatencyNanos;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+
+	private volatile int limit;
+	private volatile double averageLatencyNanos;
+	private volatile double averageHoldNanos;
+	private double preciseLimit; // guarded by this
+	private long releases; // guarded by this
+	private long nextDecreaseRelease; // guarded by this
+
+	public AdmissionLimiter(AdmissionProperties properties) {
+		this.properties = properties;
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(properties.getTargetLatencyMillis());
+		this.preciseLimit = properties.getInitialLimit();
+		this.limit = properties.getInitialLimit();
+	}
+
+	/**
+	 * Admit a mutation, unless the limit has been reached. Every admitted mutation must be released.
+	 * @return true if admitted, otherwise false
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit && properties.isEnabled()) {
+				rejected.increment();
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				admitted.increment();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Release a completed mutation and adjust the limit
+	 * @param latencyNanos Time elapsed since the mutation was admitted, queueing included
+	 */
+	public void release(long latencyNanos) {
+		inFlight.decrementAndGet();
+		adjust(latencyNanos);
+	}
+
+	/**
+	 * Release an admitted mutation which did not run, e.g. rejected by the executor, leaving the limit as is
+	 */
+	public void cancel() {
+		inFlight.decrementAndGet();
+	}
+
+	/**
+	 * Report the time a mutation held the calendar lock, which paces the mutations in flight
+	 * @param holdNanos
+	 */
+	public void held(long holdNanos) {
+		averageHoldNanos = smooth(averageHoldNanos, holdNanos);
+	}
+
+	/**
+	 * @return Seconds after which a rejected mutation is likely to be admitted: the time it takes for the mutations
+	 * in flight to go through the lock, at least one second
+	 */
+	public long retryAfterSeconds() {
+		double drainNanos = inFlight.get() * averageHoldNanos;
+		return Math.max(1L, (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "admission";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		metrics.put("limit", limit);
+		metrics.put("inFlight", inFlight.get());
+		metrics.put("admitted", admitted.sum());
+		metrics.put("rejected", rejected.sum());
+		metrics.put("latencyMicros", (long) averageLatencyNanos / 1000);
+		metrics.put("lockHoldMicros", (long) averageHoldNanos / 1000);
+		return metrics;
+	}
+
+	private synchronized void adjust(long latencyNanos) {
+		averageLatencyNanos = smooth(averageLatencyNanos, latencyNanos);
+		releases++;
+		if (averageLatencyNanos > targetLatencyNanos) {
+			// Mutations released within the window were admitted before the previous decrease took effect
+			if (releases >= nextDecreaseRelease) {
+				preciseLimit = Math.max(properties.getMinLimit(), preciseLimit * properties.getBackoffRatio());
+				nextDecreaseRelease = releases + (long) Math.ceil(preciseLimit);
+			}
+		} else {
+			preciseLimit = Math.min(properties.getMaxLimit(), preciseLimit + 1.0 / preciseLimit);
+		}
+		limit = (int) preciseLimit;
+	}
+
+	private static double smooth(double average, long sample) {
+		return average == 0 ? sample : average + SMOOTHING * (sample - average);
+	}
+}
@@ -0,0 +1,81 @@
+package com.upgrade.campsite.service.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "campsite.admission")
+public class AdmissionProperties {
+
+	/**
+	 * Whether mutations beyond the limit are rejected, otherwise the limiter only keeps track of them
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Concurrent mutations (queued for the mutation executor, waiting for or holding the calendar lock) admitted at startup
+	 */
+	private int initialLimit = 20;
+
+	private int minLimit = 1;
+
+	private int maxLimit = 200;
+
+	/**
+	 * Mutation latency (from admission to completion, queueing included) above which the limit is decreased
+	 */
+	private long targetLatencyMillis = 50;
+
+	/**
+	 * Factor applied to the limit on every decrease
+	 */
+	private double backoffRatio = 0.9;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	public void setInitialLimit(int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public void setMinLimit(int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public void setMaxLimit(int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	public long getTargetLatencyMillis() {
+		return targetLatencyMillis;
+	}
+
+	public void setTargetLatencyMillis(long targetLatencyMillis) {
+		this.targetLatencyMillis = targetLatencyMillis;
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	public void setBackoffRatio(double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+}
@@ -0,0 +1,74 @@
+package com.upgrade.campsite.service.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "campsite.audit")
+public class AuditProperties {
+
+	/**
+	 * Whether the calendar is audited against the repository in the background
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Delay between the end of an audit and the start of the next one
+	 */
+	private long intervalMillis = 60000;
+
+	/**
+	 * Reservations read from the repository at once
+	 */
+	private int chunkSize = 200;
+
+	/**
+	 * Repository reads (chunks, and dates being repaired) per second the auditor is allowed
+	 */
+	private double readsPerSecond = 5;
+
+	/**
+	 * Whether drifted dates are fixed in the calendar, otherwise they are only reported
+	 */
+	private boolean repair = false;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	public void setIntervalMillis(long intervalMillis) {
+		this.intervalMillis = intervalMillis;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public double getReadsPerSecond() {
+		return readsPerSecond;
+	}
+
+	public void setReadsPerSecond(double readsPerSecond) {
+		this.readsPerSecond = readsPerSecond;
+	}
+
+	public boolean isRepair() {
+		return repair;
+	}
+
+	public void setRepair(boolean repair) {
+		this.repair = repair;
+	}
+}
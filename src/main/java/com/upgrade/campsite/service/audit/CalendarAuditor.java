@@ -0,0 +1,206 @@
+package com.upgrade.campsite.service.audit;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.Today;
+import com.upgrade.campsite.metrics.MetricsSource;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.service.ReservationService;
+
+/*
+ * Background check of the calendar against the repository. Every audit rebuilds the occupancy of the calendar dates
+ * from the active reservations, read in chunks at a bounded rate, and compares it to the live calendar.
+ *
+ * A date read while a mutation is in flight may legitimately differ (the calendar changes under the lock, the row
+ * at commit), hence a date only counts as drifted when two audits in a row find it out of step. Drifted dates are
+ * reported, and fixed through the service when repair is on.
+ *
+ * Audits run on a thread of their own at the lowest priority, so that they never hold back the scheduled jobs.
+ */
+@Component
+public class CalendarAuditor implements MetricsSource {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CalendarAuditor.class);
+
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private AuditProperties properties;
+
+	private RateLimiter repositoryReads;
+	private ScheduledExecutorService executor;
+
+	// Dates out of step in the last audit, only touched by the auditor thread
+	private Set<LocalDate> suspects = Collections.emptySet();
+
+	private final AtomicLong audits = new AtomicLong();
+	private final AtomicLong driftedDates = new AtomicLong();
+	private final AtomicLong repairedDates = new AtomicLong();
+	private volatile long lastAuditMillis;
+	private volatile int suspectDates;
+	private volatile int overbookedDates;
+
+	@PostConstruct
+	public void start() {
+		repositoryReads = RateLimiter.create(properties.getReadsPerSecond());
+		if (!properties.isEnabled()) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "calendar-auditor");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::auditQuietly, properties.getIntervalMillis(), properties.getIntervalMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * An exception would cancel the schedule
+	 */
+	private void auditQuietly() {
+		try {
+			audit();
+		} catch (RuntimeException ex) {
+			LOGGER.warn("Calendar audit failed", ex);
+		}
+	}
+
+	/**
+	 * Compare the calendar to the repository, report the dates found out of step by this audit and the previous one,
+	 * and fix them if repair is on
+	 */
+	void audit() {
+		long start = System.currentTimeMillis();
+		LocalDate today = Today.date();
+		int[] stays = countStays(today);
+
+		DateRangeDto range = new DateRangeDto();
+		range.setStartDate(today);
+		range.setEndDate(today.plusDays(Calendar.TIME_SPAN));
+		boolean[] available = new boolean[stays.length];
+		for (int epochDay : reservationService.readAvailability(range).getAvailableEpochDays()) {
+			available[(int) (epochDay - today.toEpochDay())] = true;
+		}
+		if (!today.equals(Today.date())) {
+			// The calendar moved forward meanwhile, the next audit starts over
+			return;
+		}
+
+		Set<LocalDate> outOfStep = new TreeSet<>();
+		int overbooked = 0;
+		for (int day = 0; day < stays.length; day++) {
+			if ((stays[day] > 0) == available[day]) {
+				outOfStep.add(today.plusDays(day));
+			}
+			if (stays[day] > 1) {
+				overbooked++;
+			}
+		}
+		Set<LocalDate> drifted = new TreeSet<>(outOfStep);
+		drifted.retainAll(suspects);
+		suspects = outOfStep;
+
+		audits.incrementAndGet();
+		suspectDates = outOfStep.size();
+		overbookedDates = overbooked;
+		if (overbooked > 0) {
+			LOGGER.warn("Calendar audit: {} dates held by more than one reservation", overbooked);
+		}
+		if (!drifted.isEmpty()) {
+			driftedDates.addAndGet(drifted.size());
+			LOGGER.warn("Calendar audit: calendar and repository disagree on {}", drifted);
+			if (properties.isRepair()) {
+				repair(drifted, today, available);
+			}
+		}
+		lastAuditMillis = System.currentTimeMillis() - start;
+	}
+
+	/*
+	 * Active reservations staying on each date of the calendar, index 0 being today
+	 */
+	private int[] countStays(LocalDate today) {
+		int[] stays = new int[Calendar.TIME_SPAN + 1];
+		long lastId = 0;
+		List<Reservation> chunk;
+		do {
+			repositoryReads.acquire();
+			chunk = reservationRepository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+					ReservationStatus.ACTIVE, today, lastId, new PageRequest(0, properties.getChunkSize()));
+			for (Reservation reservation : chunk) {
+				int firstDay = (int) Math.max(reservation.getArrivalDate().toEpochDay() - today.toEpochDay(), 0);
+				int lastDay = (int) Math.min(reservation.getDepartureDate().toEpochDay() - today.toEpochDay(), Calendar.TIME_SPAN);
+				for (int day = firstDay; day <= lastDay; day++) {
+					stays[day]++;
+				}
+				lastId = reservation.getId();
+			}
+		} while (chunk.size() == properties.getChunkSize());
+		return stays;
+	}
+
+	/*
+	 * Each date is passed along with its availability as read by this audit, it is left alone if that has changed since
+	 */
+	private void repair(Set<LocalDate> drifted, LocalDate today, boolean[] available) {
+		for (LocalDate date : drifted) {
+			repositoryReads.acquire();
+			if (reservationService.reconcileCalendar(date, available[(int) (date.toEpochDay() - today.toEpochDay())])) {
+				repairedDates.incrementAndGet();
+			}
+		}
+		LOGGER.info("Calendar audit: {} repaired dates so far", repairedDates.get());
+	}
+
+	@Override
+	public String getMetricsPrefix() {
+		return "calendarAudit";
+	}
+
+	@Override
+	public Map<String, Number> getMetrics() {
+		Map<String, Number> metrics = new LinkedHashMap<>();
+		metrics.put("audits", audits.get());
+		metrics.put("lastAuditMillis", lastAuditMillis);
+		metrics.put("suspectDates", suspectDates);
+		metrics.put("driftedDates", driftedDates.get());
+		metrics.put("repairedDates", repairedDates.get());
+		metrics.put("overbookedDates", overbookedDates);
+		return metrics;
+	}
+}
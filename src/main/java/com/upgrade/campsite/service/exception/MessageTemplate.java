@@ -0,0 +1,46 @@
+package com.upgrade.campsite.service.exception;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Message with {} placeholders. The template is split into its literal fragments once, so filling it in is plain
+ * concatenation with none of the format string parsing String.format does on every call.
+ */
+public final class MessageTemplate {
+
+	private static final String PLACEHOLDER = "{}";
+
+	private final String[] fragments;
+	private final int length;
+
+	public MessageTemplate(String template) {
+		List<String> parts = new ArrayList<>();
+		int start = 0;
+		int placeholder;
+		while ((placeholder = template.indexOf(PLACEHOLDER, start)) >= 0) {
+			parts.add(template.substring(start, placeholder));
+			start = placeholder + PLACEHOLDER.length();
+		}
+		parts.add(template.substring(start));
+		this.fragments = parts.toArray(new String[parts.size()]);
+		this.length = template.length();
+	}
+
+	/**
+	 * Fill in the placeholders in order, missing arguments leave their placeholder empty
+	 * @param args
+	 * @return The message
+	 */
+	public String format(Object... args) {
+		StringBuilder message = new StringBuilder(length + 16 * args.length);
+		message.append(fragments[0]);
+		for (int i = 1; i < fragments.length; i++) {
+			if (i <= args.length) {
+				message.append(args[i - 1]);
+			}
+			message.append(fragments[i]);
+		}
+		return message.toString();
+	}
+}
@@ -3,5 +3,8 @@ package com.upgrade.campsite.service.exception;
 public enum ReservationServiceErrorCode {
 	UNAVAILABLE_DATES,
 	RESERVATION_NOT_FOUND,
-	RESERVATION_EXPIRED
+	RESERVATION_EXPIRED,
+	VERSION_MISMATCH,
+	CONCURRENT_MODIFICATION,
+	OVERLOADED
 }
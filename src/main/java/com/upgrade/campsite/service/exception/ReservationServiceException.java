@@ -1,11 +1,15 @@
 package com.upgrade.campsite.service.exception;
 
+/*
+ * Business rule violations, expected in large numbers (e.g. unavailable dates when bookings open) and fully described
+ * by their error code and message. Hence the stack trace is never captured and suppression is disabled.
+ */
 public class ReservationServiceException extends RuntimeException {
 
 	private final ReservationServiceErrorCode errorCode;
 
 	public ReservationServiceException(ReservationServiceErrorCode errorCode, String message) {
-		super(message);
+		super(message, null, false, false);
 		this.errorCode = errorCode;
 	}
 
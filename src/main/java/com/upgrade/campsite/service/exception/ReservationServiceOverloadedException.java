@@ -0,0 +1,18 @@
+package com.upgrade.campsite.service.exception;
+
+/*
+ * Mutation rejected by admission control, along with a hint of when to retry it
+ */
+public class ReservationServiceOverloadedException extends ReservationServiceException {
+
+	private final long retryAfterSeconds;
+
+	public ReservationServiceOverloadedException(String message, long retryAfterSeconds) {
+		super(ReservationServiceErrorCode.OVERLOADED, message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
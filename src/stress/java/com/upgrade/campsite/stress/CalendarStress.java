@@ -0,0 +1,330 @@
+package com.upgrade.campsite.stress;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.upgrade.campsite.CampsiteReservationsApplication;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.Today;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.service.ReservationService;
+import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
+import com.upgrade.campsite.service.exception.ReservationServiceException;
+
+/*
+ * Calendar correctness under concurrent mutations, in the spirit of jcstress: guests call the service directly from
+ * many threads, making, modifying and cancelling reservations of their own and reading availability in between, while
+ * invariants are checked all along:
+ *
+ *   - no overbooking: no night is ever held by two accepted reservations at the same time (see NightOwners)
+ *   - no phantom availability: a night held by a reservation for the whole duration of an availability read is never
+ *     read as available, and a reservation's nights are unavailable right after it has been accepted
+ *   - no lost reservation: a guest's own reservation is never found missing, or changed by someone else
+ *   - calendar equal to repository: at every checkpoint the guests pause, and the calendar, the active reservations
+ *     of the repository and the nights held by the guests must agree on every night
+ *
+ * Admission control is off, so that every mutation queues up on the calendar lock. Runs are meant to stay within a
+ * day: calendar rollover isn't exercised, and a run crossing midnight stops early.
+ *
+ * Reports the operations by outcome and the violations found, if any, in which case it exits with status 1.
+ *
+ * Run with: mvn -P stress test-compile exec:exec -Dstress.args="threads=8 duration=10 backend=in-memory"
+ */
+public class CalendarStress {
+
+	private static final int MAX_STAY = 3;
+	private static final int MAX_VIOLATIONS_PRINTED = 20;
+
+	private final StressSettings settings;
+	private final ReservationService reservationService;
+	private final ReservationRepository reservationRepository;
+	private final NightOwners owners = new NightOwners(Today.date());
+	private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+	// Guests hold the read lock for every operation, checkpoints take the write lock to see a quiescent state
+	private final ReadWriteLock pause = new ReentrantReadWriteLock();
+	private volatile boolean running = true;
+	private int checkpoints;
+
+	CalendarStress(StressSettings settings, ReservationService reservationService, ReservationRepository reservationRepository) {
+		this.settings = settings;
+		this.reservationService = reservationService;
+		this.reservationRepository = reservationRepository;
+	}
+
+	public static void main(String... args) throws Exception {
+		StressSettings settings = new StressSettings(args);
+		String dataPath = "target/stress/" + UUID.randomUUID();
+
+		SpringApplicationBuilder application = new SpringApplicationBuilder(CampsiteReservationsApplication.class).web(false);
+		if (settings.getBackend().equals("in-memory")) {
+			application.profiles("in-memory");
+		}
+		ConfigurableApplicationContext context = application.run(
+				"--logging.level.root=WARN",
+				"--campsite.admission.enabled=false",
+				"--campsite.repository.backend=" + settings.getBackend(),
+				"--campsite.repository.event-log.path=" + dataPath + ".log",
+				"--campsite.repository.in-memory.checkpoint-path=" + dataPath + ".checkpoint");
+		boolean passed;
+		try {
+			passed = new CalendarStress(settings, context.getBean(ReservationService.class), context.getBean(ReservationRepository.class)).run();
+		} finally {
+			context.close();
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	boolean run() throws InterruptedException {
+		List<Thread> guests = new ArrayList<>();
+		for (int guest = 0; guest < settings.getThreads(); guest++) {
+			Thread thread = new Thread(new Guest(guest), "guest-" + guest);
+			thread.start();
+			guests.add(thread);
+		}
+
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getDuration());
+		while (System.nanoTime() < end) {
+			Thread.sleep(settings.getCheckEvery());
+			if (!Today.date().equals(owners.getToday())) {
+				System.out.println("Crossed midnight, stopping early");
+				break;
+			}
+			checkpoint();
+		}
+		running = false;
+		for (Thread guest : guests) {
+			guest.join();
+		}
+		checkpoint();
+
+		return report();
+	}
+
+	/*
+	 * Calendar, repository and guests must agree on every night once the guests are paused
+	 */
+	private void checkpoint() {
+		pause.writeLock().lock();
+		try {
+			checkpoints++;
+			String[] held = owners.snapshot();
+			boolean[] available = new boolean[held.length];
+			for (int epochDay : reservationService.readAvailability(new DateRangeDto()).getAvailableEpochDays()) {
+				available[owners.day(LocalDate.ofEpochDay(epochDay))] = true;
+			}
+			List<List<String>> stored = new ArrayList<>();
+			for (int day = 0; day < held.length; day++) {
+				stored.add(new ArrayList<>());
+			}
+			for (Reservation reservation : reservationRepository.findAll()) {
+				if (reservation.isActive()) {
+					for (LocalDate night = reservation.getArrivalDate(); !night.isAfter(reservation.getDepartureDate()); night = night.plusDays(1)) {
+						stored.get(owners.day(night)).add(reservation.getUuid());
+					}
+				}
+			}
+
+			for (int day = 1; day < held.length; day++) {
+				LocalDate night = owners.getToday().plusDays(day);
+				List<String> reservations = stored.get(day);
+				if (reservations.size() > 1) {
+					owners.violation("OVERBOOKED " + night + " in the repository: " + reservations);
+				}
+				if (available[day] != reservations.isEmpty()) {
+					owners.violation("Calendar and repository disagree on " + night + ": calendar "
+							+ (available[day] ? "free" : "booked") + ", repository " + reservations);
+				}
+				if (held[day] == null ? !reservations.isEmpty() : !reservations.contains(held[day])) {
+					owners.violation("Guests and repository disagree on " + night + ": guests " + held[day] + ", repository " + reservations);
+				}
+			}
+		} finally {
+			pause.writeLock().unlock();
+		}
+	}
+
+	private boolean report() {
+		System.out.println("Stress run: " + settings);
+		new TreeMap<>(outcomes).forEach((outcome, count) -> System.out.printf("  %-40s %d%n", outcome, count.sum()));
+		System.out.println("  checkpoints                              " + checkpoints);
+
+		int violations = owners.getViolations().size();
+		owners.getViolations().stream().limit(MAX_VIOLATIONS_PRINTED).forEach(violation -> System.out.println("  " + violation));
+		if (violations > MAX_VIOLATIONS_PRINTED) {
+			System.out.println("  ... " + (violations - MAX_VIOLATIONS_PRINTED) + " more");
+		}
+		System.out.println(violations == 0 ? "Invariant checks passed" : "Invariant checks FAILED");
+		return violations == 0;
+	}
+
+	private void outcome(String operation, String outcome) {
+		outcomes.computeIfAbsent(operation + " " + outcome, key -> new LongAdder()).increment();
+	}
+
+	/*
+	 * Reads are checked against the nights held before and after them, which were held throughout
+	 */
+	private void readAvailability() {
+		String[] before = owners.snapshot();
+		int[] available = reservationService.readAvailability(new DateRangeDto()).getAvailableEpochDays();
+		String[] after = owners.snapshot();
+
+		int previousDay = 0;
+		for (int epochDay : available) {
+			int day = owners.day(LocalDate.ofEpochDay(epochDay));
+			if (day <= previousDay || day > Calendar.TIME_SPAN) {
+				owners.violation("Availability read out of order or range: " + LocalDate.ofEpochDay(epochDay));
+			} else if (before[day] != null && before[day].equals(after[day])) {
+				owners.violation("PHANTOM availability of " + LocalDate.ofEpochDay(epochDay) + ", held by " + before[day]);
+			}
+			previousDay = day;
+		}
+		outcome("readAvailability", "OK");
+	}
+
+	/*
+	 * Nights of a reservation just accepted must be unavailable, since no one else can give them up
+	 */
+	private void checkBooked(ReservationDto reservation) {
+		DateRangeDto range = new DateRangeDto();
+		range.setStartDate(reservation.getArrivalDate());
+		range.setEndDate(reservation.getDepartureDate());
+		int[] available = reservationService.readAvailability(range).getAvailableEpochDays();
+		if (available.length > 0) {
+			owners.violation("PHANTOM availability of " + LocalDate.ofEpochDay(available[0]) + " right after "
+					+ reservation.getUuid() + " was accepted");
+		}
+	}
+
+	private class Guest implements Runnable {
+
+		private final String email;
+		private final List<ReservationDto> reservations = new ArrayList<>();
+
+		Guest(int guest) {
+			this.email = "guest" + guest + "@stress.test";
+		}
+
+		@Override
+		public void run() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (running) {
+				pause.readLock().lock();
+				try {
+					int operation = random.nextInt(100);
+					if (operation < 15 && !reservations.isEmpty()) {
+						cancel(reservations.remove(random.nextInt(reservations.size())));
+					} else if (operation < 35 && !reservations.isEmpty()) {
+						int index = random.nextInt(reservations.size());
+						reservations.set(index, modify(reservations.get(index), random));
+					} else if (operation < 60) {
+						make(random);
+					} else {
+						readAvailability();
+					}
+				} catch (RuntimeException ex) {
+					owners.violation("Unexpected " + ex);
+				} finally {
+					pause.readLock().unlock();
+				}
+			}
+		}
+
+		private void make(ThreadLocalRandom random) {
+			ReservationDto stay = stay(random);
+			try {
+				ReservationDto booked = reservationService.makeReservation(stay);
+				owners.claim(booked.getUuid(), booked.getArrivalDate(), booked.getDepartureDate());
+				checkBooked(booked);
+				reservations.add(booked);
+				outcome("makeReservation", "OK");
+			} catch (ReservationServiceException ex) {
+				outcome("makeReservation", ex.getErrorCode().name());
+			}
+		}
+
+		/*
+		 * Moves a reservation by a day or to any other stay. Nights given up are released before the call and claimed
+		 * back if it fails.
+		 */
+		private ReservationDto modify(ReservationDto reservation, ThreadLocalRandom random) {
+			ReservationDto stay = random.nextBoolean() ? stay(random) : shifted(reservation, random.nextBoolean() ? 1 : -1);
+			if (stay == null) {
+				return reservation;
+			}
+			owners.release(reservation.getUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+			try {
+				ReservationDto modified = reservationService.modifyReservation(reservation.getUuid(), stay, reservation.getVersion());
+				owners.claim(modified.getUuid(), modified.getArrivalDate(), modified.getDepartureDate());
+				checkBooked(modified);
+				outcome("modifyReservation", "OK");
+				return modified;
+			} catch (ReservationServiceException ex) {
+				owners.claim(reservation.getUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+				expectUnavailable("modifyReservation", reservation, ex);
+				return reservation;
+			}
+		}
+
+		private void cancel(ReservationDto reservation) {
+			owners.release(reservation.getUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+			try {
+				reservationService.cancelReservation(reservation.getUuid(), reservation.getVersion());
+				outcome("cancelReservation", "OK");
+			} catch (ReservationServiceException ex) {
+				owners.claim(reservation.getUuid(), reservation.getArrivalDate(), reservation.getDepartureDate());
+				reservations.add(reservation);
+				expectUnavailable("cancelReservation", reservation, ex);
+			}
+		}
+
+		/*
+		 * Only the guest changes its reservations: anything but unavailable dates means one got lost or overwritten
+		 */
+		private void expectUnavailable(String operation, ReservationDto reservation, ReservationServiceException ex) {
+			outcome(operation, ex.getErrorCode().name());
+			if (ex.getErrorCode() != ReservationServiceErrorCode.UNAVAILABLE_DATES) {
+				owners.violation(operation + " of " + reservation.getUuid() + " failed with " + ex.getErrorCode() + ": " + ex.getMessage());
+			}
+		}
+
+		private ReservationDto stay(ThreadLocalRandom random) {
+			int nights = 1 + random.nextInt(MAX_STAY);
+			LocalDate arrivalDate = owners.getToday().plusDays(1 + random.nextInt(Calendar.TIME_SPAN - nights + 1));
+			return new ReservationDto()
+					.email(email)
+					.fullName("Stress Guest")
+					.arrivalDate(arrivalDate)
+					.departureDate(arrivalDate.plusDays(nights - 1));
+		}
+
+		private ReservationDto shifted(ReservationDto reservation, int days) {
+			LocalDate arrivalDate = reservation.getArrivalDate().plusDays(days);
+			LocalDate departureDate = reservation.getDepartureDate().plusDays(days);
+			if (owners.day(arrivalDate) < 1 || owners.day(departureDate) > Calendar.TIME_SPAN) {
+				return null;
+			}
+			return new ReservationDto()
+					.email(email)
+					.fullName("Stress Guest")
+					.arrivalDate(arrivalDate)
+					.departureDate(departureDate);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.upgrade.campsite.stress;
+
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.upgrade.campsite.calendar.Calendar;
+
+/*
+ * Which reservation holds each night of the calendar, as far as the guests know. A guest claims the nights of a
+ * reservation once the service has accepted it, and releases them before asking the service to give them up, so two
+ * reservations can only ever claim the same night if the service let both hold it at the same time: overbooking.
+ */
+class NightOwners {
+
+	private final LocalDate today;
+	private final AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(Calendar.TIME_SPAN + 1);
+	private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+
+	NightOwners(LocalDate today) {
+		this.today = today;
+	}
+
+	void claim(String uuid, LocalDate arrivalDate, LocalDate departureDate) {
+		for (LocalDate night = arrivalDate; !night.isAfter(departureDate); night = night.plusDays(1)) {
+			String owner = owners.getAndSet(day(night), uuid);
+			if (owner != null && !owner.equals(uuid)) {
+				violation("OVERBOOKED " + night + ": held by " + owner + " and " + uuid);
+			}
+		}
+	}
+
+	void release(String uuid, LocalDate arrivalDate, LocalDate departureDate) {
+		for (LocalDate night = arrivalDate; !night.isAfter(departureDate); night = night.plusDays(1)) {
+			owners.compareAndSet(day(night), uuid, null);
+		}
+	}
+
+	/**
+	 * @return Owner of every night, index 0 being today
+	 */
+	String[] snapshot() {
+		String[] snapshot = new String[owners.length()];
+		for (int day = 0; day < snapshot.length; day++) {
+			snapshot[day] = owners.get(day);
+		}
+		return snapshot;
+	}
+
+	LocalDate getToday() {
+		return today;
+	}
+
+	void violation(String violation) {
+		violations.add(violation);
+	}
+
+	Queue<String> getViolations() {
+		return violations;
+	}
+
+	int day(LocalDate date) {
+		return (int) (date.toEpochDay() - today.toEpochDay());
+	}
+}
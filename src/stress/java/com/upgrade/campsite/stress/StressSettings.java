@@ -0,0 +1,62 @@
+package com.upgrade.campsite.stress;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Settings of a stress run, given as name=value arguments, e.g. threads=8 duration=10 backend=in-memory
+ *
+ *   - threads: guests hammering the service, each one making, modifying and cancelling reservations of its own
+ *     and reading availability in between
+ *   - duration: seconds of the run
+ *   - checkEvery: milliseconds between two checkpoints, where the guests pause and the calendar is compared to the
+ *     repository
+ *   - backend: repository backend, jpa, event-log or in-memory
+ */
+class StressSettings {
+
+	private final int threads;
+	private final int duration;
+	private final int checkEvery;
+	private final String backend;
+
+	StressSettings(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 1) {
+				throw new IllegalArgumentException("Expected name=value instead of " + arg);
+			}
+			values.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+		this.threads = Integer.parseInt(values.getOrDefault("threads", "8"));
+		this.duration = Integer.parseInt(values.getOrDefault("duration", "10"));
+		this.checkEvery = Integer.parseInt(values.getOrDefault("checkEvery", "200"));
+		this.backend = values.getOrDefault("backend", "jpa");
+		if (threads < 1 || duration < 1 || checkEvery < 1
+				|| !(backend.equals("jpa") || backend.equals("event-log") || backend.equals("in-memory"))) {
+			throw new IllegalArgumentException("Invalid settings " + this);
+		}
+	}
+
+	int getThreads() {
+		return threads;
+	}
+
+	int getDuration() {
+		return duration;
+	}
+
+	int getCheckEvery() {
+		return checkEvery;
+	}
+
+	String getBackend() {
+		return backend;
+	}
+
+	@Override
+	public String toString() {
+		return "threads=" + threads + " duration=" + duration + " checkEvery=" + checkEvery + " backend=" + backend;
+	}
+}
@@ -1,9 +1,176 @@
 package com.upgrade.campsite.calendar;
 
-public class CalendarTest {
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
 
-	// TODO: Implement unit tests for the Calendar class, left out for brevity.
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CalendarTest {
 
-	// Comprehensive unit and integration tests can be found in the ReservationServiceImplTest,
+	// More comprehensive unit and integration tests can be found in the ReservationServiceImplTest,
 	// ReservationServiceImplIT and ReservationApiIT classes.
+
+	private final SimulatedClock clock = new SimulatedClock(ZonedDateTime.now());
+	private Calendar calendar;
+
+	@Before
+	public void setUp() {
+		Today.useClock(clock);
+		calendar = new Calendar();
+	}
+
+	@After
+	public void tearDown() {
+		Today.useClock(Clock.systemDefaultZone());
+	}
+
+	@Test
+	public void book_thenReadAvailability() {
+
+		calendar.book(day(2), day(4));
+
+		assertThat(calendar.checkAvailability(day(1), day(1))).isTrue();
+		assertThat(calendar.checkAvailability(day(4), day(6))).isFalse();
+		assertThat(calendar.readAvailability(day(1), day(6))).containsExactly(day(1), day(5), day(6));
+		assertThat(calendar.readAvailableEpochDays(day(1), day(Calendar.TIME_SPAN))).hasSize(Calendar.TIME_SPAN - 3);
+	}
+
+	@Test
+	public void unbook_releasesDates() {
+
+		calendar.book(day(2), day(4));
+		calendar.unbook(day(3), day(4));
+
+		assertThat(calendar.readAvailability(day(1), day(5))).containsExactly(day(1), day(3), day(4), day(5));
+	}
+
+	@Test
+	public void nextDay_shiftsDays() {
+
+		calendar.book(day(1), day(1));
+		calendar.book(day(Calendar.TIME_SPAN), day(Calendar.TIME_SPAN));
+		clock.advance(Duration.ofDays(1));
+
+		assertThat(calendar.checkAvailability(day(0), day(0))).isFalse();
+		assertThat(calendar.checkAvailability(day(Calendar.TIME_SPAN - 1), day(Calendar.TIME_SPAN - 1))).isFalse();
+		assertThat(calendar.checkAvailability(day(Calendar.TIME_SPAN), day(Calendar.TIME_SPAN))).isTrue();
+		assertThatThrownBy(() -> calendar.checkAvailability(day(-1), day(-1)))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+
+		calendar.advanceCalendar();
+
+		assertThat(calendar.checkAvailability(day(0), day(0))).isFalse();
+		assertThat(calendar.checkAvailability(day(Calendar.TIME_SPAN), day(Calendar.TIME_SPAN))).isTrue();
+	}
+
+	@Test
+	public void advanceCalendar_dropsPastDays() {
+
+		calendar.book(day(Calendar.TIME_SPAN), day(Calendar.TIME_SPAN));
+		clock.advance(Duration.ofDays(Calendar.TIME_SPAN * 2));
+
+		assertThatThrownBy(() -> calendar.checkAvailability(day(1), day(1)))
+				.isInstanceOf(IllegalStateException.class);
+
+		calendar.advanceCalendar();
+
+		assertThat(calendar.readAvailableEpochDays(day(0), day(Calendar.TIME_SPAN))).hasSize(Calendar.TIME_SPAN + 1);
+	}
+
+	@Test
+	public void checkAvailability_outOfRange() {
+
+		assertThatThrownBy(() -> calendar.checkAvailability(day(Calendar.TIME_SPAN), day(Calendar.TIME_SPAN + 1)))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void findStayWindows_skipsOccupiedDays() {
+
+		calendar.book(day(3), day(3));
+		calendar.book(day(7), day(8));
+
+		assertThat(calendar.findStayWindows(3, 4)).containsExactly(epochDay(4), epochDay(9), epochDay(10), epochDay(11));
+		assertThat(calendar.findStayWindows(1, 3)).containsExactly(epochDay(1), epochDay(2), epochDay(4));
+	}
+
+	@Test
+	public void findStayWindows_withinTimeSpan() {
+
+		int[] windows = calendar.findStayWindows(3, Calendar.TIME_SPAN);
+
+		assertThat(windows).hasSize(Calendar.TIME_SPAN - 2);
+		assertThat(windows[0]).isEqualTo(epochDay(1));
+		assertThat(windows[windows.length - 1]).isEqualTo(epochDay(Calendar.TIME_SPAN - 2));
+	}
+
+	@Test
+	public void findStayWindows_noneAvailable() {
+
+		calendar.book(day(1), day(Calendar.TIME_SPAN));
+
+		assertThat(calendar.findStayWindows(1, 5)).isEmpty();
+	}
+
+	@Test
+	public void checkOverlappingAvailability_checksAddedDaysOnly() {
+
+		calendar.book(day(5), day(6));
+		calendar.book(day(8), day(8));
+
+		assertThat(calendar.checkOverlappingAvailability(day(5), day(6), day(4), day(7))).isTrue();
+		assertThat(calendar.checkOverlappingAvailability(day(5), day(6), day(6), day(8))).isFalse();
+		assertThat(calendar.checkOverlappingAvailability(day(5), day(6), day(5), day(5))).isTrue();
+	}
+
+	@Test
+	public void moveBooking_flipsChangedDays() {
+
+		calendar.book(day(5), day(7));
+		calendar.book(day(10), day(10));
+		calendar.moveBooking(day(5), day(7), day(6), day(8));
+
+		assertThat(calendar.readAvailability(day(4), day(11))).containsExactly(day(4), day(5), day(9), day(11));
+		assertThat(calendar.countOccupied(new int[] { epochDay(1), epochDay(Calendar.TIME_SPAN + 1) })).containsExactly(4);
+	}
+
+	@Test
+	public void moveBooking_stayInProgress() {
+
+		calendar.book(day(0), day(1));
+		calendar.moveBooking(day(-1), day(1), day(2), day(3));
+
+		assertThat(calendar.readAvailability(day(0), day(4))).containsExactly(day(0), day(1), day(4));
+	}
+
+	@Test
+	public void countOccupied_followsChanges() {
+
+		calendar.book(day(2), day(4));
+		calendar.book(day(10), day(10));
+		calendar.unbook(day(4), day(4));
+
+		assertThat(calendar.countOccupied(new int[] { epochDay(1), epochDay(3), epochDay(8), epochDay(Calendar.TIME_SPAN + 1) }))
+				.containsExactly(1, 1, 1);
+
+		clock.advance(Duration.ofDays(1));
+
+		assertThat(calendar.countOccupied(new int[] { epochDay(0), epochDay(2), epochDay(Calendar.TIME_SPAN + 1) }))
+				.containsExactly(1, 2);
+	}
+
+	private static LocalDate day(int daysFromToday) {
+		return Today.date().plusDays(daysFromToday);
+	}
+
+	private static int epochDay(int daysFromToday) {
+		return (int) day(daysFromToday).toEpochDay();
+	}
 }
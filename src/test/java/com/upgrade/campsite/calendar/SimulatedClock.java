@@ -0,0 +1,49 @@
+package com.upgrade.campsite.calendar;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/*
+ * Clock set and moved by tests, e.g. to cross midnight, which otherwise ticks along with the system clock
+ */
+public class SimulatedClock extends Clock {
+
+	private final ZoneId zone;
+	private volatile long offsetMillis;
+
+	public SimulatedClock(ZonedDateTime now) {
+		zone = now.getZone();
+		set(now);
+	}
+
+	public void set(ZonedDateTime now) {
+		offsetMillis = now.toInstant().toEpochMilli() - System.currentTimeMillis();
+	}
+
+	public void advance(Duration duration) {
+		offsetMillis += duration.toMillis();
+	}
+
+	@Override
+	public long millis() {
+		return System.currentTimeMillis() + offsetMillis;
+	}
+
+	@Override
+	public Instant instant() {
+		return Instant.ofEpochMilli(millis());
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+		throw new UnsupportedOperationException();
+	}
+}
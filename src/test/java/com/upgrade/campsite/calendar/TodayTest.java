@@ -0,0 +1,44 @@
+package com.upgrade.campsite.calendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TodayTest {
+
+	private static final LocalDate DATE = LocalDate.of(2017, 10, 28);
+
+	@After
+	public void tearDown() {
+		Today.useClock(Clock.systemDefaultZone());
+	}
+
+	@Test
+	public void epochDay_flipsAtMidnight() {
+
+		SimulatedClock clock = new SimulatedClock(DATE.atTime(23, 59, 59, 900_000_000).atZone(ZoneId.of("America/Montevideo")));
+		Today.useClock(clock);
+
+		assertThat(Today.date()).isEqualTo(DATE);
+
+		clock.set(DATE.plusDays(1).atStartOfDay(clock.getZone()));
+
+		assertThat(Today.date()).isEqualTo(DATE.plusDays(1));
+	}
+
+	@Test
+	public void epochDay_inClockZone() {
+
+		// Midnight in Tokyo is still the day before in Montevideo
+		Today.useClock(new SimulatedClock(DATE.atStartOfDay(ZoneId.of("Asia/Tokyo"))));
+		assertThat(Today.date()).isEqualTo(DATE);
+
+		Today.useClock(new SimulatedClock(DATE.atStartOfDay(ZoneId.of("Asia/Tokyo")).withZoneSameInstant(ZoneId.of("America/Montevideo"))));
+		assertThat(Today.date()).isEqualTo(DATE.minusDays(1));
+	}
+}
@@ -0,0 +1,57 @@
+package com.upgrade.campsite.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PrometheusFormatTest {
+
+	@Test
+	public void name_snakeCase() {
+
+		assertThat(PrometheusFormat.name("calendarLock", "writeLockWait")).isEqualTo("campsite_calendar_lock_write_lock_wait");
+		assertThat(PrometheusFormat.name("reservationService", "rejected.UNAVAILABLE_DATES"))
+				.isEqualTo("campsite_reservation_service_rejected_unavailable_dates");
+	}
+
+	@Test
+	public void write_metricsAndLatencies() {
+
+		LatencyRecorder latency = new LatencyRecorder();
+		for (int millis = 1; millis <= 100; millis++) {
+			latency.record(TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+
+		String text = PrometheusFormat.write(Collections.singletonList(new MetricsSource() {
+
+			@Override
+			public String getMetricsPrefix() {
+				return "admission";
+			}
+
+			@Override
+			public Map<String, Number> getMetrics() {
+				Map<String, Number> metrics = new LinkedHashMap<>();
+				metrics.put("limit", 20);
+				return metrics;
+			}
+
+			@Override
+			public Map<String, LatencyRecorder> getLatencies() {
+				return Collections.singletonMap("lockWait", latency);
+			}
+		}));
+
+		assertThat(text).contains(
+				"# TYPE campsite_admission_limit untyped\ncampsite_admission_limit 20\n",
+				"# TYPE campsite_admission_lock_wait_seconds summary\n",
+				"campsite_admission_lock_wait_seconds{quantile=\"0.5\"} 0.05",
+				"campsite_admission_lock_wait_seconds{quantile=\"0.99\"} 0.099",
+				"campsite_admission_lock_wait_seconds_count 100\n");
+	}
+}
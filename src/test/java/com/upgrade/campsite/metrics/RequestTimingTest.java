@@ -0,0 +1,45 @@
+package com.upgrade.campsite.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.upgrade.campsite.metrics.RequestTiming.Phase;
+
+public class RequestTimingTest {
+
+	@After
+	public void tearDown() {
+		RequestTiming.unbind();
+	}
+
+	@Test
+	public void add_toBoundRequestOnly() {
+
+		RequestTiming.add(Phase.LOCK, 1000);
+
+		RequestTiming timing = new RequestTiming();
+		RequestTiming.bind(timing);
+		RequestTiming.add(Phase.LOCK, 1000);
+		RequestTiming.add(Phase.LOCK, 500);
+
+		assertThat(RequestTiming.current()).isSameAs(timing);
+		assertThat(timing.getNanos(Phase.LOCK)).isEqualTo(1500);
+		assertThat(timing.getNanos(Phase.REPOSITORY)).isEqualTo(0);
+	}
+
+	@Test
+	public void toServerTiming_recordedPhasesInMillis() {
+
+		RequestTiming timing = new RequestTiming();
+		RequestTiming.bind(timing);
+		RequestTiming.add(Phase.VALIDATION, TimeUnit.MICROSECONDS.toNanos(41));
+		RequestTiming.add(Phase.REPOSITORY, TimeUnit.MICROSECONDS.toNanos(12_345));
+
+		assertThat(timing.toServerTiming()).startsWith("validation;dur=0.041, db;dur=12.345, app;dur=");
+		assertThat(timing.toLogFields()).startsWith("validation_ms=0.041 queue_ms=0.000 lock_ms=0.000 calendar_ms=0.000 db_ms=12.345 ser_ms=0.000 total_ms=");
+	}
+}
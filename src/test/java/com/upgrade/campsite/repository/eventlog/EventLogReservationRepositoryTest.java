@@ -0,0 +1,253 @@
+package com.upgrade.campsite.repository.eventlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.support.DeferredDurability;
+
+public class EventLogReservationRepositoryTest {
+
+	private static final String EMAIL = "someone@something.com";
+	private static final String FULL_NAME = "John Smith";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EventLogProperties properties;
+	private EventLogReservationRepository repository;
+
+	@Before
+	public void setup() throws IOException {
+		properties = new EventLogProperties();
+		properties.setPath(folder.getRoot().toPath().resolve("reservations.log").toString());
+		properties.setCapacity(4096);
+		properties.setGroupCommitDelayMillis(0);
+		repository = open();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		repository.close();
+	}
+
+	@Test
+	public void save_assignsIdAndIndexesByUuid() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+
+		assertThat(reservation.getId()).isEqualTo(1L);
+		assertThat(repository.findByUuid(reservation.getUuid()).getArrivalDate()).isEqualTo(LocalDate.now().plusDays(2));
+		assertThat(repository.findOne(1L).getUuid()).isEqualTo(reservation.getUuid());
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	public void save_staleVersion() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+		Reservation stale = repository.findByUuid(reservation.getUuid());
+		repository.save(reservation.fullName("New Name"));
+
+		assertThat(reservation.getVersion()).isEqualTo(1L);
+		assertThatThrownBy(() -> repository.save(stale.fullName("Other Name")))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+		assertThat(repository.findByUuid(reservation.getUuid()).getFullName()).isEqualTo("New Name");
+	}
+
+	@Test
+	public void findByUuid_unknownOrMalformed() {
+
+		assertThat(repository.findByUuid(UUID.randomUUID().toString())).isNull();
+		assertThat(repository.findByUuid("xxx-xxx-xxx-xxx")).isNull();
+	}
+
+	@Test
+	public void modifyCancelAndDelete_survivesReplay() throws IOException {
+
+		Reservation modified = repository.save(newReservation(2, 4));
+		repository.save(modified.email("new@email.com").arrivalDate(LocalDate.now().plusDays(3)));
+		Reservation cancelled = repository.save(newReservation(6, 6));
+		repository.save(cancelled.status(ReservationStatus.CANCELLED));
+		Reservation deleted = repository.save(newReservation(8, 9));
+		repository.delete(deleted);
+
+		repository.close();
+		repository = open();
+
+		assertThat(repository.count()).isEqualTo(2);
+		assertThat(repository.findByUuid(modified.getUuid()).getEmail()).isEqualTo("new@email.com");
+		assertThat(repository.findByUuid(modified.getUuid()).getArrivalDate()).isEqualTo(LocalDate.now().plusDays(3));
+		assertThat(repository.findByUuid(cancelled.getUuid()).getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+		assertThat(repository.findDtoByUuid(cancelled.getUuid())).isNull();
+		assertThat(repository.findByUuid(deleted.getUuid())).isNull();
+		assertThat(repository.save(newReservation(10, 10)).getId()).isEqualTo(4L);
+	}
+
+	@Test
+	public void compact_keepsLiveRecordsOnly() throws IOException {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+		for (int i = 0; i < 10; i++) {
+			repository.save(reservation.fullName("Name " + i));
+		}
+
+		repository.compact();
+		repository.close();
+		repository = open();
+
+		assertThat(repository.count()).isEqualTo(1);
+		assertThat(repository.findByUuid(reservation.getUuid()).getFullName()).isEqualTo("Name 9");
+	}
+
+	@Test
+	public void append_compactsWhenLogIsFull() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+		for (int i = 0; i < 500; i++) {
+			repository.save(reservation.fullName("Name " + i));
+		}
+
+		assertThat(repository.count()).isEqualTo(1);
+		assertThat(repository.findByUuid(reservation.getUuid()).getFullName()).isEqualTo("Name 499");
+	}
+
+	@Test
+	public void queryMethods_indexedAcrossReplayAndCompaction() throws IOException {
+
+		Reservation deleted = repository.save(newReservation(1, 2));
+		Reservation staying = repository.save(newReservation(2, 4));
+		Reservation moved = repository.save(newReservation(1, 1));
+		Reservation cancelled = repository.save(newReservation(3, 5));
+		repository.save(moved.departureDate(LocalDate.now().plusDays(3)));
+		repository.save(cancelled.status(ReservationStatus.CANCELLED));
+		repository.delete(deleted);
+		// Takes the slot freed by the deletion, hence slot order no longer follows id order
+		Reservation arriving = repository.save(newReservation(3, 3));
+
+		for (int pass = 0; pass < 3; pass++) {
+			assertThat(repository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+					ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), 0L, new PageRequest(0, 2)))
+					.extracting(Reservation::getUuid)
+					.containsExactly(staying.getUuid(), moved.getUuid());
+			assertThat(repository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+					ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), moved.getId(), new PageRequest(0, 2)))
+					.extracting(Reservation::getUuid)
+					.containsExactly(arriving.getUuid());
+			assertThat(repository.findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus.ACTIVE, LocalDate.now().plusDays(4)))
+					.extracting(Reservation::getUuid)
+					.containsExactly(staying.getUuid());
+			assertThat(repository.findByStatusOrDepartureDateBefore(ReservationStatus.CANCELLED, LocalDate.now().plusDays(4),
+					new PageRequest(0, 10)))
+					.extracting(Reservation::getUuid)
+					.containsExactly(moved.getUuid(), cancelled.getUuid(), arriving.getUuid());
+			assertThat(repository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+					ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), LocalDate.now().plusDays(3))).isEqualTo(3);
+			assertThat(repository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+					ReservationStatus.CANCELLED, LocalDate.now().plusDays(4), LocalDate.now().plusDays(4))).isEqualTo(1);
+
+			// Indexes rebuilt by the replay, then by the compaction
+			if (pass == 0) {
+				repository.close();
+				repository = open();
+			} else {
+				repository.compact();
+			}
+		}
+	}
+
+	@Test
+	public void replay_dropsTornRecord() throws IOException {
+
+		Reservation first = repository.save(newReservation(2, 4));
+		Reservation second = repository.save(newReservation(6, 6));
+		repository.close();
+
+		// Corrupt the last byte of the second record, as if the process died half way through writing it
+		try (RandomAccessFile file = new RandomAccessFile(properties.getPath(), "rw")) {
+			int firstLength = file.readInt();
+			file.seek(8 + firstLength);
+			int secondLength = file.readInt();
+			file.seek(8 + firstLength + 8 + secondLength - 1);
+			file.write(0x7f);
+		}
+		repository = open();
+
+		assertThat(repository.findByUuid(first.getUuid())).isNotNull();
+		assertThat(repository.findByUuid(second.getUuid())).isNull();
+	}
+
+	@Test
+	public void save_deferredPastCallerLock_sharesOneForce() throws Exception {
+
+		repository.close();
+		properties.setGroupCommitDelayMillis(200);
+		repository = open();
+		int writers = 8;
+		ReentrantLock callerLock = new ReentrantLock();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(writers);
+		List<Future<Reservation>> saved = new ArrayList<>();
+
+		// Writers serialized by a lock of their own, as the reservation service does, waiting once it is released
+		for (int writer = 0; writer < writers; writer++) {
+			saved.add(executorService.submit(() -> {
+				start.await();
+				DeferredDurability.begin();
+				try {
+					callerLock.lock();
+					try {
+						return repository.save(newReservation(2, 4));
+					} finally {
+						callerLock.unlock();
+					}
+				} finally {
+					DeferredDurability.end();
+				}
+			}));
+		}
+		start.countDown();
+		for (Future<Reservation> reservation : saved) {
+			assertThat(reservation.get().getId()).isNotNull();
+		}
+		executorService.shutdown();
+
+		assertThat(repository.forces()).isEqualTo(1);
+	}
+
+	private EventLogReservationRepository open() throws IOException {
+		EventLogReservationRepository repository = new EventLogReservationRepository(properties);
+		repository.open();
+		return repository;
+	}
+
+	private Reservation newReservation(int arrivalDay, int departureDay) {
+		return new Reservation()
+				.uuid(UUID.randomUUID().toString())
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(arrivalDay))
+				.departureDate(LocalDate.now().plusDays(departureDay));
+	}
+}
@@ -0,0 +1,186 @@
+package com.upgrade.campsite.repository.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+
+public class InMemoryReservationRepositoryTest {
+
+	private static final String EMAIL = "someone@something.com";
+	private static final String FULL_NAME = "John Smith";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private InMemoryProperties properties;
+	private InMemoryReservationRepository repository;
+
+	@Before
+	public void setup() throws IOException {
+		properties = new InMemoryProperties();
+		properties.setCheckpointPath(folder.getRoot().toPath().resolve("reservations.checkpoint").toString());
+		repository = open();
+	}
+
+	@Test
+	public void save_assignsIdAndIndexesByUuid() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+
+		assertThat(reservation.getId()).isEqualTo(1L);
+		assertThat(reservation.getVersion()).isEqualTo(0L);
+		assertThat(repository.findByUuid(reservation.getUuid()).getArrivalDate()).isEqualTo(LocalDate.now().plusDays(2));
+		assertThat(repository.findOne(1L).getUuid()).isEqualTo(reservation.getUuid());
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	public void findByUuid_returnsPrivateCopy() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+		repository.findByUuid(reservation.getUuid()).fullName("Changed Name");
+		reservation.fullName("Other Name");
+
+		assertThat(repository.findByUuid(reservation.getUuid()).getFullName()).isEqualTo(FULL_NAME);
+	}
+
+	@Test
+	public void save_staleVersion() {
+
+		Reservation reservation = repository.save(newReservation(2, 4));
+		Reservation stale = repository.findByUuid(reservation.getUuid());
+		repository.save(reservation.fullName("New Name"));
+
+		assertThat(reservation.getVersion()).isEqualTo(1L);
+		assertThatThrownBy(() -> repository.save(stale.fullName("Other Name")))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+		assertThat(repository.findByUuid(reservation.getUuid()).getFullName()).isEqualTo("New Name");
+	}
+
+	@Test
+	public void findByUuid_unknownOrMalformed() {
+
+		assertThat(repository.findByUuid(UUID.randomUUID().toString())).isNull();
+		assertThat(repository.findByUuid("xxx-xxx-xxx-xxx")).isNull();
+	}
+
+	@Test
+	public void queryMethods_useStatusAndDepartureIndexes() {
+
+		Reservation expired = repository.save(newReservation(-3, -1));
+		Reservation cancelled = repository.save(newReservation(2, 4));
+		repository.save(cancelled.status(ReservationStatus.CANCELLED));
+		Reservation active = repository.save(newReservation(0, 2));
+		Reservation moved = repository.save(newReservation(5, 6));
+		repository.save(moved.departureDate(LocalDate.now().plusDays(7)));
+
+		assertThat(repository.findByStatusAndDepartureDateGreaterThanEqual(ReservationStatus.ACTIVE, LocalDate.now()))
+				.extracting(Reservation::getUuid)
+				.containsExactly(active.getUuid(), moved.getUuid());
+		assertThat(repository.findByStatusOrDepartureDateBefore(ReservationStatus.CANCELLED, LocalDate.now(), new PageRequest(0, 10)))
+				.extracting(Reservation::getUuid)
+				.containsExactly(expired.getUuid(), cancelled.getUuid());
+		assertThat(repository.findByStatusOrDepartureDateBefore(ReservationStatus.CANCELLED, LocalDate.now(), new PageRequest(0, 1)))
+				.extracting(Reservation::getUuid)
+				.containsExactly(expired.getUuid());
+	}
+
+	@Test
+	public void queryMethods_useArrivalIndexAndIdOrder() {
+
+		Reservation deleted = repository.save(newReservation(1, 2));
+		Reservation staying = repository.save(newReservation(2, 4));
+		Reservation departing = repository.save(newReservation(1, 3));
+		repository.save(newReservation(4, 5));
+		repository.delete(deleted);
+		// Takes the slot freed by the deletion, hence slot order no longer follows id order
+		Reservation arriving = repository.save(newReservation(3, 3));
+
+		List<Reservation> firstChunk = repository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), 0L, new PageRequest(0, 2));
+		assertThat(firstChunk).extracting(Reservation::getUuid).containsExactly(staying.getUuid(), departing.getUuid());
+		assertThat(repository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), departing.getId(), new PageRequest(0, 2)))
+				.extracting(Reservation::getId)
+				.containsExactly(4L, arriving.getId());
+		assertThat(repository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.ACTIVE, LocalDate.now().plusDays(3), LocalDate.now().plusDays(3))).isEqualTo(3);
+		assertThat(repository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.CANCELLED, LocalDate.now().plusDays(3), LocalDate.now().plusDays(3))).isEqualTo(0);
+	}
+
+	@Test
+	public void checkpoint_survivesRestart() throws IOException {
+
+		Reservation modified = repository.save(newReservation(2, 4));
+		repository.save(modified.email("new@email.com"));
+		Reservation cancelled = repository.save(newReservation(6, 6));
+		repository.save(cancelled.status(ReservationStatus.CANCELLED));
+		Reservation deleted = repository.save(newReservation(8, 9));
+		repository.delete(deleted);
+
+		repository.close();
+		repository = open();
+
+		assertThat(repository.count()).isEqualTo(2);
+		assertThat(repository.findByUuid(modified.getUuid()).getEmail()).isEqualTo("new@email.com");
+		assertThat(repository.findByUuid(modified.getUuid()).getVersion()).isEqualTo(1L);
+		assertThat(repository.findDtoByUuid(cancelled.getUuid())).isNull();
+		assertThat(repository.findByUuid(deleted.getUuid())).isNull();
+		assertThat(repository.save(newReservation(10, 10)).getId()).isEqualTo(4L);
+	}
+
+	@Test
+	public void checkpoint_skippedWhenUnchanged() throws IOException {
+
+		repository.checkpoint();
+
+		assertThat(Files.exists(Paths.get(properties.getCheckpointPath()))).isFalse();
+	}
+
+	@Test
+	public void open_rejectsCorruptedCheckpoint() throws IOException {
+
+		repository.save(newReservation(2, 4));
+		repository.close();
+
+		try (RandomAccessFile file = new RandomAccessFile(properties.getCheckpointPath(), "rw")) {
+			file.seek(file.length() - 9);
+			file.write(0x7f);
+		}
+
+		assertThatThrownBy(this::open).isInstanceOf(IOException.class);
+	}
+
+	private InMemoryReservationRepository open() throws IOException {
+		InMemoryReservationRepository repository = new InMemoryReservationRepository(properties);
+		repository.open();
+		return repository;
+	}
+
+	private Reservation newReservation(int arrivalDay, int departureDay) {
+		return new Reservation()
+				.uuid(UUID.randomUUID().toString())
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(arrivalDay))
+				.departureDate(LocalDate.now().plusDays(departureDay));
+	}
+}
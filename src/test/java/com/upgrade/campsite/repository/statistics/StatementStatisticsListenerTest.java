@@ -0,0 +1,80 @@
+package com.upgrade.campsite.repository.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class StatementStatisticsListenerTest {
+
+	private static final String SELECT = "select reservatio0_.id as id1_1_0_ from reservation reservatio0_ where reservatio0_.id=?";
+
+	private final StatementCapture statementCapture = new StatementCapture();
+	private JpaStatementStatistics statistics;
+
+	@Before
+	public void setUp() {
+		JpaStatisticsProperties properties = new JpaStatisticsProperties();
+		properties.setSlowStatementMillis(60_000);
+		properties.setRepeatedStatementThreshold(3);
+		statistics = new JpaStatementStatistics(properties);
+		statistics.activate();
+		TransactionSynchronizationManager.setCurrentTransactionName(
+				"com.upgrade.campsite.service.ReservationServiceImpl.modifyReservation");
+	}
+
+	@After
+	public void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		statistics.deactivate();
+	}
+
+	@Test
+	public void transactionCompletion_attributedToOperation() {
+
+		StatementStatisticsListener listener = new StatementStatisticsListener();
+		execute(listener, SELECT);
+		execute(listener, "update reservation set version=? where id=? and version=?");
+		listener.flushEnd(1, 0);
+		listener.transactionCompletion(true);
+		listener.end();
+
+		OperationStatistics operation = statistics.getOperations().get("ReservationServiceImpl.modifyReservation");
+		assertThat(operation.getTransactions()).isEqualTo(1);
+		assertThat(operation.getStatements()).isEqualTo(2);
+		assertThat(operation.getFlushes()).isEqualTo(1);
+		assertThat(operation.getRepeatedStatements()).isEqualTo(0);
+		assertThat(operation.getSlowStatements()).isEqualTo(0);
+		assertThat(statistics.getMetrics()).containsEntry("ReservationServiceImpl.modifyReservation.statements", 2L);
+	}
+
+	@Test
+	public void repeatedSelect_flaggedOncePerTransaction() {
+
+		StatementStatisticsListener listener = new StatementStatisticsListener();
+		for (int i = 0; i < 10; i++) {
+			execute(listener, SELECT);
+		}
+		listener.transactionCompletion(true);
+		for (int i = 0; i < 2; i++) {
+			execute(listener, SELECT);
+		}
+		listener.transactionCompletion(true);
+
+		OperationStatistics operation = statistics.getOperations().get("ReservationServiceImpl.modifyReservation");
+		assertThat(operation.getTransactions()).isEqualTo(2);
+		assertThat(operation.getStatements()).isEqualTo(12);
+		assertThat(operation.getRepeatedStatements()).isEqualTo(1);
+		assertThat(operation.getLastRepeatedStatement()).isEqualTo(SELECT);
+	}
+
+	private void execute(StatementStatisticsListener listener, String sql) {
+		statementCapture.inspect(sql);
+		listener.jdbcPrepareStatementStart();
+		listener.jdbcPrepareStatementEnd();
+		listener.jdbcExecuteStatementStart();
+		listener.jdbcExecuteStatementEnd();
+	}
+}
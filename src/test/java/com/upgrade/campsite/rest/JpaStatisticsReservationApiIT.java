@@ -0,0 +1,102 @@
+package com.upgrade.campsite.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.http.HttpStatus;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.jayway.restassured.http.ContentType;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.ReservationArchiveRepository;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.service.ReservationArchiver;
+
+/*
+ * Runs the api integration tests with the statement statistics on, and checks what they attribute to the api
+ * operations.
+ */
+@ActiveProfiles("jpa-statistics")
+public class JpaStatisticsReservationApiIT extends ReservationApiIT {
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private ReservationArchiveRepository reservationArchiveRepository;
+	@Autowired
+	private ReservationArchiver reservationArchiver;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	public void getJpaStatistics_byOperation() {
+
+		when().delete("/admin/jpa-statistics").then().statusCode(HttpStatus.SC_NO_CONTENT);
+
+		String uuid = given().
+					contentType(ContentType.JSON).
+					body(new ReservationDto()
+							.email("statistics@something.com")
+							.fullName("John Smith")
+							.arrivalDate(LocalDate.now().plusDays(2))
+							.departureDate(LocalDate.now().plusDays(4))).
+				when().
+					post("/api/reservations").
+					jsonPath().
+					getString("uuid");
+		when().get("/api/reservations/" + uuid).then().statusCode(HttpStatus.SC_OK);
+
+		when().
+				get("/admin/jpa-statistics").
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.body("operations.'ReservationServiceImpl.makeReservation'.transactions", Matchers.is(1))
+				.body("operations.'ReservationServiceImpl.makeReservation'.statements", Matchers.greaterThan(0))
+				.body("operations.'ReservationServiceImpl.makeReservation'.repeatedStatements", Matchers.is(0))
+				.body("operations.'ReservationServiceImpl.readReservation'.statements", Matchers.is(1))
+				.body("hibernate.prepareStatementCount", Matchers.greaterThan(0));
+	}
+
+	@Test
+	public void archiveInactiveReservations_noSelectPerRow() {
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		try {
+			long oneRow = archivingStatements(1, statistics);
+			long threeRows = archivingStatements(3, statistics);
+
+			// An insert into the archive and a delete per row, with no select of the archive row beforehand
+			assertThat(threeRows - oneRow).isEqualTo(4);
+		} finally {
+			reservationArchiveRepository.deleteAll();
+		}
+	}
+
+	private long archivingStatements(int rows, Statistics statistics) {
+		for (int row = 0; row < rows; row++) {
+			reservationRepository.save(new Reservation()
+					.uuid(UUID.randomUUID().toString())
+					.email("archive@something.com")
+					.fullName("John Smith")
+					.arrivalDate(LocalDate.now().plusDays(2))
+					.departureDate(LocalDate.now().plusDays(4))
+					.status(ReservationStatus.CANCELLED));
+		}
+		statistics.clear();
+		assertThat(reservationArchiver.archiveInactiveReservations()).isEqualTo(rows);
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,170 @@
+package com.upgrade.campsite.rest;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.longThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.ContentType;
+import com.upgrade.campsite.rest.advice.ErrorCode;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.service.ReservationService;
+import com.upgrade.campsite.service.admission.AdmissionLimiter;
+import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
+
+/*
+ * Mutations on a single thread executor with a single queue slot, against a mocked service
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+		"campsite.mutations.pool-size=1",
+		"campsite.mutations.queue-capacity=1"
+})
+public class MutationExecutorApiIT {
+
+	@MockBean
+	private ReservationService reservationService;
+	@SpyBean
+	private AdmissionLimiter admissionLimiter;
+	@Autowired
+	@Qualifier(MutationExecutorConfiguration.MUTATION_EXECUTOR)
+	private ThreadPoolTaskExecutor mutationExecutor;
+
+	@LocalServerPort
+	int port;
+
+	@Before
+	public void setUp() {
+		RestAssured.port = port;
+	}
+
+	@Test
+	public void makeReservation_executorSaturated() throws InterruptedException {
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Runnable blocking = () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		// Take the executor thread, then its queue slot
+		mutationExecutor.execute(blocking);
+		started.await();
+		mutationExecutor.execute(blocking);
+		try {
+			given().
+					contentType(ContentType.JSON).
+					body(reservation("busy@something.com")).
+			when().
+					post("/api/reservations").
+			then().
+					statusCode(HttpStatus.SC_SERVICE_UNAVAILABLE).
+					body("errorCode", Matchers.equalTo(ErrorCode.SERVER_BUSY.name()));
+		} finally {
+			release.countDown();
+		}
+		// Admitted then rejected by the executor, the permit is given back
+		verify(admissionLimiter).cancel();
+	}
+
+	@Test
+	public void makeReservation_overloaded() {
+
+		doReturn(false).when(admissionLimiter).tryAcquire();
+
+		given().
+				contentType(ContentType.JSON).
+				body(reservation("overloaded@something.com")).
+		when().
+				post("/api/reservations").
+		then().
+				statusCode(429).
+				header(HttpHeaders.RETRY_AFTER, "1").
+				body("errorCode", Matchers.equalTo(ReservationServiceErrorCode.OVERLOADED.name()));
+		verifyZeroInteractions(reservationService);
+	}
+
+	@Test
+	public void makeReservation_latencyIncludesQueueing() throws InterruptedException {
+
+		when(reservationService.makeReservation(any(ReservationDto.class))).thenReturn(new ReservationDto());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		mutationExecutor.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		started.await();
+		// Queued behind the blocking task for about 500 ms
+		CompletableFuture<Void> posted = CompletableFuture.runAsync(() ->
+				given().
+						contentType(ContentType.JSON).
+						body(reservation("queued@something.com")).
+				when().
+						post("/api/reservations").
+				then().
+						statusCode(HttpStatus.SC_OK));
+		Thread.sleep(500);
+		release.countDown();
+		posted.join();
+
+		verify(admissionLimiter).release(longThat(Matchers.greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250))));
+	}
+
+	@Test
+	public void makeReservation_errorCompletesRequest() {
+
+		when(reservationService.makeReservation(any(ReservationDto.class))).thenThrow(new StackOverflowError());
+
+		given().
+				contentType(ContentType.JSON).
+				body(reservation("error@something.com")).
+		when().
+				post("/api/reservations").
+		then().
+				statusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR).
+				time(Matchers.lessThan(5000L));
+	}
+
+	private static ReservationDto reservation(String email) {
+		return new ReservationDto()
+				.email(email)
+				.fullName("John Smith")
+				.arrivalDate(LocalDate.now().plusDays(2))
+				.departureDate(LocalDate.now().plusDays(4));
+	}
+}
@@ -2,7 +2,9 @@ package com.upgrade.campsite.rest;
 
 import static com.jayway.restassured.RestAssured.given;
 import static com.jayway.restassured.RestAssured.when;
+import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,8 +20,14 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.embedded.LocalServerPort;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.http.ContentType;
 import com.upgrade.campsite.calendar.Calendar;
@@ -28,12 +36,20 @@ import com.upgrade.campsite.repository.ReservationRepository;
 import com.upgrade.campsite.rest.advice.ErrorCode;
 import com.upgrade.campsite.rest.advice.RestResponseEntityExceptionHandler;
 import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.json.BinaryHttpMessageConverter;
 import com.upgrade.campsite.rest.validation.AvailabilityDateRange;
 import com.upgrade.campsite.rest.validation.BookingDateRange;
 import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Every test reserves with the same email, the per email limits are covered by RateLimitApiIT
+@TestPropertySource(properties = {
+		"campsite.rate-limit.email.makeReservation.permits-per-second=1000",
+		"campsite.rate-limit.email.makeReservation.burst=1000",
+		"campsite.rate-limit.email.modifyReservation.permits-per-second=1000",
+		"campsite.rate-limit.email.modifyReservation.burst=1000"
+})
 public class ReservationApiIT {
 
 	private static final String EMAIL = "someone@something.com";
@@ -140,6 +156,40 @@ public class ReservationApiIT {
 				.body("availableDates", Matchers.hasSize(0));
 	}
 
+	@Test
+	public void findStayWindows_success() {
+
+		makeReservation(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+
+		when()
+				.get("/api/reservations/windows?days=3&limit=2").
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.body("days", Matchers.is(3))
+				.body("windows", Matchers.hasSize(2))
+				.body("windows[0].arrivalDate", Matchers.is(LocalDate.now().plusDays(4).toString()))
+				.body("windows[0].departureDate", Matchers.is(LocalDate.now().plusDays(6).toString()))
+				.body("windows[1].arrivalDate", Matchers.is(LocalDate.now().plusDays(5).toString()));
+	}
+
+	@Test
+	public void readOccupancy_monthlyBuckets() {
+
+		LocalDate startDate = LocalDate.now().plusDays(1);
+		LocalDate endDate = LocalDate.now().plusDays(Calendar.TIME_SPAN);
+		makeReservation(startDate, startDate.plusDays(2));
+
+		when()
+				.get("/api/reservations/occupancy?granularity=MONTH").
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.body("granularity", Matchers.is("MONTH"))
+				.body("buckets[0].startDate", Matchers.is(startDate.toString()))
+				.body("buckets[-1].endDate", Matchers.is(endDate.toString()))
+				.body("buckets.booked.sum()", Matchers.is(3))
+				.body("buckets.free.sum()", Matchers.is(Calendar.TIME_SPAN - 3));
+	}
+
 	@Test
 	public void makeReservation_success() {
 
@@ -254,6 +304,33 @@ public class ReservationApiIT {
 				body("departureDate", Matchers.equalTo(newDepartureDate.toString()));
 	}
 
+	@Test
+	public void modifyReservation_extendBothEnds() {
+
+		String uuid = makeReservation(LocalDate.now().plusDays(5), LocalDate.now().plusDays(5));
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(4))
+				.departureDate(LocalDate.now().plusDays(6));
+
+		given().
+				contentType(ContentType.JSON).
+				with().
+				body(reservationDto).
+		when().
+				put("/api/reservations/" + uuid).
+		then().
+				statusCode(HttpStatus.SC_OK);
+
+		when()
+				.get("/api/reservations" + getDateRangeQueryParams(LocalDate.now().plusDays(3), LocalDate.now().plusDays(7))).
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.body("availableDates", Matchers.contains(LocalDate.now().plusDays(3).toString(), LocalDate.now().plusDays(7).toString()));
+	}
+
 	@Test
 	public void modifyReservation_notAvailable() {
 
@@ -343,6 +420,69 @@ public class ReservationApiIT {
 				statusCode(HttpStatus.SC_OK);
 	}
 
+	@Test
+	public void modifyReservation_ifMatch_success() {
+
+		String uuid = makeReservation(LocalDate.now().plusDays(5), LocalDate.now().plusDays(7));
+		String eTag = when().get("/api/reservations/" + uuid).header(HttpHeaders.ETAG);
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email("new@new.com")
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(5))
+				.departureDate(LocalDate.now().plusDays(7));
+
+		given().
+				contentType(ContentType.JSON).
+				header(HttpHeaders.IF_MATCH, eTag).
+				with().
+				body(reservationDto).
+		when().
+				put("/api/reservations/" + uuid).
+		then().
+				statusCode(HttpStatus.SC_OK).
+				header(HttpHeaders.ETAG, Matchers.not(eTag)).
+				body("email", Matchers.equalTo("new@new.com"));
+	}
+
+	@Test
+	public void modifyReservation_ifMatch_versionMismatch() {
+
+		String uuid = makeReservation(LocalDate.now().plusDays(5), LocalDate.now().plusDays(7));
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(6))
+				.departureDate(LocalDate.now().plusDays(7));
+
+		given().
+				contentType(ContentType.JSON).
+				header(HttpHeaders.IF_MATCH, "\"42\"").
+				with().
+				body(reservationDto).
+		when().
+				put("/api/reservations/" + uuid).
+		then().
+				statusCode(HttpStatus.SC_PRECONDITION_FAILED).
+				body("errorCode", Matchers.equalTo(ReservationServiceErrorCode.VERSION_MISMATCH.name())).
+				body("message", Matchers.notNullValue());
+	}
+
+	@Test
+	public void cancelReservation_ifMatch_versionMismatch() {
+
+		String uuid = makeReservation(LocalDate.now().plusDays(5), LocalDate.now().plusDays(7));
+
+		given().
+				header(HttpHeaders.IF_MATCH, "\"42\"").
+		when().
+				delete("/api/reservations/" + uuid).
+		then().
+				statusCode(HttpStatus.SC_PRECONDITION_FAILED).
+				body("errorCode", Matchers.equalTo(ReservationServiceErrorCode.VERSION_MISMATCH.name()));
+	}
+
 	@Test
 	public void cancelReservation_expired() {
 
@@ -376,6 +516,145 @@ public class ReservationApiIT {
 	}
 
 
+	@Test
+	public void getAvailability_serverTiming() {
+
+		LocalDate startDate = LocalDate.now().plusDays(1);
+		LocalDate endDate = LocalDate.now().plusDays(5);
+
+		String serverTiming = when()
+				.get("/api/reservations" + getDateRangeQueryParams(startDate, endDate)).
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.extract().header("Server-Timing");
+
+		assertThat(serverTiming).matches("validation;dur=\\d+\\.\\d{3}, .*calendar;dur=\\d+\\.\\d{3}, app;dur=\\d+\\.\\d{3}");
+	}
+
+	@Test
+	public void makeReservation_serverTiming() {
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email("timing@something.com")
+				.fullName(FULL_NAME)
+				.arrivalDate(LocalDate.now().plusDays(8))
+				.departureDate(LocalDate.now().plusDays(9));
+
+		given().
+				contentType(ContentType.JSON).
+				body(reservationDto).
+		when().
+				post("/api/reservations").
+		then().
+				statusCode(HttpStatus.SC_OK).
+				header("Server-Timing", Matchers.allOf(
+						Matchers.containsString("validation;dur="),
+						Matchers.containsString("lock;dur="),
+						Matchers.containsString("db;dur="),
+						Matchers.containsString("app;dur=")));
+	}
+
+	@Test
+	public void getMetrics_admission() {
+
+		makeReservation(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+
+		when()
+				.get("/admin/metrics").
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.body("'admission.limit'", Matchers.greaterThan(0))
+				.body("'admission.inFlight'", Matchers.is(0))
+				.body("'admission.admitted'", Matchers.greaterThan(0));
+	}
+
+	@Test
+	public void getMetrics_prometheus() {
+
+		makeReservation(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+		when().get("/api/reservations/xxx-xxx-xxx-xxx").then().statusCode(HttpStatus.SC_NOT_FOUND);
+
+		String text = when()
+				.get("/admin/metrics/prometheus").
+		then()
+				.statusCode(HttpStatus.SC_OK)
+				.contentType(Matchers.startsWith("text/plain"))
+				.extract().asString();
+
+		assertThat(text).contains(
+				"campsite_calendar_lock_write_lock_wait_seconds{quantile=\"0.99\"}",
+				"campsite_reservation_service_repository_save_seconds_count",
+				"campsite_reservation_service_rejected_unavailable_dates",
+				"campsite_api_make_reservation_seconds_count");
+		assertThat(text).doesNotContain("campsite_reservation_service_rejected_reservation_not_found 0\n");
+	}
+
+	@Test
+	public void makeReservation_cbor() throws IOException {
+
+		LocalDate arrivalDate = LocalDate.now().plusDays(2);
+		LocalDate departureDate = LocalDate.now().plusDays(4);
+
+		ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+		byte[] body = cborMapper.writeValueAsBytes(new ReservationDto()
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(arrivalDate)
+				.departureDate(departureDate));
+
+		byte[] response = given().
+				contentType(BinaryHttpMessageConverter.APPLICATION_CBOR.toString()).
+				accept(BinaryHttpMessageConverter.APPLICATION_CBOR.toString()).
+				body(body).
+		when().
+				post("/api/reservations/").
+		then().
+				statusCode(HttpStatus.SC_OK).
+				contentType(BinaryHttpMessageConverter.APPLICATION_CBOR.toString()).
+				extract().asByteArray();
+
+		JsonNode reservation = cborMapper.readTree(response);
+		assertThat(reservation.get("uuid").asText()).isNotEmpty();
+		assertThat(reservation.get("email").asText()).isEqualTo(EMAIL);
+		assertThat(reservation.get("arrivalDate").asText()).isEqualTo(arrivalDate.toString());
+		assertThat(reservation.get("departureDate").asText()).isEqualTo(departureDate.toString());
+	}
+
+	@Test
+	public void getAvailability_smile() throws IOException {
+
+		makeReservation(LocalDate.now().plusDays(2), LocalDate.now().plusDays(2));
+
+		byte[] response = given().
+				accept(BinaryHttpMessageConverter.APPLICATION_SMILE.toString()).
+		when().
+				get("/api/reservations?startDate={startDate}&endDate={endDate}", LocalDate.now().plusDays(1).toString(),
+						LocalDate.now().plusDays(3).toString()).
+		then().
+				statusCode(HttpStatus.SC_OK).
+				contentType(BinaryHttpMessageConverter.APPLICATION_SMILE.toString()).
+				extract().asByteArray();
+
+		JsonNode availability = new ObjectMapper(new SmileFactory()).readTree(response);
+		assertThat(availability.get("availableDates")).extracting(JsonNode::asText)
+				.containsExactly(LocalDate.now().plusDays(1).toString(), LocalDate.now().plusDays(3).toString());
+	}
+
+	@Test
+	public void readReservation_notFound_cbor() throws IOException {
+
+		byte[] response = given().
+				accept(BinaryHttpMessageConverter.APPLICATION_CBOR.toString()).
+		when().
+				get("/api/reservations/xxx-xxx-xxx-xxx").
+		then().
+				statusCode(HttpStatus.SC_NOT_FOUND).
+				extract().asByteArray();
+
+		assertThat(new ObjectMapper(new CBORFactory()).readTree(response).get("errorCode").asText())
+				.isEqualTo(ReservationServiceErrorCode.RESERVATION_NOT_FOUND.name());
+	}
+
 	/************************************************/
 	/************ VALIDATION TEST CASES  ************/
 	/************************************************/
@@ -445,6 +724,39 @@ public class ReservationApiIT {
 				body("message", Matchers.equalTo(RestResponseEntityExceptionHandler.MALFORMED_DATE_ERROR_MESSAGE));
 	}
 
+	@Test
+	public void findStayWindows_daysOutOfRange() {
+
+		when()
+				.get("/api/reservations/windows?days=4").
+		then()
+				.statusCode(HttpStatus.SC_BAD_REQUEST)
+				.body("errorCode", Matchers.equalTo(ErrorCode.INVALID_PARAMETERS.name()))
+				.body("message", Matchers.equalTo("Stays last between 1 and 3 days"));
+	}
+
+	@Test
+	public void findStayWindows_malformedDays() {
+
+		when()
+				.get("/api/reservations/windows?days=three").
+		then()
+				.statusCode(HttpStatus.SC_BAD_REQUEST)
+				.body("errorCode", Matchers.equalTo(ErrorCode.INVALID_PARAMETERS.name()))
+				.body("message", Matchers.equalTo(RestResponseEntityExceptionHandler.MALFORMED_NUMBER_ERROR_MESSAGE));
+	}
+
+	@Test
+	public void readOccupancy_invalidGranularity() {
+
+		when()
+				.get("/api/reservations/occupancy?granularity=YEAR").
+		then()
+				.statusCode(HttpStatus.SC_BAD_REQUEST)
+				.body("errorCode", Matchers.equalTo(ErrorCode.INVALID_PARAMETERS.name()))
+				.body("message", Matchers.equalTo(RestResponseEntityExceptionHandler.INVALID_VALUE_ERROR_MESSAGE));
+	}
+
 	@Test
 	public void makeReservation_emailMissing() {
 
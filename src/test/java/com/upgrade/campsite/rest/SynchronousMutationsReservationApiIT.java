@@ -0,0 +1,10 @@
+package com.upgrade.campsite.rest;
+
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Runs the api integration tests with mutations processed on the request thread.
+ */
+@TestPropertySource(properties = "campsite.mutations.async=false")
+public class SynchronousMutationsReservationApiIT extends ReservationApiIT {
+}
@@ -0,0 +1,36 @@
+package com.upgrade.campsite.rest.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.campsite.rest.advice.ErrorDto;
+
+public class ErrorDtoSerializerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	public void serialize_allFields() throws Exception {
+
+		ErrorDto errorDto = new ErrorDto()
+				.status(403)
+				.code("FORBIDDEN")
+				.errorCode("UNAVAILABLE_DATES")
+				.message("Dates \"2017-06-01\" not available");
+
+		assertThat(objectMapper.writeValueAsString(errorDto)).isEqualTo(
+				"{\"status\":403,\"statusCode\":\"FORBIDDEN\",\"errorCode\":\"UNAVAILABLE_DATES\",\"message\":\"Dates \\\"2017-06-01\\\" not available\"}");
+	}
+
+	@Test
+	public void serialize_skipsNullsAndUnknownCodes() throws Exception {
+
+		ErrorDto errorDto = new ErrorDto()
+				.status(500)
+				.errorCode("SOMETHING_ELSE");
+
+		assertThat(objectMapper.writeValueAsString(errorDto)).isEqualTo("{\"status\":500,\"errorCode\":\"SOMETHING_ELSE\"}");
+	}
+}
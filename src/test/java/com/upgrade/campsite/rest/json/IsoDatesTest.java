@@ -0,0 +1,66 @@
+package com.upgrade.campsite.rest.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class IsoDatesTest {
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	@Test
+	public void writeEpochDay_matchesLocalDate() throws IOException {
+
+		long firstDay = LocalDate.of(1899, 12, 25).toEpochDay();
+		long lastDay = LocalDate.of(2101, 3, 5).toEpochDay();
+		char[] buffer = new char[IsoDates.LENGTH];
+
+		for (long epochDay = firstDay; epochDay <= lastDay; epochDay++) {
+			long day = epochDay;
+			String expected = LocalDate.ofEpochDay(day).toString();
+			assertThat(write(generator -> IsoDates.writeEpochDay(generator, day, buffer))).isEqualTo(quoted(expected));
+		}
+	}
+
+	@Test
+	public void writeEpochDay_outsideFourDigitYears() throws IOException {
+
+		long epochDay = LocalDate.of(10000, 1, 1).toEpochDay();
+
+		assertThat(write(generator -> IsoDates.writeEpochDay(generator, epochDay, new char[IsoDates.LENGTH])))
+				.isEqualTo(quoted("+10000-01-01"));
+		assertThat(write(generator -> IsoDates.writeEpochDay(generator, LocalDate.of(1, 1, 1).toEpochDay(), new char[IsoDates.LENGTH])))
+				.isEqualTo(quoted("0001-01-01"));
+	}
+
+	@Test
+	public void writeDate_matchesLocalDate() throws IOException {
+
+		LocalDate date = LocalDate.of(2017, 6, 9);
+
+		assertThat(write(generator -> IsoDates.writeDate(generator, date, new char[IsoDates.LENGTH]))).isEqualTo(quoted("2017-06-09"));
+	}
+
+	private String write(Write write) throws IOException {
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+			write.to(generator);
+		}
+		return writer.toString();
+	}
+
+	private static String quoted(String value) {
+		return "\"" + value + "\"";
+	}
+
+	private interface Write {
+		void to(JsonGenerator generator) throws IOException;
+	}
+}
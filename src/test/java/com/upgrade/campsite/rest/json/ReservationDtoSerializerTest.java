@@ -0,0 +1,48 @@
+package com.upgrade.campsite.rest.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+public class ReservationDtoSerializerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	public void serialize_reservation() throws Exception {
+
+		ReservationDto reservationDto = new ReservationDto("a-uuid", "someone@something.com", "John \"Jack\" Smith",
+				LocalDate.of(2017, 6, 9), LocalDate.of(2017, 6, 11), 2L);
+
+		assertThat(objectMapper.writeValueAsString(reservationDto)).isEqualTo(
+				"{\"uuid\":\"a-uuid\",\"email\":\"someone@something.com\",\"fullName\":\"John \\\"Jack\\\" Smith\","
+						+ "\"arrivalDate\":\"2017-06-09\",\"departureDate\":\"2017-06-11\",\"version\":2}");
+	}
+
+	@Test
+	public void serialize_reservation_skipsNulls() throws Exception {
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email("someone@something.com")
+				.arrivalDate(LocalDate.of(2017, 6, 9));
+
+		assertThat(objectMapper.writeValueAsString(reservationDto)).isEqualTo(
+				"{\"email\":\"someone@something.com\",\"arrivalDate\":\"2017-06-09\"}");
+	}
+
+	@Test
+	public void serialize_availability() throws Exception {
+
+		AvailabilityDto availabilityDto = new AvailabilityDto(LocalDate.of(2017, 12, 30), LocalDate.of(2018, 1, 2),
+				new int[] { (int) LocalDate.of(2017, 12, 31).toEpochDay(), (int) LocalDate.of(2018, 1, 2).toEpochDay() });
+
+		assertThat(objectMapper.writeValueAsString(availabilityDto)).isEqualTo(
+				"{\"startDate\":\"2017-12-30\",\"endDate\":\"2018-01-02\",\"availableDates\":[\"2017-12-31\",\"2018-01-02\"]}");
+	}
+}
@@ -0,0 +1,94 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+
+import java.time.LocalDate;
+
+import org.apache.http.HttpStatus;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.Response;
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.advice.ErrorCode;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+		"campsite.rate-limit.ip.readReservation.permits-per-second=0.01",
+		"campsite.rate-limit.ip.readReservation.burst=2",
+		"campsite.rate-limit.email.makeReservation.permits-per-second=0.01",
+		"campsite.rate-limit.email.makeReservation.burst=1"
+})
+public class RateLimitApiIT {
+
+	@Autowired
+	private Calendar calendar;
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@LocalServerPort
+	int port;
+
+	@Before
+	public void setUp() {
+		RestAssured.port = port;
+	}
+
+	@After
+	public void tearDown() {
+		reservationRepository.deleteAll();
+		calendar.unbook(LocalDate.now().plusDays(1), LocalDate.now().plusDays(Calendar.TIME_SPAN));
+	}
+
+	@Test
+	public void readReservation_ipRateLimited() {
+
+		when().get("/api/reservations/unknown").then().statusCode(HttpStatus.SC_NOT_FOUND);
+		when().get("/api/reservations/unknown").then().statusCode(HttpStatus.SC_NOT_FOUND);
+		when()
+				.get("/api/reservations/unknown").
+		then()
+				.statusCode(429)
+				.header(HttpHeaders.RETRY_AFTER, Matchers.notNullValue())
+				.body("errorCode", Matchers.is(ErrorCode.RATE_LIMITED.name()));
+	}
+
+	@Test
+	public void makeReservation_emailRateLimited() {
+
+		makeReservation("limited@something.com", 2).then().statusCode(HttpStatus.SC_OK);
+		makeReservation("limited@something.com", 5)
+				.then()
+				.statusCode(429)
+				.header(HttpHeaders.RETRY_AFTER, Matchers.notNullValue());
+		makeReservation("other@something.com", 5).then().statusCode(HttpStatus.SC_OK);
+	}
+
+	private Response makeReservation(String email, int day) {
+		ReservationDto reservationDto = new ReservationDto()
+				.email(email)
+				.fullName("John Smith")
+				.arrivalDate(LocalDate.now().plusDays(day))
+				.departureDate(LocalDate.now().plusDays(day));
+		return given()
+				.contentType(ContentType.JSON)
+				.body(reservationDto)
+				.when()
+				.post("/api/reservations");
+	}
+}
@@ -0,0 +1,46 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.upgrade.campsite.rest.ratelimit.RateLimitProperties.Limit;
+
+public class RateLimitsTest {
+
+	private RateLimitProperties properties;
+
+	@Before
+	public void setup() {
+		properties = new RateLimitProperties();
+	}
+
+	@Test
+	public void checkEmail_ignoresCaseAndBlanks() {
+
+		properties.getEmail().put("makeReservation", limit(1, 1));
+		RateLimits rateLimits = new RateLimits(properties);
+
+		rateLimits.checkEmail("makeReservation", "John.Smith@Something.com");
+		assertThatThrownBy(() -> rateLimits.checkEmail("makeReservation", " john.smith@SOMETHING.COM "))
+				.isInstanceOf(RateLimitExceededException.class);
+	}
+
+	@Test
+	public void rateLimits_nonPositiveRateRejected() {
+
+		properties.getIp().put("readAvailability", limit(0, 10));
+
+		assertThatThrownBy(() -> new RateLimits(properties))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("readAvailability");
+	}
+
+	private static Limit limit(double permitsPerSecond, int burst) {
+		Limit limit = new Limit();
+		limit.setPermitsPerSecond(permitsPerSecond);
+		limit.setBurst(burst);
+		return limit;
+	}
+}
@@ -0,0 +1,51 @@
+package com.upgrade.campsite.rest.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void tryAcquire_burstThenRate() {
+
+		long now = 1000 * SECOND;
+		TokenBucket bucket = new TokenBucket(2, 3, now);
+
+		assertThat(bucket.tryAcquire(now)).isZero();
+		assertThat(bucket.tryAcquire(now)).isZero();
+		assertThat(bucket.tryAcquire(now)).isZero();
+		assertThat(bucket.tryAcquire(now)).isEqualTo(SECOND / 2);
+
+		assertThat(bucket.tryAcquire(now + SECOND / 2)).isZero();
+		assertThat(bucket.tryAcquire(now + SECOND / 2)).isEqualTo(SECOND / 2);
+	}
+
+	@Test
+	public void tryAcquire_refillsUpToBurstOnly() {
+
+		long now = 1000 * SECOND;
+		TokenBucket bucket = new TokenBucket(10, 2, now);
+		long later = now + 60 * SECOND;
+
+		assertThat(bucket.tryAcquire(later)).isZero();
+		assertThat(bucket.tryAcquire(later)).isZero();
+		assertThat(bucket.tryAcquire(later)).isPositive();
+	}
+
+	@Test
+	public void isIdle_onceFullForLongEnough() {
+
+		long now = 1000 * SECOND;
+		TokenBucket bucket = new TokenBucket(1, 5, now);
+		bucket.tryAcquire(now);
+		bucket.tryAcquire(now);
+
+		assertThat(bucket.isIdle(now + SECOND, SECOND)).isFalse();
+		assertThat(bucket.isIdle(now + 4 * SECOND, SECOND)).isTrue();
+	}
+}
@@ -0,0 +1,30 @@
+package com.upgrade.campsite.rest.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.upgrade.campsite.calendar.Calendar;
+
+public class AvailabilityDateRangeValidatorTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2017, 6, 1);
+
+	@Test
+	public void isValid_rules() {
+
+		assertThat(AvailabilityDateRangeValidator.isValid(null, null, TODAY.toEpochDay())).isTrue();
+		assertThat(isValid(1, Calendar.TIME_SPAN)).isTrue();
+		assertThat(isValid(5, 5)).isTrue();
+		assertThat(isValid(0, 5)).isFalse(); // not starting tomorrow at the earliest
+		assertThat(isValid(5, 4)).isFalse(); // out of order
+		assertThat(isValid(1, Calendar.TIME_SPAN + 1)).isFalse(); // beyond the time span
+		assertThat(AvailabilityDateRangeValidator.isValid(TODAY.plusDays(1), null, TODAY.toEpochDay())).isFalse();
+	}
+
+	private static boolean isValid(int startDay, int endDay) {
+		return AvailabilityDateRangeValidator.isValid(TODAY.plusDays(startDay), TODAY.plusDays(endDay), TODAY.toEpochDay());
+	}
+}
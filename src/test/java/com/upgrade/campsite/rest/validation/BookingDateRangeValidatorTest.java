@@ -0,0 +1,62 @@
+package com.upgrade.campsite.rest.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.rest.dto.ReservationDto;
+
+public class BookingDateRangeValidatorTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2017, 6, 1);
+
+	@Test
+	public void isValid_rules() {
+
+		assertThat(isValid(1, 3)).isTrue();
+		assertThat(isValid(Calendar.TIME_SPAN + 1, Calendar.TIME_SPAN + 1)).isTrue();
+		assertThat(isValid(0, 1)).isFalse(); // not starting tomorrow at the earliest
+		assertThat(isValid(3, 2)).isFalse(); // out of order
+		assertThat(isValid(1, 4)).isFalse(); // longer than 3 days
+		assertThat(isValid(Calendar.TIME_SPAN, Calendar.TIME_SPAN + 2)).isFalse(); // beyond the time span
+		assertThat(BookingDateRangeValidator.isValid(null, TODAY.plusDays(1), TODAY.toEpochDay())).isFalse();
+	}
+
+	@Test
+	public void isValid_dateRangeAndReflectiveFallback() {
+
+		BookingDateRangeValidator validator = new BookingDateRangeValidator();
+		validator.initialize(ReservationDto.class.getAnnotation(BookingDateRange.class));
+		LocalDate arrivalDate = LocalDate.now().plusDays(2);
+
+		assertThat(validator.isValid(new ReservationDto().arrivalDate(arrivalDate).departureDate(arrivalDate), null)).isTrue();
+		assertThat(validator.isValid(new Dates(arrivalDate, arrivalDate), null)).isTrue();
+		assertThat(validator.isValid(new Dates(arrivalDate, arrivalDate.minusDays(1)), null)).isFalse();
+	}
+
+	private static boolean isValid(int arrivalDay, int departureDay) {
+		return BookingDateRangeValidator.isValid(TODAY.plusDays(arrivalDay), TODAY.plusDays(departureDay), TODAY.toEpochDay());
+	}
+
+	public static class Dates {
+
+		private final LocalDate arrivalDate;
+		private final LocalDate departureDate;
+
+		public Dates(LocalDate arrivalDate, LocalDate departureDate) {
+			this.arrivalDate = arrivalDate;
+			this.departureDate = departureDate;
+		}
+
+		public LocalDate getArrivalDate() {
+			return arrivalDate;
+		}
+
+		public LocalDate getDepartureDate() {
+			return departureDate;
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package com.upgrade.campsite.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Runs the service integration tests against the event log backend.
+ */
+@TestPropertySource(properties = {
+		"campsite.repository.backend=event-log",
+		"campsite.repository.event-log.path=target/event-log/${random.uuid}.log"
+})
+public class EventLogReservationServiceImpIT extends ReservationServiceImpIT {
+}
@@ -0,0 +1,12 @@
+package com.upgrade.campsite.service;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Runs the service integration tests against the in-memory backend.
+ */
+@ActiveProfiles("in-memory")
+@TestPropertySource(properties = "campsite.repository.in-memory.checkpoint-path=target/in-memory/${random.uuid}.checkpoint")
+public class InMemoryReservationServiceImpIT extends ReservationServiceImpIT {
+}
@@ -0,0 +1,96 @@
+package com.upgrade.campsite.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationArchive;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.ReservationArchiveRepository;
+import com.upgrade.campsite.repository.ReservationRepository;
+
+public class ReservationArchiverTest {
+
+	@Mock
+	private ReservationRepository reservationRepository;
+	@Mock
+	private ReservationArchiveRepository reservationArchiveRepository;
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	@InjectMocks
+	private ReservationArchiver reservationArchiver;
+
+	@Before
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		ReflectionTestUtils.setField(reservationArchiver, "chunkSize", 2);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				((TransactionCallback<?>) invocation.getArguments()[0]).doInTransaction(null));
+	}
+
+	@Test
+	public void archiveInactiveReservations_movesRowsInChunks() {
+
+		Reservation cancelled = new Reservation()
+				.arrivalDate(LocalDate.now().plusDays(2))
+				.departureDate(LocalDate.now().plusDays(3))
+				.status(ReservationStatus.CANCELLED);
+		Reservation expired = new Reservation()
+				.arrivalDate(LocalDate.now().minusDays(3))
+				.departureDate(LocalDate.now().minusDays(1));
+		Reservation alsoExpired = new Reservation()
+				.arrivalDate(LocalDate.now().minusDays(5))
+				.departureDate(LocalDate.now().minusDays(4));
+
+		List<Reservation> firstChunk = Arrays.asList(cancelled, expired);
+		List<Reservation> secondChunk = Collections.singletonList(alsoExpired);
+
+		when(reservationRepository.findByStatusOrDepartureDateBefore(
+				eq(ReservationStatus.CANCELLED), eq(LocalDate.now()), any(Pageable.class)))
+				.thenReturn(firstChunk)
+				.thenReturn(secondChunk);
+
+		int archived = reservationArchiver.archiveInactiveReservations();
+
+		assertThat(archived).isEqualTo(3);
+		verify(reservationRepository, times(1)).delete(firstChunk);
+		verify(reservationRepository, times(1)).delete(secondChunk);
+
+		ArgumentCaptor<ReservationArchive> captor = ArgumentCaptor.forClass(ReservationArchive.class);
+		verify(reservationArchiveRepository, times(3)).save(captor.capture());
+		List<ReservationStatus> statuses = new ArrayList<>();
+		captor.getAllValues().forEach(archive -> statuses.add(archive.getStatus()));
+		assertThat(statuses).containsExactly(ReservationStatus.CANCELLED, ReservationStatus.COMPLETED, ReservationStatus.COMPLETED);
+	}
+
+	@Test
+	public void archiveInactiveReservations_nothingToArchive() {
+
+		when(reservationRepository.findByStatusOrDepartureDateBefore(
+				eq(ReservationStatus.CANCELLED), eq(LocalDate.now()), any(Pageable.class)))
+				.thenReturn(Collections.emptyList());
+
+		assertThat(reservationArchiver.archiveInactiveReservations()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,82 @@
+package com.upgrade.campsite.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class ReservationIdGeneratorTest {
+
+	private final ReservationIdGenerator generator = new ReservationIdGenerator();
+
+	@Test
+	public void nextUuid_version7() {
+
+		long now = System.currentTimeMillis();
+		UUID uuid = generator.nextUuid(now);
+
+		assertThat(uuid.version()).isEqualTo(7);
+		assertThat(uuid.variant()).isEqualTo(2);
+		assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(now);
+	}
+
+	@Test
+	public void nextUuid_ordersByTime() {
+
+		long now = System.currentTimeMillis();
+		String earlier = generator.nextUuid(now).toString();
+		String later = generator.nextUuid(now + 1).toString();
+
+		assertThat(later.compareTo(earlier)).isPositive();
+		assertThat(UUID.fromString(generator.nextId()).version()).isEqualTo(7);
+	}
+
+	/*
+	 * A splittable generator such as ThreadLocalRandom walks its seed by a constant gamma and outputs a mix of it which
+	 * can be inverted, so one id would give away the random bits of the next ones from the same thread
+	 */
+	@Test
+	public void nextUuid_randomBitsNotPredictableFromPreviousId() {
+
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 100; i++) {
+			UUID previous = generator.nextUuid(now);
+			UUID next = generator.nextUuid(now);
+
+			assertThat(next.getLeastSignificantBits()).isNotEqualTo(previous.getLeastSignificantBits());
+			// The 2 low bits of the 64 random ones were shifted out for the variant
+			for (long lowBits = 0; lowBits < 4; lowBits++) {
+				long seed = unmix64((previous.getLeastSignificantBits() << 2) | lowBits);
+				long predicted = VARIANT_RFC_4122 | (mix64(seed + 2 * GAMMA) >>> 2);
+				assertThat(next.getLeastSignificantBits()).isNotEqualTo(predicted);
+			}
+		}
+	}
+
+	private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+	private static final long GAMMA = 0x9e3779b97f4a7c15L;
+	private static final long M1 = 0xff51afd7ed558ccdL;
+	private static final long M2 = 0xc4ceb9fe1a85ec53L;
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 33)) * M1;
+		z = (z ^ (z >>> 33)) * M2;
+		return z ^ (z >>> 33);
+	}
+
+	private static long unmix64(long z) {
+		z = (z ^ (z >>> 33)) * inverse(M2);
+		z = (z ^ (z >>> 33)) * inverse(M1);
+		return z ^ (z >>> 33);
+	}
+
+	// Multiplicative inverse of an odd number modulo 2^64, by Newton's iteration
+	private static long inverse(long odd) {
+		long inverse = odd;
+		for (int i = 0; i < 5; i++) {
+			inverse *= 2 - odd * inverse;
+		}
+		return inverse;
+	}
+}
@@ -1,25 +1,45 @@
 package com.upgrade.campsite.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeNotNull;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.calendar.ClockConfiguration;
+import com.upgrade.campsite.calendar.SimulatedClock;
+import com.upgrade.campsite.calendar.Today;
 import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
 import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
 import com.upgrade.campsite.rest.dto.ReservationDto;
 import com.upgrade.campsite.service.exception.ReservationServiceException;
+import com.upgrade.campsite.service.exception.ReservationServiceOverloadedException;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -31,6 +51,18 @@ public class ReservationServiceImpIT {
 	private ReservationRepository reservationRepository;
 	@Autowired
 	private ReservationService reservationService;
+	// JPA backend only, the others make writes visible right away
+	@Autowired(required = false)
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	@Qualifier(ClockConfiguration.CAMPSITE_CLOCK)
+	private Clock campsiteClock;
+
+	@After
+	public void tearDown() {
+		reservationRepository.deleteAll();
+		calendar.unbook(LocalDate.now().plusDays(1), LocalDate.now().plusDays(Calendar.TIME_SPAN));
+	}
 
 	@Test
 	public void makeConcurrentReservations() {
@@ -64,6 +96,9 @@ public class ReservationServiceImpIT {
 								.departureDate(LocalDate.now().plusDays(dayNumber));
 						try {
 							reservationService.makeReservation(reservationDto);
+						// Shed by admission control, retry the same day
+						} catch (ReservationServiceOverloadedException ex) {
+							continue;
 						// Date is not available
 						} catch (ReservationServiceException ex) {
 							result = false;
@@ -88,6 +123,189 @@ public class ReservationServiceImpIT {
 		assertThat(calendar.readAvailability(LocalDate.now().plusDays(1), LocalDate.now().plusDays(Calendar.TIME_SPAN))).isEmpty();
 	}
 
+	@Test
+	public void reconcileCalendar_driftFixed() {
+
+		LocalDate booked = LocalDate.now().plusDays(2);
+		LocalDate phantom = LocalDate.now().plusDays(5);
+		reservationService.makeReservation(new ReservationDto()
+				.email("someone@something.com")
+				.fullName("John Smith")
+				.arrivalDate(booked)
+				.departureDate(booked));
+
+		// Drift both ways: a booking missing from the calendar, a date booked with no reservation
+		calendar.unbook(booked, booked);
+		calendar.book(phantom, phantom);
+
+		assertThat(reservationService.reconcileCalendar(booked, true)).isTrue();
+		assertThat(reservationService.reconcileCalendar(phantom, false)).isTrue();
+		assertThat(reservationService.reconcileCalendar(booked.plusDays(1), true)).isFalse();
+		assertThat(calendar.checkAvailability(booked, booked)).isFalse();
+		assertThat(calendar.checkAvailability(phantom, phantom)).isTrue();
+	}
+
+	@Test
+	public void reconcileCalendar_uncommittedBooking_untouched() {
+
+		assumeNotNull(transactionManager);
+		LocalDate date = Today.date().plusDays(4);
+
+		new TransactionTemplate(transactionManager).execute(status -> {
+			reservationService.makeReservation(new ReservationDto()
+					.email("someone@something.com")
+					.fullName("John Smith")
+					.arrivalDate(date)
+					.departureDate(date));
+			// Booked in the calendar, while the row is not committed yet (JPA) the date looks booked with no reservation
+			boolean reconciled = CompletableFuture.supplyAsync(() -> reservationService.reconcileCalendar(date, false)).join();
+			assertThat(reconciled).isFalse();
+			return null;
+		});
+
+		assertThat(calendar.checkAvailability(date, date)).isFalse();
+		assertThat(reservationService.reconcileCalendar(date, false)).isFalse();
+		assertThat(reservationRepository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.ACTIVE, date, date)).isEqualTo(1);
+	}
+
+	@Test
+	public void findActiveReservations_byChunk() {
+
+		for (int day = 1; day <= 3; day++) {
+			reservationService.makeReservation(new ReservationDto()
+					.email("someone@something.com")
+					.fullName("John Smith")
+					.arrivalDate(LocalDate.now().plusDays(day))
+					.departureDate(LocalDate.now().plusDays(day)));
+		}
+
+		List<Reservation> firstChunk = reservationRepository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				ReservationStatus.ACTIVE, LocalDate.now(), 0L, new PageRequest(0, 2));
+		List<Reservation> secondChunk = reservationRepository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				ReservationStatus.ACTIVE, LocalDate.now(), firstChunk.get(1).getId(), new PageRequest(0, 2));
+
+		assertThat(firstChunk).hasSize(2);
+		assertThat(firstChunk.get(0).getId()).isLessThan(firstChunk.get(1).getId());
+		assertThat(secondChunk).hasSize(1);
+		assertThat(secondChunk.get(0).getArrivalDate()).isEqualTo(LocalDate.now().plusDays(3));
+	}
+
+	@Test
+	public void advanceCalendar_acrossMidnightUnderLoad() throws InterruptedException {
+
+		LocalDate today = Today.date();
+		// The day entering the calendar at midnight
+		int lastEpochDay = (int) today.plusDays(Calendar.TIME_SPAN + 1).toEpochDay();
+		SimulatedClock clock = new SimulatedClock(today.atTime(23, 59, 59, 500_000_000).atZone(campsiteClock.getZone()));
+		long stopMillis = clock.millis() + 1500;
+		Today.useClock(clock);
+		try {
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			AtomicLong maxReadNanos = new AtomicLong();
+			AtomicBoolean lastDayRead = new AtomicBoolean();
+			ExecutorService executorService = Executors.newFixedThreadPool(6);
+
+			// Readers time every read while the clock crosses midnight
+			for (int t = 0; t < 4; ++t) {
+				executorService.submit(() -> {
+					try {
+						while (clock.millis() < stopMillis) {
+							long start = System.nanoTime();
+							int[] availableEpochDays = reservationService.readAvailability(new DateRangeDto()).getAvailableEpochDays();
+							maxReadNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+							if (availableEpochDays.length > 0 && availableEpochDays[availableEpochDays.length - 1] == lastEpochDay) {
+								lastDayRead.set(true);
+							}
+						}
+					} catch (Throwable ex) {
+						failure.compareAndSet(null, ex);
+					}
+				});
+			}
+			// Guests book nights of the day before meanwhile, which all remain in the calendar
+			for (int t = 0; t < 2; ++t) {
+				int guest = t;
+				executorService.submit(() -> {
+					try {
+						for (int n = 0; clock.millis() < stopMillis; n++) {
+							LocalDate night = today.plusDays(1 + ThreadLocalRandom.current().nextInt(Calendar.TIME_SPAN - 1));
+							try {
+								reservationService.makeReservation(new ReservationDto()
+										.email("guest" + guest + "." + n + "@midnight.com")
+										.fullName("Night Owl")
+										.arrivalDate(night)
+										.departureDate(night));
+							} catch (ReservationServiceException ex) {
+								// Taken or shed, try another night
+							}
+						}
+					} catch (Throwable ex) {
+						failure.compareAndSet(null, ex);
+					}
+				});
+			}
+			executorService.shutdown();
+			assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+			assertThat(failure.get()).isNull();
+			assertThat(Today.date()).isEqualTo(today.plusDays(1));
+			// The new day was there right at midnight, with no pause of the reads, ahead of the rollover
+			assertThat(lastDayRead.get()).isTrue();
+			assertThat(maxReadNanos.get()).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+
+			reservationService.makeReservation(new ReservationDto()
+					.email("someone@something.com")
+					.fullName("John Smith")
+					.arrivalDate(LocalDate.ofEpochDay(lastEpochDay))
+					.departureDate(LocalDate.ofEpochDay(lastEpochDay)));
+			reservationService.advanceCalendar();
+
+			assertThat(calendar.checkAvailability(LocalDate.ofEpochDay(lastEpochDay), LocalDate.ofEpochDay(lastEpochDay))).isFalse();
+			assertThat(calendar.readAvailability(today.plusDays(1), today.plusDays(Calendar.TIME_SPAN)))
+					.hasSize(Calendar.TIME_SPAN - (int) reservationRepository.count() + 1);
+		} finally {
+			reservationRepository.deleteAll();
+			calendar.unbook(Today.date(), Today.date().plusDays(Calendar.TIME_SPAN));
+			Today.useClock(campsiteClock);
+		}
+	}
+
+	@Test
+	public void readAvailability_startedBeforeMidnight_ownEpochDay() {
+
+		LocalDate today = Today.date();
+		Thread reader = Thread.currentThread();
+		AtomicBoolean crossing = new AtomicBoolean();
+		// Crosses midnight right after the request reads the clock for the first time, i.e. once it has picked its day
+		SimulatedClock clock = new SimulatedClock(today.atTime(23, 59, 59, 900_000_000).atZone(campsiteClock.getZone())) {
+			@Override
+			public long millis() {
+				long millis = super.millis();
+				if (Thread.currentThread() == reader && crossing.compareAndSet(true, false)) {
+					advance(Duration.ofMillis(200));
+				}
+				return millis;
+			}
+		};
+		Today.useClock(clock);
+		try {
+			crossing.set(true);
+			AvailabilityDto availability = reservationService.readAvailability(new DateRangeDto());
+
+			assertThat(crossing.get()).isFalse();
+			assertThat(Today.date()).isEqualTo(today.plusDays(1));
+			// The window of the day before, not shifted by the day entering the calendar meanwhile
+			assertThat(availability.getStartDate()).isEqualTo(today.plusDays(1));
+			assertThat(availability.getEndDate()).isEqualTo(today.plusDays(Calendar.TIME_SPAN));
+			assertThat(availability.getAvailableEpochDays())
+					.hasSize(Calendar.TIME_SPAN)
+					.doesNotContain((int) today.plusDays(Calendar.TIME_SPAN + 1).toEpochDay());
+		} finally {
+			Today.useClock(campsiteClock);
+		}
+	}
+
 	private void handleExecutorServiceShutdown(ExecutorService executorService) {
 		executorService.shutdown();
 		try {
@@ -3,11 +3,15 @@ package com.upgrade.campsite.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,13 +20,23 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import com.upgrade.campsite.calendar.Calendar;
 import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
 import com.upgrade.campsite.repository.ReservationRepository;
 import com.upgrade.campsite.rest.dto.AvailabilityDto;
 import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.rest.dto.OccupancyDto;
+import com.upgrade.campsite.rest.dto.OccupancyGranularity;
+import com.upgrade.campsite.rest.dto.OccupancySearchDto;
 import com.upgrade.campsite.rest.dto.ReservationDto;
+import com.upgrade.campsite.rest.dto.StaySearchDto;
+import com.upgrade.campsite.rest.dto.StayWindowsDto;
+import com.upgrade.campsite.service.admission.AdmissionLimiter;
+import com.upgrade.campsite.service.admission.AdmissionProperties;
 import com.upgrade.campsite.service.exception.ReservationServiceErrorCode;
 import com.upgrade.campsite.service.exception.ReservationServiceException;
 
@@ -36,6 +50,14 @@ public class ReservationServiceImplTest {
 	private Calendar calendar;
 	@Mock
 	private ReservationRepository reservationRepository;
+	@Spy
+	private AdmissionLimiter admissionLimiter = new AdmissionLimiter(new AdmissionProperties());
+	@Spy
+	private ReservationIdGenerator reservationIdGenerator = new ReservationIdGenerator();
+	@Spy
+	private CalendarLockMetrics calendarLockMetrics = new CalendarLockMetrics();
+	@Spy
+	private ReservationServiceMetrics reservationServiceMetrics = new ReservationServiceMetrics();
 	@InjectMocks
 	private ReservationServiceImpl reservationService;
 
@@ -59,7 +81,7 @@ public class ReservationServiceImplTest {
 			availableDatesExpected.add(LocalDate.now().plusDays(i));
 		}
 
-		when(calendar.readAvailability(defaultStartDate, defaultEndDate)).thenReturn(availableDatesExpected);
+		when(calendar.readAvailableEpochDays(defaultStartDate, defaultEndDate)).thenReturn(epochDays(availableDatesExpected));
 
 		AvailabilityDto availability = reservationService.readAvailability(dateRangeDto);
 
@@ -81,13 +103,47 @@ public class ReservationServiceImplTest {
 
 		List<LocalDate> availableDatesExpected = new ArrayList<>();
 
-		when(calendar.readAvailability(startDate, endDate)).thenReturn(availableDatesExpected);
+		when(calendar.readAvailableEpochDays(startDate, endDate)).thenReturn(epochDays(availableDatesExpected));
 
 		AvailabilityDto availability = reservationService.readAvailability(dateRangeDto);
 
 		assertThat(availability.getStartDate()).isEqualTo(startDate);
 		assertThat(availability.getEndDate()).isEqualTo(endDate);
 		assertThat(availability.getAvailableDates()).isEmpty();
+		assertThat(calendarLockMetrics.getOptimisticReads()).isEqualTo(1);
+		assertThat(calendarLockMetrics.getOptimisticReadFailures()).isEqualTo(0);
+	}
+
+	@Test
+	public void findStayWindows_success() {
+
+		int[] arrivals = { (int) LocalDate.now().plusDays(4).toEpochDay(), (int) LocalDate.now().plusDays(9).toEpochDay() };
+
+		when(calendar.findStayWindows(3, 2)).thenReturn(arrivals);
+
+		StayWindowsDto windows = reservationService.findStayWindows(new StaySearchDto().days(3).limit(2));
+
+		assertThat(windows.getDays()).isEqualTo(3);
+		assertThat(windows.getArrivalDates()).containsExactly(LocalDate.now().plusDays(4), LocalDate.now().plusDays(9));
+	}
+
+	@Test
+	public void readOccupancy_weeklyBuckets() {
+
+		LocalDate startDate = LocalDate.now().plusDays(1);
+		LocalDate endDate = LocalDate.now().plusDays(Calendar.TIME_SPAN);
+		LocalDate secondWeek = startDate.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+		when(calendar.countOccupied(any(int[].class))).thenAnswer(invocation -> new int[((int[]) invocation.getArguments()[0]).length - 1]);
+
+		OccupancyDto occupancy = reservationService.readOccupancy(new OccupancySearchDto().granularity(OccupancyGranularity.WEEK));
+
+		int[] bounds = occupancy.getBounds();
+		assertThat(bounds[0]).isEqualTo((int) startDate.toEpochDay());
+		assertThat(bounds[1]).isEqualTo((int) secondWeek.toEpochDay());
+		assertThat(bounds[2]).isEqualTo((int) secondWeek.plusWeeks(1).toEpochDay());
+		assertThat(bounds[bounds.length - 1]).isEqualTo((int) endDate.plusDays(1).toEpochDay());
+		assertThat(occupancy.getFree(0)).isEqualTo((int) (secondWeek.toEpochDay() - startDate.toEpochDay()));
 	}
 
 	@Test
@@ -119,6 +175,8 @@ public class ReservationServiceImplTest {
 		assertThat(confirmedReservation.getFullName()).isEqualTo(FULL_NAME);
 		assertThat(confirmedReservation.getArrivalDate()).isEqualTo(arrivalDate);
 		assertThat(confirmedReservation.getDepartureDate()).isEqualTo(departureDate);
+		assertThat(reservationServiceMetrics.getLatencies().get("repositorySave").snapshot().getTotalCount()).isEqualTo(1);
+		assertThat(calendarLockMetrics.getLatencies().get("writeLockHold").snapshot().getTotalCount()).isEqualTo(1);
 	}
 
 	@Test
@@ -170,7 +228,7 @@ public class ReservationServiceImplTest {
 
 		when(reservationRepository.findByUuid(UUID)).thenReturn(originalReservation);
 		when(calendar.checkOverlappingAvailability(originalArrivalDate, originaldepartureDate, newArrivalDate, newDepartureDate)).thenReturn(true);
-		when(reservationRepository.save(any(Reservation.class))).thenReturn(updatedReservation);
+		when(reservationRepository.saveAndFlush(any(Reservation.class))).thenReturn(updatedReservation);
 
 		ReservationDto confirmedReservation = reservationService.modifyReservation(UUID, reservationDto);
 
@@ -179,6 +237,7 @@ public class ReservationServiceImplTest {
 		assertThat(confirmedReservation.getFullName()).isEqualTo(newFullname);
 		assertThat(confirmedReservation.getArrivalDate()).isEqualTo(newArrivalDate);
 		assertThat(confirmedReservation.getDepartureDate()).isEqualTo(newDepartureDate);
+		verify(calendar).moveBooking(originalArrivalDate, originaldepartureDate, newArrivalDate, newDepartureDate);
 	}
 
 	@Test
@@ -205,6 +264,78 @@ public class ReservationServiceImplTest {
 				.hasFieldOrPropertyWithValue("errorCode", ReservationServiceErrorCode.UNAVAILABLE_DATES);
 	}
 
+	@Test
+	public void modifyReservation_contactDetailsOnly_skipsCalendar() {
+
+		LocalDate arrivalDate = LocalDate.now().plusDays(2);
+		LocalDate departureDate = LocalDate.now().plusDays(4);
+
+		ReservationDto reservationDto = new ReservationDto()
+				.email("new@email.com")
+				.fullName("New Name")
+				.arrivalDate(arrivalDate)
+				.departureDate(departureDate);
+
+		Reservation originalReservation = new Reservation()
+				.uuid(UUID)
+				.email(EMAIL)
+				.fullName(FULL_NAME)
+				.arrivalDate(arrivalDate)
+				.departureDate(departureDate)
+				.version(3L);
+
+		when(reservationRepository.findByUuid(UUID)).thenReturn(originalReservation);
+		when(reservationRepository.saveAndFlush(originalReservation)).thenReturn(originalReservation);
+
+		ReservationDto confirmedReservation = reservationService.modifyReservation(UUID, reservationDto, 3L);
+
+		assertThat(confirmedReservation.getEmail()).isEqualTo("new@email.com");
+		assertThat(confirmedReservation.getFullName()).isEqualTo("New Name");
+		verifyZeroInteractions(calendar);
+	}
+
+	@Test
+	public void modifyReservation_versionMismatch() {
+
+		Reservation reservation = new Reservation()
+				.arrivalDate(LocalDate.now().plusDays(2))
+				.departureDate(LocalDate.now().plusDays(4))
+				.version(4L);
+
+		when(reservationRepository.findByUuid(UUID)).thenReturn(reservation);
+
+		assertThatThrownBy(() -> reservationService.modifyReservation(UUID, new ReservationDto(), 3L))
+				.isInstanceOf(ReservationServiceException.class)
+				.hasFieldOrPropertyWithValue("errorCode", ReservationServiceErrorCode.VERSION_MISMATCH);
+		verifyZeroInteractions(calendar);
+	}
+
+	@Test
+	public void modifyReservation_concurrentModification() {
+
+		LocalDate originalArrivalDate = LocalDate.now().plusDays(2);
+		LocalDate originalDepartureDate = LocalDate.now().plusDays(2);
+		LocalDate newArrivalDate = LocalDate.now().plusDays(3);
+		LocalDate newDepartureDate = LocalDate.now().plusDays(4);
+
+		ReservationDto reservationDto = new ReservationDto()
+				.arrivalDate(newArrivalDate)
+				.departureDate(newDepartureDate);
+
+		Reservation reservation = new Reservation()
+				.arrivalDate(originalArrivalDate)
+				.departureDate(originalDepartureDate);
+
+		when(reservationRepository.findByUuid(UUID)).thenReturn(reservation);
+		when(calendar.checkOverlappingAvailability(originalArrivalDate, originalDepartureDate, newArrivalDate, newDepartureDate)).thenReturn(true);
+		when(reservationRepository.saveAndFlush(reservation)).thenThrow(new ObjectOptimisticLockingFailureException(Reservation.class, 1L));
+
+		assertThatThrownBy(() -> reservationService.modifyReservation(UUID, reservationDto))
+				.isInstanceOf(ReservationServiceException.class)
+				.hasFieldOrPropertyWithValue("errorCode", ReservationServiceErrorCode.CONCURRENT_MODIFICATION);
+		verify(calendar, never()).moveBooking(any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), any(LocalDate.class));
+	}
+
 	@Test
 	public void modifyReservation_notFound() {
 
@@ -242,8 +373,24 @@ public class ReservationServiceImplTest {
 		when(reservationRepository.findByUuid(UUID)).thenReturn(reservation);
 		reservationService.cancelReservation(UUID);
 
-		verify(reservationRepository, times(1)).delete(reservation);
+		verify(reservationRepository, times(1)).saveAndFlush(reservation);
 		verify(calendar, times(1)).unbook(arrivalDate, departureDate);
+		assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+	}
+
+	@Test
+	public void cancelReservation_alreadyCancelled() {
+
+		Reservation reservation = new Reservation()
+				.arrivalDate(LocalDate.now().plusDays(2))
+				.departureDate(LocalDate.now().plusDays(4))
+				.status(ReservationStatus.CANCELLED);
+
+		when(reservationRepository.findByUuid(UUID)).thenReturn(reservation);
+
+		assertThatThrownBy(() -> reservationService.cancelReservation(UUID))
+				.isInstanceOf(ReservationServiceException.class)
+				.hasFieldOrPropertyWithValue("errorCode", ReservationServiceErrorCode.RESERVATION_NOT_FOUND);
 	}
 
 	@Test
@@ -276,14 +423,9 @@ public class ReservationServiceImplTest {
 		LocalDate arrivalDate = LocalDate.now().plusDays(2);
 		LocalDate departureDate = LocalDate.now().plusDays(4);
 
-		Reservation reservation = new Reservation()
-				.uuid(UUID)
-				.email(EMAIL)
-				.fullName(FULL_NAME)
-				.arrivalDate(arrivalDate)
-				.departureDate(departureDate);
+		ReservationDto reservation = new ReservationDto(UUID, EMAIL, FULL_NAME, arrivalDate, departureDate, 0L);
 
-		when(reservationRepository.findByUuid(UUID)).thenReturn(reservation);
+		when(reservationRepository.findDtoByUuid(UUID)).thenReturn(reservation);
 
 		ReservationDto returnedReservation = reservationService.readReservation(UUID);
 
@@ -297,10 +439,55 @@ public class ReservationServiceImplTest {
 	@Test
 	public void readReservation_notFound() {
 
-		when(reservationRepository.findByUuid(UUID)).thenReturn(null);
+		when(reservationRepository.findDtoByUuid(UUID)).thenReturn(null);
 
 		assertThatThrownBy(() -> reservationService.readReservation(UUID))
 				.isInstanceOf(ReservationServiceException.class)
 				.hasFieldOrPropertyWithValue("errorCode", ReservationServiceErrorCode.RESERVATION_NOT_FOUND);
 	}
+
+	@Test
+	public void reconcileCalendar_missingBooking_booked() {
+
+		LocalDate date = LocalDate.now().plusDays(3);
+
+		when(reservationRepository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.ACTIVE, date, date)).thenReturn(1L);
+		when(calendar.checkAvailability(date, date)).thenReturn(true);
+
+		assertThat(reservationService.reconcileCalendar(date, true)).isTrue();
+		verify(calendar).book(date, date);
+	}
+
+	@Test
+	public void reconcileCalendar_inStep_untouched() {
+
+		LocalDate date = LocalDate.now().plusDays(3);
+
+		when(reservationRepository.countByStatusAndArrivalDateLessThanEqualAndDepartureDateGreaterThanEqual(
+				ReservationStatus.ACTIVE, date, date)).thenReturn(0L);
+		when(calendar.checkAvailability(date, date)).thenReturn(true);
+
+		assertThat(reservationService.reconcileCalendar(date, true)).isFalse();
+		verify(calendar, never()).book(any(), any());
+		verify(calendar, never()).unbook(any(), any());
+	}
+
+	@Test
+	public void reconcileCalendar_changedSinceAudit_untouched() {
+
+		LocalDate date = LocalDate.now().plusDays(3);
+
+		// Found booked by the audit, available by now
+		when(calendar.checkAvailability(date, date)).thenReturn(true);
+
+		assertThat(reservationService.reconcileCalendar(date, false)).isFalse();
+		verifyZeroInteractions(reservationRepository);
+		verify(calendar, never()).book(any(), any());
+		verify(calendar, never()).unbook(any(), any());
+	}
+
+	private int[] epochDays(List<LocalDate> dates) {
+		return dates.stream().mapToInt(date -> (int) date.toEpochDay()).toArray();
+	}
 }
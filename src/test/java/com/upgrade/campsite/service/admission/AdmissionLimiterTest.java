@@ -0,0 +1,129 @@
+package com.upgrade.campsite.service.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdmissionLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private AdmissionProperties properties;
+
+	@Before
+	public void setup() {
+		properties = new AdmissionProperties();
+		properties.setInitialLimit(2);
+		properties.setMinLimit(1);
+		properties.setMaxLimit(4);
+		properties.setTargetLatencyMillis(50);
+	}
+
+	@Test
+	public void tryAcquire_rejectsBeyondLimit() {
+
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getMetrics().get("inFlight")).isEqualTo(2);
+		assertThat(limiter.getMetrics().get("rejected")).isEqualTo(1L);
+	}
+
+	@Test
+	public void tryAcquire_disabledOnlyCounts() {
+
+		properties.setEnabled(false);
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+		}
+		assertThat(limiter.getMetrics().get("inFlight")).isEqualTo(5);
+	}
+
+	@Test
+	public void release_increasesLimitAdditivelyUpToMax() {
+
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+
+		// 2 -> 2.5 -> 2.9 -> 3.24
+		for (int i = 0; i < 3; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(3);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	public void release_decreasesLimitMultiplicativelyDownToMin() {
+
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.release(SLOW);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(1);
+	}
+
+	@Test
+	public void release_singleSpike_decreasesOnce() {
+
+		properties.setInitialLimit(20);
+		properties.setMaxLimit(40);
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+		for (int i = 0; i < 20; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST);
+		}
+		int previousLimit = limiter.getLimit();
+
+		// A pause keeps the moving average over the target for a dozen releases
+		limiter.tryAcquire();
+		limiter.release(TimeUnit.SECONDS.toNanos(2));
+		for (int i = 0; i < 40; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST);
+		}
+		assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(previousLimit - 2);
+	}
+
+	@Test
+	public void retryAfterSeconds_drainTimeOfMutationsInFlight() {
+
+		properties.setInitialLimit(10);
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+		limiter.held(SLOW);
+
+		assertThat(limiter.retryAfterSeconds()).isEqualTo(1L);
+		for (int i = 0; i < 5; i++) {
+			limiter.tryAcquire();
+		}
+		assertThat(limiter.retryAfterSeconds()).isEqualTo(3L);
+	}
+
+	@Test
+	public void cancel_releasesWithoutAdjusting() {
+
+		AdmissionLimiter limiter = new AdmissionLimiter(properties);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.cancel();
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getMetrics().get("inFlight")).isEqualTo(0);
+	}
+}
@@ -0,0 +1,136 @@
+package com.upgrade.campsite.service.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Pageable;
+
+import com.upgrade.campsite.calendar.Calendar;
+import com.upgrade.campsite.model.Reservation;
+import com.upgrade.campsite.model.ReservationStatus;
+import com.upgrade.campsite.repository.ReservationRepository;
+import com.upgrade.campsite.rest.dto.AvailabilityDto;
+import com.upgrade.campsite.rest.dto.DateRangeDto;
+import com.upgrade.campsite.service.ReservationService;
+
+public class CalendarAuditorTest {
+
+	@Mock
+	private ReservationService reservationService;
+	@Mock
+	private ReservationRepository reservationRepository;
+	@Spy
+	private AuditProperties properties = new AuditProperties();
+	@InjectMocks
+	private CalendarAuditor calendarAuditor;
+
+	private final LocalDate today = LocalDate.now();
+
+	@Before
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		properties.setEnabled(false);
+		properties.setChunkSize(2);
+		properties.setReadsPerSecond(1000);
+		properties.setRepair(true);
+		calendarAuditor.start();
+
+		// Repository: days 2 to 3, 5 and 10 to 11 booked
+		when(reservationRepository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				eq(ReservationStatus.ACTIVE), eq(today), eq(0L), any(Pageable.class)))
+				.thenReturn(Arrays.asList(reservation(1, 2, 3), reservation(2, 5, 5)));
+		when(reservationRepository.findByStatusAndDepartureDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+				eq(ReservationStatus.ACTIVE), eq(today), eq(2L), any(Pageable.class)))
+				.thenReturn(Collections.singletonList(reservation(3, 10, 11)));
+		when(reservationService.reconcileCalendar(any(LocalDate.class), anyBoolean())).thenReturn(true);
+	}
+
+	@Test
+	public void audit_inStep_noDrift() {
+
+		whenCalendarBooked(2, 3, 5, 10, 11);
+
+		calendarAuditor.audit();
+		calendarAuditor.audit();
+
+		assertThat(calendarAuditor.getMetrics())
+				.containsEntry("audits", 2L)
+				.containsEntry("suspectDates", 0)
+				.containsEntry("driftedDates", 0L);
+		verify(reservationService, never()).reconcileCalendar(any(LocalDate.class), anyBoolean());
+	}
+
+	@Test
+	public void audit_outOfStepTwice_driftRepaired() {
+
+		// Missing days 10 and 11, stale day 20
+		whenCalendarBooked(2, 3, 5, 20);
+
+		calendarAuditor.audit();
+
+		assertThat(calendarAuditor.getMetrics())
+				.containsEntry("suspectDates", 3)
+				.containsEntry("driftedDates", 0L);
+		verify(reservationService, never()).reconcileCalendar(any(LocalDate.class), anyBoolean());
+
+		calendarAuditor.audit();
+
+		assertThat(calendarAuditor.getMetrics())
+				.containsEntry("driftedDates", 3L)
+				.containsEntry("repairedDates", 3L);
+		verify(reservationService).reconcileCalendar(today.plusDays(10), true);
+		verify(reservationService).reconcileCalendar(today.plusDays(11), true);
+		verify(reservationService).reconcileCalendar(today.plusDays(20), false);
+		verify(reservationService, times(3)).reconcileCalendar(any(LocalDate.class), anyBoolean());
+	}
+
+	@Test
+	public void audit_outOfStepOnce_notReported() {
+
+		whenCalendarBooked(2, 3, 5, 20);
+		calendarAuditor.audit();
+		whenCalendarBooked(2, 3, 5, 10, 11);
+		calendarAuditor.audit();
+
+		assertThat(calendarAuditor.getMetrics())
+				.containsEntry("suspectDates", 0)
+				.containsEntry("driftedDates", 0L);
+		verify(reservationService, never()).reconcileCalendar(any(LocalDate.class), anyBoolean());
+	}
+
+	private void whenCalendarBooked(Integer... days) {
+		int[] available = new int[Calendar.TIME_SPAN + 1 - days.length];
+		int count = 0;
+		for (int day = 0; day <= Calendar.TIME_SPAN; day++) {
+			if (!Arrays.asList(days).contains(day)) {
+				available[count++] = (int) today.plusDays(day).toEpochDay();
+			}
+		}
+		when(reservationService.readAvailability(any(DateRangeDto.class)))
+				.thenReturn(new AvailabilityDto(today, today.plusDays(Calendar.TIME_SPAN), available));
+	}
+
+	private Reservation reservation(long id, int arrivalDay, int departureDay) {
+		Reservation reservation = new Reservation()
+				.arrivalDate(today.plusDays(arrivalDay))
+				.departureDate(today.plusDays(departureDay));
+		reservation.setId(id);
+		return reservation;
+	}
+}
@@ -0,0 +1,26 @@
+package com.upgrade.campsite.service.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class MessageTemplateTest {
+
+	@Test
+	public void format_fillsPlaceholdersInOrder() {
+
+		MessageTemplate template = new MessageTemplate("From {} through {}.");
+
+		assertThat(template.format(LocalDate.of(2017, 6, 1), LocalDate.of(2017, 6, 3))).isEqualTo("From 2017-06-01 through 2017-06-03.");
+		assertThat(template.format("a")).isEqualTo("From a through .");
+	}
+
+	@Test
+	public void format_placeholdersAtTheEdges() {
+
+		assertThat(new MessageTemplate("{} and {}").format(1, null)).isEqualTo("1 and null");
+		assertThat(new MessageTemplate("No placeholder").format("ignored")).isEqualTo("No placeholder");
+	}
+}